@@ -112,6 +112,17 @@ public class Memory extends org.mmtk.vm.Memory {
     return SimulatedMemory.unprotect(start, size);
   }
 
+  @Override
+  public boolean uncommit(Address start, int size) {
+    SimulatedMemory.zero(start, size);
+    return true;
+  }
+
+  @Override
+  public boolean adviseHugePages(Address start, int size) {
+    return false;
+  }
+
   @Override
   public void zero(boolean useNT, Address start, Extent len) {
     SimulatedMemory.zero(start, len);
@@ -22,6 +22,7 @@ import org.mmtk.harness.lang.Trace;
 import org.mmtk.harness.lang.Trace.Item;
 import org.mmtk.harness.lang.runtime.ReferenceValue;
 import org.mmtk.plan.TraceLocal;
+import org.mmtk.vm.VM;
 import org.vmmagic.pragma.Uninterruptible;
 import org.vmmagic.unboxed.ObjectReference;
 import org.vmmagic.unboxed.harness.Clock;
@@ -103,7 +104,8 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
   /**
    * {@inheritDoc}
    * <p>
-   * TODO support concurrent scans
+   * TODO support concurrent scans: for now the whole scan is done by the
+   * collector with ordinal 0.
    * <p>
    * TODO the nursery/mature logic could be improved
    * <p>
@@ -111,6 +113,9 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
    */
   @Override
   public synchronized void scan(TraceLocal trace, boolean nursery, boolean retain) {
+    if (VM.activePlan.collector().parallelWorkerOrdinal() != 0) {
+      return;
+    }
     Clock.stop();
     Trace.trace(Item.REFERENCES, "Scanning %s references: current = %d, new = %d, %s",
         semantics,currentRefs.size(), newRefs.size(), nursery  ? "nursery" : "full-heap",
@@ -145,6 +150,9 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
    */
   @Override
   public void forward(TraceLocal trace, boolean nursery) {
+    if (VM.activePlan.collector().parallelWorkerOrdinal() != 0) {
+      return;
+    }
     Clock.stop();
     Trace.trace(Item.REFERENCES, "Forwarding %s references: %s",
         semantics,nursery ? "nursery" : "full-heap");
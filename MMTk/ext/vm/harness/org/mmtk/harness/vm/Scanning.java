@@ -159,4 +159,22 @@ public class Scanning extends org.mmtk.vm.Scanning {
   public boolean supportsReturnBarrier() {
     return false;
   }
+
+  /**
+   * The harness has no objects with deduplicable contents.
+   */
+  @Override
+  public Address getDeduplicationSlot(ObjectReference object) {
+    return Address.zero();
+  }
+
+  @Override
+  public int contentHash(ObjectReference contents) {
+    return 0;
+  }
+
+  @Override
+  public boolean contentEquals(ObjectReference a, ObjectReference b) {
+    return a.toAddress().EQ(b.toAddress());
+  }
 }
@@ -21,6 +21,8 @@ import org.jikesrvm.VM;
 import org.jikesrvm.mm.mminterface.Selected;
 import org.jikesrvm.runtime.Magic;
 import org.jikesrvm.Services;
+import org.jikesrvm.scheduler.RVMThread;
+import org.mmtk.plan.CollectorContext;
 import org.mmtk.plan.TraceLocal;
 
 /**
@@ -151,15 +153,17 @@ public final class FinalizableProcessor extends org.mmtk.vm.FinalizableProcessor
    * {@inheritDoc}.
    * <p>
    * Currently ignores the nursery hint.
-   * <p>
-   * TODO parallelise this code?
    *
    * @param trace The trace
    * @param nursery Is this a nursery collection ?
    */
   @Override
   public void forward(TraceLocal trace, boolean nursery) {
-    for (int i = 0 ; i < maxIndex; i++) {
+    CollectorContext cc = RVMThread.getCurrentThread().getCollectorContext();
+    int threads = cc.parallelWorkerCount();
+    int start = ReferenceProcessor.stripeStart(0, maxIndex, cc.parallelWorkerOrdinal(), threads);
+    int end = ReferenceProcessor.stripeStart(0, maxIndex, cc.parallelWorkerOrdinal() + 1, threads);
+    for (int i = start; i < end; i++) {
       ObjectReference ref = table.get(i).toObjectReference();
       table.set(i, trace.getForwardedFinalizable(ref).toAddress());
     }
@@ -173,17 +177,24 @@ public final class FinalizableProcessor extends org.mmtk.vm.FinalizableProcessor
    * Depending on the value of <code>nursery</code>, we will either
    * scan all references, or just those created since the last scan.
    * <p>
-   * TODO parallelise this code
+   * As for reference types, each collector processes its own stripe of
+   * the table, and the first collector to arrive at the subsequent
+   * rendezvous gathers the survivors of all stripes.
    *
    * @param nursery Scan only the newly created references
    */
   @Override
   @UninterruptibleNoWarn
   public void scan(TraceLocal trace, boolean nursery) {
-    int toIndex = nursery ? nurseryIndex : 0;
-
-    for (int fromIndex = toIndex; fromIndex < maxIndex; fromIndex++) {
-      ObjectReference ref = table.get(fromIndex).toObjectReference();
+    int fromIndex = nursery ? nurseryIndex : 0;
+    CollectorContext cc = RVMThread.getCurrentThread().getCollectorContext();
+    int threads = cc.parallelWorkerCount();
+    int start = ReferenceProcessor.stripeStart(fromIndex, maxIndex, cc.parallelWorkerOrdinal(), threads);
+    int end = ReferenceProcessor.stripeStart(fromIndex, maxIndex, cc.parallelWorkerOrdinal() + 1, threads);
+
+    int toIndex = start;
+    for (int i = start; i < end; i++) {
+      ObjectReference ref = table.get(i).toObjectReference();
 
       /* Determine liveness (and forward if necessary) */
       if (trace.isLive(ref)) {
@@ -195,14 +206,32 @@ public final class FinalizableProcessor extends org.mmtk.vm.FinalizableProcessor
       ref = trace.retainForFinalize(ref);
 
       /* Add to object table */
+      lock.acquire();
       Offset offset = Word.fromIntZeroExtend(lastReadyIndex).lsh(LOG_BYTES_IN_ADDRESS).toOffset();
       Selected.Plan.get().storeObjectReference(Magic.objectAsAddress(readyForFinalize).plus(offset), ref);
       lastReadyIndex = (lastReadyIndex + 1) % readyForFinalize.length;
+      lock.release();
+    }
+    /* Terminate the survivors of this stripe */
+    if (toIndex < end) {
+      table.set(toIndex, Address.zero());
     }
-    nurseryIndex = maxIndex = toIndex;
 
-    /* Possible schedule finalizers to run */
-    Collection.scheduleFinalizerThread();
+    if (cc.rendezvous() == 0) {
+      toIndex = fromIndex;
+      for (int stripe = 0; stripe < threads; stripe++) {
+        int stripeEnd = ReferenceProcessor.stripeStart(fromIndex, maxIndex, stripe + 1, threads);
+        for (int i = ReferenceProcessor.stripeStart(fromIndex, maxIndex, stripe, threads); i < stripeEnd; i++) {
+          Address entry = table.get(i);
+          if (entry.isZero()) break;
+          table.set(toIndex++, entry);
+        }
+      }
+      nurseryIndex = maxIndex = toIndex;
+
+      /* Possible schedule finalizers to run */
+      Collection.scheduleFinalizerThread();
+    }
   }
 
   /**
@@ -166,6 +166,19 @@ import org.vmmagic.pragma.*;
                                                    org.jikesrvm.runtime.Memory.PROT_EXEC);
   }
 
+  @Override
+  public final boolean uncommit(Address start, int size) {
+    return org.jikesrvm.runtime.Memory.madvise(start, Extent.fromIntZeroExtend(size),
+                                               org.jikesrvm.runtime.Memory.MADV_DONTNEED);
+  }
+
+  @Override
+  public final boolean adviseHugePages(Address start, int size) {
+    if (!VM.BuildForLinux) return false;
+    return org.jikesrvm.runtime.Memory.madvise(start, Extent.fromIntZeroExtend(size),
+                                               org.jikesrvm.runtime.Memory.MADV_HUGEPAGE);
+  }
+
   @Override
   public final void zero(boolean useNT, Address start, Extent len) {
     org.jikesrvm.runtime.Memory.zero(useNT, start,len);
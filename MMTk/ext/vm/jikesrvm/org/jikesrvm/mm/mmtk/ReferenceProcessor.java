@@ -12,6 +12,7 @@
  */
 package org.jikesrvm.mm.mmtk;
 
+import org.mmtk.plan.CollectorContext;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.utility.options.Options;
 
@@ -46,6 +47,11 @@ import java.lang.ref.PhantomReference;
  * <p>
  * As an optimization for generational collectors, each reference type
  * maintains two queues: a nursery queue and the main queue.
+ * <p>
+ * Every collector thread takes part in processing the tables.  Each
+ * thread processes a contiguous stripe of the table, compacting the
+ * surviving entries to the front of its stripe, and once all threads
+ * have finished the stripes are gathered back into a dense table.
  */
 @Uninterruptible
 public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
@@ -56,6 +62,9 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
 
   private static final Lock lock = new Lock("ReferenceProcessor");
 
+  /** Serializes collector threads enqueueing references on a ReferenceQueue */
+  private static final Lock enqueueLock = new Lock("ReferenceEnqueue");
+
   private static final ReferenceProcessor softReferenceProcessor =
     new ReferenceProcessor(Semantics.SOFT);
   private static final ReferenceProcessor weakReferenceProcessor =
@@ -267,6 +276,22 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
    *              GC time processing
    */
 
+  /**
+   * Compute the start of a collector's stripe of a range of a table.  The
+   * last stripe absorbs the remainder of the range, and the start of stripe
+   * <code>stripes</code> is the end of the range.
+   *
+   * @param from The start of the range (inclusive)
+   * @param to The end of the range (exclusive)
+   * @param stripe The stripe, from 0 to <code>stripes</code> inclusive
+   * @param stripes The number of stripes
+   * @return The table index of the start of the stripe
+   */
+  static int stripeStart(int from, int to, int stripe, int stripes) {
+    if (stripe == stripes) return to;
+    return from + ((to - from) / stripes) * stripe;
+  }
+
   /**
    * {@inheritDoc}
    * <p>
@@ -274,9 +299,6 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
    * using separate traces.
    * <p>
    * Currently ignores the nursery hint.
-   * <p>
-   * TODO parallelise this code
-   *
    */
   @Override
   public void forward(TraceLocal trace, boolean nursery) {
@@ -288,7 +310,11 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
       VM.sysWriteln("unforwardedReferences is ",
           Magic.objectAsAddress(unforwardedReferences));
     }
-    for (int i = 0; i < maxIndex; i++) {
+    CollectorContext cc = RVMThread.getCurrentThread().getCollectorContext();
+    int threads = cc.parallelWorkerCount();
+    int start = stripeStart(0, maxIndex, cc.parallelWorkerOrdinal(), threads);
+    int end = stripeStart(0, maxIndex, cc.parallelWorkerOrdinal() + 1, threads);
+    for (int i = start; i < end; i++) {
       if (TRACE_DETAIL) VM.sysWrite("slot ",i,": ");
       ObjectReference reference = unforwardedReferences.get(i).toObjectReference();
       if (TRACE_DETAIL) VM.sysWriteln("forwarding ",reference);
@@ -297,7 +323,9 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
       unforwardedReferences.set(i, newReference.toAddress());
     }
     if (TRACE) VM.sysWriteln("Ending ReferenceGlue.forward(",semanticsStr,")");
-    unforwardedReferences = null;
+    if (cc.rendezvous() == 0) {
+      unforwardedReferences = null;
+    }
   }
 
   @Override
@@ -313,7 +341,9 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
    * Depending on the value of <code>nursery</code>, we will either
    * scan all references, or just those created since the last scan.
    * <p>
-   * TODO parallelise this code
+   * Each collector processes its own stripe of the table, and the first
+   * collector to arrive at the subsequent rendezvous gathers the
+   * survivors of all stripes.
    *
    * @param nursery Scan only the newly created references
    */
@@ -322,17 +352,22 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
     unforwardedReferences = references;
 
     if (TRACE) VM.sysWriteln("Starting ReferenceGlue.scan(",semanticsStr,")");
-    int toIndex = nursery ? nurseryIndex : 0;
+    int fromIndex = nursery ? nurseryIndex : 0;
+    CollectorContext cc = RVMThread.getCurrentThread().getCollectorContext();
+    int threads = cc.parallelWorkerCount();
+    int start = stripeStart(fromIndex, maxIndex, cc.parallelWorkerOrdinal(), threads);
+    int end = stripeStart(fromIndex, maxIndex, cc.parallelWorkerOrdinal() + 1, threads);
 
     if (TRACE_DETAIL) VM.sysWriteln(semanticsStr," Reference table is ",Magic.objectAsAddress(references));
     if (retain) {
-      for (int fromIndex = toIndex; fromIndex < maxIndex; fromIndex++) {
-          ObjectReference reference = getReference(fromIndex);
-          retainReferent(trace, reference);
-        }
+      for (int i = start; i < end; i++) {
+        ObjectReference reference = getReference(i);
+        retainReferent(trace, reference);
+      }
     } else {
-      for (int fromIndex = toIndex; fromIndex < maxIndex; fromIndex++) {
-        ObjectReference reference = getReference(fromIndex);
+      int toIndex = start;
+      for (int i = start; i < end; i++) {
+        ObjectReference reference = getReference(i);
 
         /* Determine liveness (and forward if necessary) the reference */
         ObjectReference newReference = processReference(trace,reference);
@@ -345,13 +380,15 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
             VM.sysWrite(" -> ");
             VM.sysWriteln(getReferent(references.get(index).toObjectReference()));
           }
-               }
-             }
-      if (Options.verbose.getValue() >= 3) {
-        VM.sysWrite(semanticsStr);
-        VM.sysWriteln(" references: ",maxIndex," -> ",toIndex);
+        }
+      }
+      /* Terminate the survivors of this stripe */
+      if (toIndex < end) {
+        references.set(toIndex, Address.zero());
+      }
+      if (cc.rendezvous() == 0) {
+        compactReferences(fromIndex, threads);
       }
-      nurseryIndex = maxIndex = toIndex;
     }
 
     /* flush out any remset entries generated during the above activities */
@@ -359,6 +396,31 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
     if (TRACE) VM.sysWriteln("Ending ReferenceGlue.scan(",semanticsStr,")");
   }
 
+  /**
+   * Gather the surviving references of each stripe into a dense table.
+   * The survivors of a stripe are at the front of the stripe, terminated
+   * by a zero entry unless they fill it.
+   *
+   * @param fromIndex The start of the range of the table that was scanned
+   * @param stripes The number of stripes the range was divided into
+   */
+  private void compactReferences(int fromIndex, int stripes) {
+    int toIndex = fromIndex;
+    for (int stripe = 0; stripe < stripes; stripe++) {
+      int end = stripeStart(fromIndex, maxIndex, stripe + 1, stripes);
+      for (int i = stripeStart(fromIndex, maxIndex, stripe, stripes); i < end; i++) {
+        Address entry = references.get(i);
+        if (entry.isZero()) break;
+        references.set(toIndex++, entry);
+      }
+    }
+    if (Options.verbose.getValue() >= 3) {
+      VM.sysWrite(semanticsStr);
+      VM.sysWriteln(" references: ",maxIndex," -> ",toIndex);
+    }
+    nurseryIndex = maxIndex = toIndex;
+  }
+
   /**
    * This method deals only with soft references. It retains the referent
    * if the reference is definitely reachable.
@@ -411,7 +473,10 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
    */
   public boolean enqueueReference(ObjectReference addr) {
     Reference<?> reference = (Reference<?>)addr.toObject();
-    return reference.enqueueInternal();
+    enqueueLock.acquire();
+    boolean result = reference.enqueueInternal();
+    enqueueLock.release();
+    return result;
   }
 
   /**
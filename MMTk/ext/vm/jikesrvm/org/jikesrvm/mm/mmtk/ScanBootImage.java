@@ -14,7 +14,6 @@ package org.jikesrvm.mm.mmtk;
 
 import static org.mmtk.utility.Constants.*;
 
-import org.mmtk.plan.CollectorContext;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.utility.Log;
 import org.jikesrvm.VM;
@@ -26,20 +25,33 @@ import org.vmmagic.unboxed.*;
 import org.vmmagic.pragma.*;
 
 /**
- * Scan the boot image for references using the boot image reference map
+ * Scan the boot image for references using the boot image reference map.<p>
+ *
+ * The reference map is a dense bitmap with one bit per address-sized slot
+ * of the boot image data, preceded by a summary with one byte per page
+ * recording whether the page holds any reference at all:
+ * <pre>
+ *   [0, 4)                  number of pages covered, least significant byte first
+ *   [4, 4 + pages)          per-page summary, non-zero if the page holds a reference
+ *   [bitmapOffset(pages), ...)  per-page bitmaps of BITMAP_BYTES_PER_PAGE bytes each
+ * </pre>
+ * Pages without references are skipped without touching their bitmap, and
+ * the remaining pages are handed out to collectors in chunks on demand.
  */
 public class ScanBootImage {
 
   private static final boolean DEBUG = false;
   private static final boolean FILTER = true;
 
-  private static final int LOG_CHUNK_BYTES = 12;
-  private static final int CHUNK_BYTES = 1 << LOG_CHUNK_BYTES;
-  private static final int LONGENCODING_MASK = 0x1;
-  private static final int RUN_MASK = 0x2;
-  private static final int MAX_RUN = (1 << BITS_IN_BYTE) - 1;
-  private static final int LONGENCODING_OFFSET_BYTES = 4;
-  private static final int GUARD_REGION = LONGENCODING_OFFSET_BYTES + 1; /* long offset + run encoding */
+  private static final int HEADER_BYTES = BYTES_IN_INT;
+  private static final int LOG_SLOTS_IN_PAGE = LOG_BYTES_IN_PAGE - LOG_BYTES_IN_ADDRESS;
+  private static final int LOG_BITMAP_BYTES_PER_PAGE = LOG_SLOTS_IN_PAGE - LOG_BITS_IN_BYTE;
+  private static final int BITMAP_BYTES_PER_PAGE = 1 << LOG_BITMAP_BYTES_PER_PAGE;
+  private static final int LOG_PAGES_IN_CHUNK = 4; // each collector claims 16 pages at a time
+  private static final int PAGES_IN_CHUNK = 1 << LOG_PAGES_IN_CHUNK;
+
+  /** The next chunk of the boot image to be claimed by a collector */
+  private static final SynchronizedCounter chunkCounter = new SynchronizedCounter();
 
   /* statistics */
   static int roots = 0;
@@ -52,8 +64,8 @@ public class ScanBootImage {
 
   /**
    * Scan the boot image for object references.  Executed by
-   * all GC threads in parallel, with each doing a portion of the
-   * boot image.
+   * all GC threads in parallel, with each claiming chunks of the
+   * boot image until none remain.
    *
    * @param trace The trace object to which the roots should be added
    */
@@ -65,20 +77,28 @@ public class ScanBootImage {
     Address mapEnd = BootRecord.the_boot_record.bootImageRMapEnd;
     Address imageStart = BootRecord.the_boot_record.bootImageDataStart;
 
-    /* figure out striding */
-    CollectorContext collector = RVMThread.getCurrentThread().getCollectorContext();
-    int stride = collector.parallelWorkerCount() << LOG_CHUNK_BYTES;
-    int start = collector.parallelWorkerOrdinal() << LOG_CHUNK_BYTES;
-    Address cursor = mapStart.plus(start);
+    int pages = decodeInt(mapStart);
+    int chunks = (pages + PAGES_IN_CHUNK - 1) >> LOG_PAGES_IN_CHUNK;
+    Address summary = mapStart.plus(HEADER_BYTES);
+    Address bitmap = mapStart.plus(bitmapOffset(pages));
 
     /* statistics */
     roots = 0;
     refs = 0;
 
-    /* process chunks in parallel till done */
-    while (cursor.LT(mapEnd)) {
-      processChunk(cursor, imageStart, mapStart, mapEnd, trace);
-      cursor = cursor.plus(stride);
+    /* claim chunks till done */
+    while (true) {
+      int chunk = chunkCounter.increment();
+      if (chunk >= chunks) break;
+      int page = chunk << LOG_PAGES_IN_CHUNK;
+      int limit = page + PAGES_IN_CHUNK;
+      if (limit > pages) limit = pages;
+      for (; page < limit; page++) {
+        if (summary.loadByte(Offset.fromIntZeroExtend(page)) != 0) {
+          processPage(imageStart.plus(page << LOG_BYTES_IN_PAGE),
+              bitmap.plus(page << LOG_BITMAP_BYTES_PER_PAGE), mapEnd, trace);
+        }
+      }
     }
 
     /* print some debugging stats */
@@ -91,58 +111,46 @@ public class ScanBootImage {
   }
 
   /**
-   * Process a chunk of encoded reference data, enqueuing each
-   * reference (optionally filtering them on whether they point
-   * outside the boot image).
+   * Reset the chunk counter once every collector has finished scanning
+   * the boot image, ready for the next scan.
+   */
+  @Uninterruptible
+  public static void resetChunkCounter() {
+    chunkCounter.reset();
+  }
+
+  /**
+   * Process one page of the boot image, enqueuing each reference
+   * recorded in its bitmap (optionally filtering them on whether
+   * they point outside the boot image).
    *
-   * @param chunkStart The address of the first byte of encoded data
-   * @param imageStart The address of the start of the boot image
-   * @param mapStart The address of the start of the encoded reference map
-   * @param mapEnd The address of the end of the encoded reference map
+   * @param pageStart The address of the first byte of the page
+   * @param pageMap The address of the page's reference bitmap
+   * @param mapEnd The address of the end of the reference map
    * @param trace The <code>TraceLocal</code> into which roots should
    * be enqueued.
    */
   @Inline
   @Uninterruptible
-  private static void processChunk(Address chunkStart, Address imageStart,
-      Address mapStart, Address mapEnd, TraceLocal trace) {
-    int value;
-    Offset offset = Offset.zero();
-    Address cursor = chunkStart;
-    while ((value = (cursor.loadByte() & 0xff)) != 0) {
-      /* establish the offset */
-      if ((value & LONGENCODING_MASK) != 0) {
-        offset = decodeLongEncoding(cursor);
-        cursor = cursor.plus(LONGENCODING_OFFSET_BYTES);
-      } else {
-        offset = offset.plus(value & 0xfc);
-        cursor = cursor.plus(1);
-      }
-      /* figure out the length of the run, if any */
-      int runlength = 0;
-      if ((value & RUN_MASK) != 0) {
-        runlength = cursor.loadByte() & 0xff;
-        cursor = cursor.plus(1);
-      }
-      /* enqueue the specified slot or slots */
-      if (VM.VerifyAssertions) VM._assert(isAddressAligned(offset));
-      Address slot = imageStart.plus(offset);
-      if (DEBUG) refs++;
-      if (!FILTER || slot.loadAddress().GT(mapEnd)) {
-        if (DEBUG) roots++;
-        trace.processRootEdge(slot, false);
-      }
-      if (runlength != 0) {
-        for (int i = 0; i < runlength; i++) {
-          offset = offset.plus(BYTES_IN_ADDRESS);
-          slot = imageStart.plus(offset);
-          if (VM.VerifyAssertions) VM._assert(isAddressAligned(slot));
-          if (DEBUG) refs++;
-          if (!FILTER || slot.loadAddress().GT(mapEnd)) {
-            if (DEBUG) roots++;
-            if (ScanThread.VALIDATE_REFS) checkReference(slot);
-            trace.processRootEdge(slot, false);
+  private static void processPage(Address pageStart, Address pageMap, Address mapEnd, TraceLocal trace) {
+    for (int word = 0; word < BITMAP_BYTES_PER_PAGE; word += BYTES_IN_ADDRESS) {
+      /* skip empty words of the bitmap without decoding them */
+      if (pageMap.loadWord(Offset.fromIntZeroExtend(word)).isZero()) continue;
+      for (int index = word; index < word + BYTES_IN_ADDRESS; index++) {
+        int bits = pageMap.loadByte(Offset.fromIntZeroExtend(index)) & 0xff;
+        Address slot = pageStart.plus(index << (LOG_BITS_IN_BYTE + LOG_BYTES_IN_ADDRESS));
+        while (bits != 0) {
+          if ((bits & 1) != 0) {
+            if (VM.VerifyAssertions) VM._assert(isAddressAligned(slot));
+            if (DEBUG) refs++;
+            if (!FILTER || slot.loadAddress().GT(mapEnd)) {
+              if (DEBUG) roots++;
+              if (ScanThread.VALIDATE_REFS) checkReference(slot);
+              trace.processRootEdge(slot, false);
+            }
           }
+          bits >>>= 1;
+          slot = slot.plus(BYTES_IN_ADDRESS);
         }
       }
     }
@@ -169,16 +177,6 @@ public class ScanBootImage {
     }
   }
 
-  /**
-   * Return true if the given offset is address-aligned
-   * @param offset the offset to be check
-   * @return true if the offset is address aligned.
-   */
-  @Uninterruptible
-  private static boolean isAddressAligned(Offset offset) {
-    return (offset.toLong() >> LOG_BYTES_IN_ADDRESS) << LOG_BYTES_IN_ADDRESS == offset.toLong();
-  }
-
   /**
    * Return true if the given address is address-aligned
    * @param address the address to be check
@@ -194,24 +192,33 @@ public class ScanBootImage {
    * Build-time encoding (assumed to be single-threaded)
    */
 
-  /** */
-  private static int lastOffset = Integer.MIN_VALUE / 2;  /* bootstrap value */
-  private static int oldIndex = 0;
-  private static int codeIndex = 0;
-
   /* statistics */
-  private static int shortRefs = 0;
-  private static int runRefs = 0;
-  private static int longRefs = 0;
-  private static int startRefs = 0;
+  private static int totalRefs = 0;
+  private static int totalPages = 0;
+  private static int refPages = 0;
+  private static int mapBytes = 0;
+
+  /**
+   * Return the number of bytes required to encode a reference map
+   * covering the given slots.
+   *
+   * @param referenceMapLimit the highest index in the referenceMap that
+   *  contains a reference
+   * @return the size of the encoding in bytes
+   */
+  public static int getRMapBytes(int referenceMapLimit) {
+    int pages = (referenceMapLimit >> LOG_SLOTS_IN_PAGE) + 1;
+    return bitmapOffset(pages) + (pages << LOG_BITMAP_BYTES_PER_PAGE);
+  }
 
   /**
    * Take a bytemap encoding of all references in the boot image, and
-   * produce an encoded byte array.  Return the total length of the
-   * encoding.
+   * produce the per-page summary and reference bitmap.  Return the
+   * total length of the encoding.
    *
-   * @param bootImageRMap space for the compressed reference map. The map
-   *  is initially empty and will be filled during execution of this method.
+   * @param bootImageRMap space for the reference map, of at least
+   *  {@link #getRMapBytes(int)} bytes. The map is initially empty and
+   *  will be filled during execution of this method.
    * @param referenceMap the (uncompressed) reference map for the bootimage
    * @param referenceMapLimit the highest index in the referenceMap that
    *  contains a reference
@@ -219,12 +226,25 @@ public class ScanBootImage {
    */
   public static int encodeRMap(byte[] bootImageRMap, byte[] referenceMap,
       int referenceMapLimit) {
+    int pages = (referenceMapLimit >> LOG_SLOTS_IN_PAGE) + 1;
+    int bitmap = bitmapOffset(pages);
+    for (int i = 0; i < HEADER_BYTES; i++)
+      bootImageRMap[i] = (byte) (pages >>> (i << LOG_BITS_IN_BYTE));
     for (int index = 0; index <= referenceMapLimit; index++) {
       if (referenceMap[index] == 1) {
-        addOffset(bootImageRMap, index << LOG_BYTES_IN_ADDRESS);
+        int page = index >> LOG_SLOTS_IN_PAGE;
+        if (bootImageRMap[HEADER_BYTES + page] == 0) {
+          bootImageRMap[HEADER_BYTES + page] = 1;
+          refPages++;
+        }
+        bootImageRMap[bitmap + (index >> LOG_BITS_IN_BYTE)] |= (byte) (1 << (index & (BITS_IN_BYTE - 1)));
+        totalRefs++;
       }
     }
-    return codeIndex + 1;
+    totalPages = pages;
+    mapBytes = getRMapBytes(referenceMapLimit);
+    if (VM.VerifyAssertions) VM._assert(pages == decodeInt(bootImageRMap));
+    return mapBytes;
   }
 
   /**
@@ -233,76 +253,11 @@ public class ScanBootImage {
    */
   public static void encodingStats() {
     if (DEBUG) {
-      Log.write("refs: "); Log.writeln(startRefs + shortRefs + longRefs + runRefs);
-      Log.write("start: "); Log.writeln(startRefs);
-      Log.write("short: "); Log.writeln(shortRefs);
-      Log.write("long: "); Log.writeln(longRefs);
-      Log.write("run: "); Log.writeln(runRefs);
-      Log.write("size: "); Log.writeln(codeIndex);
-    }
-  }
-
-  /**
-   * Encode a given offset (distance from the start of the boot image)
-   * into the code array.
-   *
-   * @param code A byte array into which the value should be encoded
-   * @param offset The offset value to be encoded
-   */
-  private static void addOffset(byte[] code, int offset) {
-    if ((codeIndex ^ (codeIndex + GUARD_REGION)) >= CHUNK_BYTES) {
-      codeIndex = (codeIndex + GUARD_REGION) & ~(CHUNK_BYTES - 1);
-      oldIndex = codeIndex;
-      codeIndex = encodeLongEncoding(code, codeIndex, offset);
-      if (DEBUG) {
-        startRefs++;
-        Log.write("[chunk: "); Log.write(codeIndex);
-        Log.write(" offset: "); Log.write(offset);
-        Log.write(" last offset: "); Log.write(lastOffset);
-        Log.writeln("]");
-      }
-    } else {
-      int delta = offset - lastOffset;
-      if (VM.VerifyAssertions) VM._assert((delta & 0x3) == 0);
-      if (VM.VerifyAssertions) VM._assert(delta > 0);
-
-      int currentrun = (code[codeIndex]) & 0xff;
-      if ((delta == BYTES_IN_ADDRESS) &&
-          (currentrun < MAX_RUN)) {
-        currentrun++;
-        code[codeIndex] = (byte) (currentrun & 0xff);
-        code[oldIndex] |= RUN_MASK;
-        if (DEBUG) runRefs++;
-      } else {
-        if (currentrun != 0) codeIndex++;
-        oldIndex = codeIndex;
-        if (delta < 1 << BITS_IN_BYTE) {
-          /* common case: single byte encoding */
-          code[codeIndex++] = (byte) (delta & 0xff);
-          if (DEBUG) shortRefs++;
-        } else {
-          /* else four byte encoding */
-          codeIndex = encodeLongEncoding(code, codeIndex, offset);
-          if (DEBUG) longRefs++;
-        }
-      }
+      Log.write("refs: "); Log.writeln(totalRefs);
+      Log.write("pages: "); Log.writeln(totalPages);
+      Log.write("pages with refs: "); Log.writeln(refPages);
+      Log.write("size: "); Log.writeln(mapBytes);
     }
-    if (offset != getOffset(code, oldIndex, lastOffset)) {
-      Log.write("offset: "); Log.writeln(offset);
-      Log.write("last offset: "); Log.writeln(lastOffset);
-      Log.write("offset: "); Log.writeln(getOffset(code, oldIndex, lastOffset));
-      Log.write("index: "); Log.writeln(oldIndex);
-      Log.write("index: "); Log.writeln(oldIndex & (CHUNK_BYTES - 1));
-      Log.writeln();
-      Log.write("1: "); Log.writeln(code[oldIndex]);
-      Log.write("2: "); Log.writeln(code[oldIndex + 1]);
-      Log.write("3: "); Log.writeln(code[oldIndex + 2]);
-      Log.write("4: "); Log.writeln(code[oldIndex + 3]);
-      Log.write("5: "); Log.writeln(code[oldIndex + 4]);
-      if (VM.VerifyAssertions)
-        VM._assert(offset == getOffset(code, oldIndex, lastOffset));
-    }
-    lastOffset = offset;
   }
 
   /****************************************************************************
@@ -311,86 +266,40 @@ public class ScanBootImage {
    */
 
   /**
-   * Decode an encoded offset given the coded byte array, and index
-   * into it, and the current (last) offset.
-   *
-   * @param code A byte array containing the encoded value
-   * @param index The offset into the code array from which to
-   * commence decoding
-   * @param lastOffset The current (last) encoded offset
-   * @return The next offset, which is either explicitly encoded in
-   * the byte array or inferred from an encoded delta and the last
-   * offset.
- */
-  private static int getOffset(byte[] code, int index, int lastOffset) {
-    if ((code[index] & RUN_MASK) == RUN_MASK) {
-      return lastOffset + BYTES_IN_WORD;
-    } else {
-      if (((index & (CHUNK_BYTES - 1)) == 0) ||
-          ((code[index] & LONGENCODING_MASK) == LONGENCODING_MASK)) {
-        return decodeLongEncoding(code, index);
-      } else {
-        return lastOffset + ((code[index]) & 0xff);
-      }
-    }
-  }
-
-  /**
-   * Decode a 4-byte encoding, taking a pointer to the first byte of
-   * the encoding, and returning the encoded value as an <code>Offset</code>
-   *
-   * @param cursor A pointer to the first byte of encoded data
-   * @return The encoded value as an <code>Offset</code>
+   * @param pages The number of pages covered by the map
+   * @return The offset of the first page bitmap from the start of the map
    */
   @Inline
   @Uninterruptible
-  private static Offset decodeLongEncoding(Address cursor) {
-    int value;
-    value  = (cursor.loadByte())                                              & 0x000000fc;
-    value |= (cursor.loadByte(Offset.fromIntSignExtend(1)) << BITS_IN_BYTE)     & 0x0000ff00;
-    value |= (cursor.loadByte(Offset.fromIntSignExtend(2)) << (2 * BITS_IN_BYTE)) & 0x00ff0000;
-    value |= (cursor.loadByte(Offset.fromIntSignExtend(3)) << (3 * BITS_IN_BYTE)) & 0xff000000;
-    return Offset.fromIntSignExtend(value);
+  private static int bitmapOffset(int pages) {
+    return (HEADER_BYTES + pages + BYTES_IN_ADDRESS - 1) & ~(BYTES_IN_ADDRESS - 1);
   }
 
   /**
-   * Decode a 4-byte encoding, taking a byte array and an index into
-   * it and returning the encoded value as an integer
+   * Decode the page count from the header of the map.
    *
-   * @param code A byte array containing the encoded value
-   * @param index The offset into the code array from which to
-   * commence decoding
-   * @return The encoded value as an integer
+   * @param cursor A pointer to the first byte of the map
+   * @return The number of pages covered by the map
    */
   @Inline
   @Uninterruptible
-  private static int decodeLongEncoding(byte[] code, int index) {
-    int value;
-    value  = (code[index])                     & 0x000000fc;
-    value |= (code[index + 1] << BITS_IN_BYTE)     & 0x0000ff00;
-    value |= (code[index + 2] << (2 * BITS_IN_BYTE)) & 0x00ff0000;
-    value |= (code[index + 3] << (3 * BITS_IN_BYTE)) & 0xff000000;
+  private static int decodeInt(Address cursor) {
+    int value = 0;
+    for (int i = 0; i < HEADER_BYTES; i++)
+      value |= (cursor.loadByte(Offset.fromIntSignExtend(i)) & 0xff) << (i << LOG_BITS_IN_BYTE);
     return value;
   }
 
   /**
-   * Encode a 4-byte encoding, taking a byte array, the current index into
-   * it, and the value to be encoded.
+   * Decode the page count from the header of the map, taking a byte array
    *
-   * @param code A byte array to contain the encoded value
-   * @param index The current offset into the code array
-   * @param value The value to be encoded
-   * @return The updated index into the code array
+   * @param code A byte array containing the map
+   * @return The number of pages covered by the map
    */
-  private static int encodeLongEncoding(byte[] code, int index, int value) {
-    code[index++] = (byte) ((value & 0xff) | LONGENCODING_MASK);
-    value = value >>> BITS_IN_BYTE;
-    code[index++] = (byte) (value & 0xff);
-    value = value >>> BITS_IN_BYTE;
-    code[index++] = (byte) (value & 0xff);
-    value = value >>> BITS_IN_BYTE;
-    code[index++] = (byte) (value & 0xff);
-    return index;
+  private static int decodeInt(byte[] code) {
+    int value = 0;
+    for (int i = 0; i < HEADER_BYTES; i++)
+      value |= (code[i] & 0xff) << (i << LOG_BITS_IN_BYTE);
+    return value;
   }
-
 }
@@ -24,6 +24,7 @@ import org.jikesrvm.mm.mminterface.DebugUtil;
 import org.jikesrvm.mm.mminterface.GCMapIterator;
 import org.jikesrvm.mm.mminterface.GCMapIteratorGroup;
 import org.jikesrvm.mm.mminterface.MemoryManager;
+import org.jikesrvm.mm.mminterface.MemoryManagerConstants;
 import org.jikesrvm.mm.mminterface.Selected;
 import org.jikesrvm.runtime.Magic;
 import org.jikesrvm.runtime.RuntimeEntrypoints;
@@ -32,11 +33,14 @@ import org.mmtk.plan.TraceLocal;
 import org.mmtk.utility.Log;
 import org.mmtk.utility.options.Options;
 import org.vmmagic.pragma.Inline;
+import org.vmmagic.pragma.Interruptible;
 import org.vmmagic.pragma.Uninterruptible;
 import org.vmmagic.pragma.Untraced;
 import org.vmmagic.unboxed.Address;
 import org.vmmagic.unboxed.ObjectReference;
 import org.vmmagic.unboxed.Offset;
+import org.vmmagic.unboxed.Word;
+import org.vmmagic.unboxed.WordArray;
 
 /**
  * Class that supports scanning thread stacks for references during
@@ -77,7 +81,17 @@ import org.vmmagic.unboxed.Offset;
  * things must occur: first the pointed to object must be kept alive,
  * and second, if the pointed to object is moved by a copying
  * collector, the pointer into the object must be adjusted so it now
- * points into the newly copied object
+ * points into the newly copied object<p>
+ *
+ * <i>Stack scan caching:</i> When return barriers are in use, every
+ * frame at or below the caller of the hijacked frame is known not to
+ * have been returned to since the previous scan of the stack.  Each
+ * thread keeps a cache of the reference slots reported for its frames
+ * at the previous scan, so a full scan only decodes the GC maps of the
+ * frames above the barrier and replays the cached slots for the rest.
+ * The cached slots are only trusted if they all lie within the
+ * unchanged frames; slots in registers saved by younger frames may have
+ * moved, in which case the whole stack is decoded again.
  */
 @Uninterruptible public final class ScanThread {
 
@@ -97,6 +111,22 @@ import org.vmmagic.unboxed.Offset;
   private static final int DEFAULT_VERBOSITY = 0 /*0*/;
   private static final int FAILURE_VERBOSITY = 4;
 
+  /** The number of words in each thread's stack scan cache */
+  public static final int CACHE_WORDS = 1024;
+
+  /*
+   * Layout of a stack scan cache: the index one past the last record,
+   * followed by one record per scanned frame, from the top of the stack
+   * down.  Each record holds the frame pointer, the compiled method id,
+   * and the number of reference slots, followed by the slots themselves.
+   */
+  private static final int CACHE_END = 0;
+  private static final int CACHE_HEADER = 1;
+  private static final int RECORD_FP = 0;
+  private static final int RECORD_CMID = 1;
+  private static final int RECORD_SLOTS = 2;
+  private static final int RECORD_HEADER = 3;
+
   /***********************************************************************
    *
    * Instance variables
@@ -120,6 +150,18 @@ import org.vmmagic.unboxed.Offset;
   private boolean failed;
   private boolean reinstallReturnBarrier;
 
+  /** Records for the frames decoded by the current scan, top down */
+  private final WordArray scratch = MemoryManager.newNonMovingWordArray(CACHE_WORDS - CACHE_HEADER);
+  /** The cache of the thread being scanned, or null if it is not being maintained */
+  @Untraced
+  private WordArray cache;
+  /** The first cached record for an unchanged frame, or -1 if there is none */
+  private int unchanged;
+  /** The frame at and below which the stack is unchanged since the last scan */
+  private Address unchangedFp;
+  private int scratchCursor, recordStart;
+  private boolean overflowed;
+
   /***********************************************************************
    *
    * Thread scanning
@@ -203,13 +245,75 @@ import org.vmmagic.unboxed.Offset;
     /* Expicitly establish the stopping point for this scan (not necessarily the bottom of stack) */
     Address sentinalFp = newRootsSufficent && Options.useShortStackScans.getValue() ? thread.getNextUnencounteredFrame() : ArchitectureSpecific.StackframeLayoutConstants.STACKFRAME_SENTINEL_FP;
 
+    /* find the cached records for frames that have not returned since the last scan */
+    WordArray cache = processCodeLocations || !topFrame.isZero() ? null : thread.getStackScanCache();
+    Address unchangedFp = thread.getHijackedReturnCallerFp();
+    int unchanged = cache == null ? -1 : findUnchangedFrames(thread, cache);
+
     /* stack trampoline will be freshly reinstalled at end of thread scan */
     if (Options.useReturnBarrier.getValue() || Options.useShortStackScans.getValue()) {
       thread.deInstallStackTrampoline();
     }
 
     /* scan the stack */
+    scanner.cache = cache;
+    scanner.unchanged = unchanged;
+    scanner.unchangedFp = unchangedFp;
     scanner.startScan(trace, processCodeLocations, thread, gprs, ip, fp, initialIPLoc, topFrame, sentinalFp);
+    scanner.cache = null;
+  }
+
+  /**
+   * Allocate a cache of the reference slots found in a thread's frames,
+   * if stack scan caching is possible.
+   *
+   * @return a new stack scan cache, or {@code null} if return barriers
+   * are not in use
+   */
+  @Interruptible
+  public static WordArray newStackScanCache() {
+    if (MemoryManagerConstants.MOVES_CODE ||
+        !(Options.useReturnBarrier.getValue() || Options.useShortStackScans.getValue())) {
+      return null;
+    }
+    return MemoryManager.newNonMovingWordArray(CACHE_WORDS);
+  }
+
+  /**
+   * Find the first cached record for a frame that has not been returned
+   * to since the last scan of the thread, that is, the caller of the
+   * frame hijacked by the return barrier or any frame below it.  The
+   * cache is only usable if every slot from that record on lies within
+   * those frames.  This must be called before the return barrier is
+   * de-installed.
+   *
+   * @param thread The thread whose stack is about to be scanned
+   * @param cache The thread's stack scan cache
+   * @return the index of the first record for an unchanged frame, or -1
+   * if the cache cannot be used
+   */
+  private static int findUnchangedFrames(RVMThread thread, WordArray cache) {
+    int end = cache.get(CACHE_END).toInt();
+    Address calleeFp = thread.getHijackedReturnCalleeFp();
+    Address callerFp = thread.getHijackedReturnCallerFp();
+    if (end < CACHE_HEADER || calleeFp.isZero() ||
+        callerFp.EQ(ArchitectureSpecific.StackframeLayoutConstants.STACKFRAME_SENTINEL_FP)) {
+      return -1;
+    }
+    int record = CACHE_HEADER;
+    while (record < end && cache.get(record + RECORD_FP).toAddress().LT(callerFp)) {
+      record += RECORD_HEADER + cache.get(record + RECORD_SLOTS).toInt();
+    }
+    Address stackTop = Magic.objectAsAddress(thread.getStack()).plus(thread.getStack().length);
+    for (int r = record; r < end; ) {
+      int slots = cache.get(r + RECORD_SLOTS).toInt();
+      for (int i = r + RECORD_HEADER; i < r + RECORD_HEADER + slots; i++) {
+        Address slot = cache.get(i).toAddress();
+        if (slot.LE(calleeFp) || slot.GE(stackTop)) return -1;
+      }
+      r += RECORD_HEADER + slots;
+    }
+    return record;
   }
 
   /**
@@ -292,6 +396,11 @@ import org.vmmagic.unboxed.Offset;
 
     if (verbosity >= 2) dumpTopFrameInfo(verbosity);
 
+    /* only a regular scan maintains the stack scan cache */
+    WordArray cache = verbosity == DEFAULT_VERBOSITY ? this.cache : null;
+    scratchCursor = 0;
+    overflowed = false;
+
     /* scan each frame if a non-empty stack */
     if (fp.NE(ArchitectureSpecific.StackframeLayoutConstants.STACKFRAME_SENTINEL_FP)) {
       prevFp = Address.zero();
@@ -303,12 +412,30 @@ import org.vmmagic.unboxed.Offset;
         if (false) {
           VM.sysWriteln("Thread ",RVMThread.getCurrentThreadSlot()," at fp = ",fp);
         }
-        prevFp = scanFrame(verbosity);
+        if (unchanged >= 0 && fp.GE(unchangedFp)) {
+          /* the rest of the stack is unchanged since the last scan */
+          replayCachedFrames(this.cache, unchanged);
+          break;
+        }
+        prevFp = scanFrame(verbosity, cache != null);
         ip = Magic.getReturnAddress(fp, thread);
         fp = Magic.getCallerFramePointer(fp);
       }
     }
 
+    if (cache != null) {
+      if (unchanged >= 0) {
+        /* the newly decoded frames sit above the unchanged ones */
+        updateCache(cache, unchanged);
+      } else if (sentinelFp.EQ(ArchitectureSpecific.StackframeLayoutConstants.STACKFRAME_SENTINEL_FP)) {
+        /* the whole stack was decoded */
+        updateCache(cache, cache.get(CACHE_END).toInt());
+      } else {
+        /* a partial scan cannot describe the frames it did not reach */
+        cache.set(CACHE_END, Word.zero());
+      }
+    }
+
     /* If a thread started via createVM or attachVM, base may need scaning */
     // TODO implement this if necessary. It was previously only implemented for
     // AIX which is no longer supported.
@@ -373,6 +500,94 @@ import org.vmmagic.unboxed.Offset;
     trace.processInteriorEdge(code, ipLoc, true);
   }
 
+  /***********************************************************************
+   *
+   * Stack scan cache
+   */
+
+  /**
+   * Report the reference slots of the cached records from the given
+   * record to the end of the cache, without decoding the GC maps of the
+   * frames they describe.
+   *
+   * @param cache The stack scan cache of the thread being scanned
+   * @param record The first record to be replayed
+   */
+  private void replayCachedFrames(WordArray cache, int record) {
+    int end = cache.get(CACHE_END).toInt();
+    while (record < end) {
+      /* prevent code from being collected, as setUpFrame would */
+      CompiledMethods.getCompiledMethod(cache.get(record + RECORD_CMID).toInt()).setActiveOnStack();
+      int slots = cache.get(record + RECORD_SLOTS).toInt();
+      for (int i = record + RECORD_HEADER; i < record + RECORD_HEADER + slots; i++) {
+        reportDelayedRootEdge(trace, cache.get(i).toAddress());
+      }
+      record += RECORD_HEADER + slots;
+    }
+  }
+
+  /**
+   * Start recording the slots of the current frame.
+   */
+  private void beginRecord() {
+    if (scratchCursor + RECORD_HEADER > scratch.length()) {
+      overflowed = true;
+      return;
+    }
+    recordStart = scratchCursor;
+    scratch.set(recordStart + RECORD_FP, fp.toWord());
+    scratch.set(recordStart + RECORD_CMID, Word.fromIntZeroExtend(compiledMethod.getId()));
+    scratchCursor += RECORD_HEADER;
+  }
+
+  /**
+   * Record a reference slot of the current frame.
+   *
+   * @param slot The address of the slot
+   */
+  @Inline
+  private void recordSlot(Address slot) {
+    if (overflowed || scratchCursor == scratch.length()) {
+      overflowed = true;
+      return;
+    }
+    scratch.set(scratchCursor++, slot.toWord());
+  }
+
+  /**
+   * Finish recording the slots of the current frame.
+   */
+  private void endRecord() {
+    if (!overflowed) {
+      scratch.set(recordStart + RECORD_SLOTS, Word.fromIntZeroExtend(scratchCursor - recordStart - RECORD_HEADER));
+    }
+  }
+
+  /**
+   * Replace the records of a thread's cache above the given record with
+   * those decoded by this scan.
+   *
+   * @param cache The stack scan cache of the thread being scanned
+   * @param keep The first record to be kept
+   */
+  private void updateCache(WordArray cache, int keep) {
+    int end = cache.get(CACHE_END).toInt();
+    int kept = keep < CACHE_HEADER ? 0 : end - keep;
+    int to = CACHE_HEADER + scratchCursor;
+    if (overflowed || to + kept > cache.length()) {
+      cache.set(CACHE_END, Word.zero());
+      return;
+    }
+    /* slide the kept records to follow the new ones */
+    if (to < keep) {
+      for (int i = 0; i < kept; i++) cache.set(to + i, cache.get(keep + i));
+    } else if (to > keep) {
+      for (int i = kept - 1; i >= 0; i--) cache.set(to + i, cache.get(keep + i));
+    }
+    for (int i = 0; i < scratchCursor; i++) cache.set(CACHE_HEADER + i, scratch.get(i));
+    cache.set(CACHE_END, Word.fromIntZeroExtend(to + kept));
+  }
+
   /***********************************************************************
    *
    * Frame scanning methods
@@ -388,14 +603,17 @@ import org.vmmagic.unboxed.Offset;
    *
    * @param verbosity The level of verbosity to be used when
    * performing the scan.
+   * @param record Should the frame's slots be recorded in the stack scan cache?
    * @return the frame pointer of the frame that was just scanned
    */
-  private Address scanFrame(int verbosity) {
+  private Address scanFrame(int verbosity, boolean record) {
     /* set up iterators etc, and skip the frame if appropriate */
     if (!setUpFrame(verbosity)) return fp;
 
     /* scan the frame for object pointers */
-    scanFrameForObjects(verbosity);
+    if (record) beginRecord();
+    scanFrameForObjects(verbosity, record);
+    if (record) endRecord();
 
     /* scan the frame for pointers to code */
     if (processCodeLocations && compiledMethodType != CompiledMethod.TRAP)
@@ -477,13 +695,15 @@ import org.vmmagic.unboxed.Offset;
    *
    * @param verbosity The level of verbosity to be used when
    * performing the scan.
+   * @param record Should the slots be recorded in the stack scan cache?
    */
-  private void scanFrameForObjects(int verbosity) {
+  private void scanFrameForObjects(int verbosity, boolean record) {
     for (Address refaddr = iterator.getNextReferenceAddress();
          !refaddr.isZero();
          refaddr = iterator.getNextReferenceAddress()) {
       if (VALIDATE_REFS) checkReference(refaddr, verbosity);
       if (verbosity >= 4) dumpRef(refaddr, verbosity);
+      if (record) recordSlot(refaddr);
       reportDelayedRootEdge(trace, refaddr);
     }
   }
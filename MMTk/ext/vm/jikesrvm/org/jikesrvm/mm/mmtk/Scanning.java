@@ -13,11 +13,13 @@
 package org.jikesrvm.mm.mmtk;
 
 import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_ADDRESS;
+import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_CHAR;
 
 import org.mmtk.plan.CollectorContext;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.TransitiveClosure;
 import org.jikesrvm.VM;
+import org.jikesrvm.classloader.RVMType;
 import org.jikesrvm.compilers.common.CompiledMethods;
 import org.jikesrvm.jni.JNIEnvironment;
 import org.jikesrvm.jni.JNIGenericHelpers;
@@ -27,6 +29,7 @@ import org.jikesrvm.mm.mminterface.HandInlinedScanning;
 import org.jikesrvm.mm.mminterface.Selected;
 import org.jikesrvm.mm.mminterface.MemoryManagerConstants;
 import org.jikesrvm.mm.mminterface.SpecializedScanMethod;
+import org.jikesrvm.runtime.Entrypoints;
 import org.jikesrvm.runtime.Magic;
 import org.jikesrvm.scheduler.RVMThread;
 import org.vmmagic.unboxed.*;
@@ -77,6 +80,7 @@ public final class Scanning extends org.mmtk.vm.Scanning {
   @Override
   public void resetThreadCounter() {
     threadCounter.reset();
+    ScanBootImage.resetChunkCounter();
   }
 
   @Override
@@ -211,4 +215,44 @@ public final class Scanning extends org.mmtk.vm.Scanning {
   public boolean supportsReturnBarrier() {
     return VM.BuildForIA32 && VM.BuildFor32Addr;
   }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * Strings share their backing character arrays.  A string only reads
+   * its own range of the array, so any array with equal contents will do.
+   */
+  @Override
+  public Address getDeduplicationSlot(ObjectReference object) {
+    if (Magic.getObjectType(object.toObject()) != RVMType.JavaLangStringType) {
+      return Address.zero();
+    }
+    return object.toAddress().plus(Entrypoints.stringValueField.getOffset());
+  }
+
+  @Override
+  public int contentHash(ObjectReference contents) {
+    Address chars = contents.toAddress();
+    int length = Magic.getArrayLength(contents.toObject());
+    int hash = length;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + chars.loadChar(Offset.fromIntZeroExtend(i << LOG_BYTES_IN_CHAR));
+    }
+    return hash;
+  }
+
+  @Override
+  public boolean contentEquals(ObjectReference a, ObjectReference b) {
+    int length = Magic.getArrayLength(a.toObject());
+    if (Magic.getArrayLength(b.toObject()) != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      Offset offset = Offset.fromIntZeroExtend(i << LOG_BYTES_IN_CHAR);
+      if (a.toAddress().loadChar(offset) != b.toAddress().loadChar(offset)) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
@@ -76,6 +76,14 @@ public class PlanSpecificConfig {
         new PlanSpecific("org.mmtk.plan.generational.marksweep.GenMS")
         .addExpectedSpaces("nursery", "ms"),
         "GenMS");
+    register(
+        new PlanSpecific("org.mmtk.plan.generational.immix.useSitePretenuring.UseSitePretenuring")
+        .addExpectedSpaces("nursery", "immix"),
+        "UseSitePretenuring", "SitePretenuring");
+    register(
+        new PlanSpecific("org.mmtk.plan.generational.marksweep.useSurvivorSpaces.UseSurvivorSpaces")
+        .addExpectedSpaces("nursery", "survivor0", "survivor1", "ms"),
+        "UseSurvivorSpaces", "SurvivorSpaces");
     register(
         new PlanSpecific("org.mmtk.plan.immix.Immix")
         .addExpectedSpaces("immix"),
@@ -112,6 +120,10 @@ public class PlanSpecificConfig {
         .addExpectedSpaces("nursery", "rclos", "rc")
         .heapFactor(9984 / BASE_HEAP),
         "GenRC");
+    register(
+        new PlanSpecific("org.mmtk.plan.refcount.immix.RCImmix")
+        .addExpectedSpaces("rcimmix", "rclos", "rc"),
+        "RCImmix");
     register(
         new PlanSpecific("org.mmtk.plan.semispace.SS")
         .heapFactor(18816 / BASE_HEAP)
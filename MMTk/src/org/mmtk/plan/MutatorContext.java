@@ -18,6 +18,7 @@ import org.mmtk.policy.ImmortalLocal;
 import org.mmtk.policy.LargeObjectLocal;
 import org.mmtk.utility.alloc.Allocator;
 import org.mmtk.utility.alloc.BumpPointer;
+import org.mmtk.utility.heap.PagePool;
 import org.mmtk.utility.Log;
 
 import org.mmtk.vm.VM;
@@ -125,6 +126,9 @@ public abstract class MutatorContext {
   /** Per-mutator allocator into the non moving space */
   protected final MarkSweepLocal nonmove = new MarkSweepLocal(Plan.nonMovingSpace);
 
+  /** Runs of pages held for this mutator by spaces that allow pooling */
+  private final PagePool pagePool = new PagePool();
+
 
   /****************************************************************************
    *
@@ -226,6 +230,30 @@ public abstract class MutatorContext {
     }
   }
 
+  /**
+   * Called each time this mutator acquires fresh pages for allocation
+   * without a collection being triggered.  This samples the rate at
+   * which the mutator consumes the heap.<p>
+   *
+   * <b>By default do nothing, override if appropriate.</b>
+   *
+   * @param space The space in which pages were acquired
+   * @param pages The number of pages acquired
+   */
+  public void pagesAcquired(Space space, int pages) {
+    // Either: allocation is paced and this is overridden, or
+    // allocation is not paced and this is a no-op
+  }
+
+  /**
+   * @return The runs of pages held for this mutator by spaces that
+   * allow pooling
+   */
+  @Inline
+  public final PagePool getPagePool() {
+    return pagePool;
+  }
+
   /****************************************************************************
    *
    * Space - Allocator mapping.
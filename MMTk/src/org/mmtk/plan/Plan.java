@@ -171,13 +171,18 @@ public abstract class Plan {
     Options.nurseryZeroing = new NurseryZeroing();
     Options.pretenureThresholdFraction = new PretenureThresholdFraction();
     Options.variableSizeHeap = new VariableSizeHeap();
+    Options.pauseTimeGoal = new PauseTimeGoal();
+    Options.gcTimeGoal = new GCTimeGoal();
+    Options.uncommitIdleCollections = new UncommitIdleCollections();
     Options.eagerMmapSpaces = new EagerMmapSpaces();
+    Options.hugePages = new HugePages();
     Options.sanityCheck = new SanityCheck();
     Options.debugAddress = new DebugAddress();
     Options.perfEvents = new PerfEvents();
     Options.useReturnBarrier = new UseReturnBarrier();
     Options.useShortStackScans = new UseShortStackScans();
     Options.threads = new Threads();
+    Options.prefetchDistance = new PrefetchDistance();
     Options.cycleTriggerThreshold = new CycleTriggerThreshold();
     Map.finalizeStaticSpaceMap();
     registerSpecializedMethods();
@@ -334,7 +339,7 @@ public abstract class Plan {
 
     // Create the concurrent worker threads.
     if (VM.activePlan.constraints().needsConcurrentWorkers()) {
-      concurrentWorkers.initGroup(numThreads, defaultCollectorContext);
+      concurrentWorkers.initGroup(concurrentWorkerCount(numThreads), defaultCollectorContext);
     }
 
     // Create our control thread.
@@ -344,6 +349,15 @@ public abstract class Plan {
     initialized = true;
   }
 
+  /**
+   * @param numThreads the number of parallel collector threads
+   * @return the number of concurrent worker threads to spawn
+   */
+  @Interruptible
+  protected int concurrentWorkerCount(int numThreads) {
+    return numThreads;
+  }
+
   @Interruptible
   public void fullyBooted() {
     if (Options.harnessAll.getValue()) harnessBegin();
@@ -232,6 +232,15 @@ import org.vmmagic.pragma.*;
     return false;
   }
 
+  /**
+   * @return {@code true} if reference stores into an object allocated by
+   * the default allocator need no write barrier until the mutator next
+   * reaches a GC point.
+   */
+  public boolean objectReferenceWriteBarrierElidableOnNewObjects() {
+    return false;
+  }
+
   /** @return {@code true} if this Plan requires linear scanning. */
   public boolean needsLinearScan() {
     return org.mmtk.utility.Constants.SUPPORT_CARD_SCANNING;
@@ -299,6 +308,11 @@ import org.vmmagic.pragma.*;
     return false;
   }
 
+  /** @return {@code true} if this Plan counts the live objects on each immix line */
+  public boolean needsLineLiveCounts() {
+    return false;
+  }
+
   /** @return the maximum number of GC threads supported by this plan.
    * The return value must be a positive number. */
   public int maxNumGCThreads() {
@@ -47,6 +47,7 @@ public abstract class Simple extends Plan {
   /* Phases */
   public static final short SET_COLLECTION_KIND = Phase.createSimple("set-collection-kind", null);
   public static final short INITIATE            = Phase.createSimple("initiate", null);
+  public static final short FINISH_SWEEP        = Phase.createSimple("finish-sweep");
   public static final short PREPARE             = Phase.createSimple("prepare");
   public static final short PREPARE_STACKS      = Phase.createSimple("prepare-stacks", null);
   public static final short STACK_ROOTS         = Phase.createSimple("stacks");
@@ -111,6 +112,7 @@ public abstract class Simple extends Plan {
    */
   protected static final short rootClosurePhase = Phase.createComplex("initial-closure", null,
       Phase.scheduleMutator    (PREPARE),
+      Phase.scheduleCollector  (FINISH_SWEEP),
       Phase.scheduleGlobal     (PREPARE),
       Phase.scheduleCollector  (PREPARE),
       Phase.scheduleComplex    (prepareStacks),
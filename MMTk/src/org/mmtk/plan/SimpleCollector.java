@@ -12,6 +12,7 @@
  */
 package org.mmtk.plan;
 
+import org.mmtk.policy.Space;
 import org.mmtk.utility.Log;
 import org.mmtk.utility.options.Options;
 import org.mmtk.utility.sanitychecker.SanityCheckerLocal;
@@ -57,6 +58,12 @@ public abstract class SimpleCollector extends ParallelCollector {
       return;
     }
 
+    if (phaseId == Simple.FINISH_SWEEP) {
+      /* sweep what was left unswept by the last collection before its marks are reset */
+      Space.finishDeferredSweeps(parallelWorkerOrdinal(), parallelWorkerCount());
+      return;
+    }
+
     if (phaseId == Simple.STACK_ROOTS) {
       VM.scanning.computeThreadRoots(getCurrentTrace());
       return;
@@ -72,51 +79,49 @@ public abstract class SimpleCollector extends ParallelCollector {
     }
 
     if (phaseId == Simple.SOFT_REFS) {
-      if (primary) {
-        if (!Options.noReferenceTypes.getValue()) {
-          if (!Plan.isEmergencyCollection()) {
-            VM.softReferences.scan(getCurrentTrace(),global().isCurrentGCNursery(),true);
-          }
+      if (!Options.noReferenceTypes.getValue()) {
+        if (!Plan.isEmergencyCollection()) {
+          VM.softReferences.scan(getCurrentTrace(),global().isCurrentGCNursery(),true);
         }
       }
       return;
     }
 
     if (phaseId == Simple.WEAK_REFS) {
-      if (primary) {
-        if (Options.noReferenceTypes.getValue()) {
+      if (Options.noReferenceTypes.getValue()) {
+        if (primary) {
           VM.softReferences.clear();
           VM.weakReferences.clear();
-        } else {
-            VM.softReferences.scan(getCurrentTrace(),global().isCurrentGCNursery(), false);
-            VM.weakReferences.scan(getCurrentTrace(),global().isCurrentGCNursery(), false);
         }
+      } else {
+        VM.softReferences.scan(getCurrentTrace(),global().isCurrentGCNursery(), false);
+        VM.weakReferences.scan(getCurrentTrace(),global().isCurrentGCNursery(), false);
       }
       return;
     }
 
     if (phaseId == Simple.FINALIZABLE) {
-      if (primary) {
-        if (Options.noFinalizer.getValue())
+      if (Options.noFinalizer.getValue()) {
+        if (primary)
           VM.finalizableProcessor.clear();
-        else
-          VM.finalizableProcessor.scan(getCurrentTrace(),global().isCurrentGCNursery());
+      } else {
+        VM.finalizableProcessor.scan(getCurrentTrace(),global().isCurrentGCNursery());
       }
       return;
     }
 
     if (phaseId == Simple.PHANTOM_REFS) {
-      if (primary) {
-        if (Options.noReferenceTypes.getValue())
+      if (Options.noReferenceTypes.getValue()) {
+        if (primary)
           VM.phantomReferences.clear();
-        else
-          VM.phantomReferences.scan(getCurrentTrace(),global().isCurrentGCNursery(),false);
+      } else {
+        VM.phantomReferences.scan(getCurrentTrace(),global().isCurrentGCNursery(),false);
       }
       return;
     }
 
     if (phaseId == Simple.FORWARD_REFS) {
-      if (primary && !Options.noReferenceTypes.getValue() &&
+      if (!Options.noReferenceTypes.getValue() &&
           VM.activePlan.constraints().needsForwardAfterLiveness()) {
         VM.softReferences.forward(getCurrentTrace(),global().isCurrentGCNursery());
         VM.weakReferences.forward(getCurrentTrace(),global().isCurrentGCNursery());
@@ -126,7 +131,7 @@ public abstract class SimpleCollector extends ParallelCollector {
     }
 
     if (phaseId == Simple.FORWARD_FINALIZABLE) {
-      if (primary && !Options.noFinalizer.getValue() &&
+      if (!Options.noFinalizer.getValue() &&
           VM.activePlan.constraints().needsForwardAfterLiveness()) {
         VM.finalizableProcessor.forward(getCurrentTrace(),global().isCurrentGCNursery());
       }
@@ -139,7 +144,9 @@ public abstract class SimpleCollector extends ParallelCollector {
     }
 
     if (phaseId == Simple.RELEASE) {
-      // Nothing to do
+      /* help sweep the large object spaces; the global release sweeps any remainder */
+      Plan.loSpace.sweep(parallelWorkerOrdinal(), parallelWorkerCount());
+      if (Plan.USE_CODE_SPACE) Plan.largeCodeSpace.sweep(parallelWorkerOrdinal(), parallelWorkerCount());
       return;
     }
 
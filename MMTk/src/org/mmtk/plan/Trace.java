@@ -13,6 +13,7 @@
 package org.mmtk.plan;
 
 import org.mmtk.utility.deque.SharedDeque;
+import org.mmtk.utility.deque.WorkStealingDeque;
 import org.mmtk.policy.RawPageSpace;
 
 import org.vmmagic.pragma.*;
@@ -25,7 +26,8 @@ import org.vmmagic.pragma.*;
 @Uninterruptible
 public class Trace {
 
-  // Global pools for load-balancing deques
+  // Global pools for load-balancing deques.  Gray objects are balanced
+  // across collectors by work stealing.
   final SharedDeque valuePool;
   final SharedDeque rootLocationPool;
 
@@ -34,7 +36,7 @@ public class Trace {
    *  instance
    */
   public Trace(RawPageSpace metaDataSpace) {
-    valuePool = new SharedDeque("valuePool",metaDataSpace, 1);
+    valuePool = new WorkStealingDeque("valuePool", metaDataSpace, 1);
     rootLocationPool = new SharedDeque("rootLocations", metaDataSpace, 1);
   }
 
@@ -70,4 +72,11 @@ public class Trace {
   public boolean hasWork() {
     return (valuePool.enqueuedPages() + rootLocationPool.enqueuedPages()) > 0;
   }
+
+  /**
+   * @return The number of pages of work queued for this trace
+   */
+  public int enqueuedPages() {
+    return valuePool.enqueuedPages() + rootLocationPool.enqueuedPages();
+  }
 }
@@ -33,6 +33,15 @@ import org.vmmagic.unboxed.*;
  */
 @Uninterruptible
 public abstract class TraceLocal extends TransitiveClosure {
+  /****************************************************************************
+   *
+   * Class variables
+   */
+
+  /** Capacity of each prefetch buffer, the upper bound of the prefetchDistance option */
+  private static final int PREFETCH_CAPACITY = 32;
+  private static final int PREFETCH_MASK = PREFETCH_CAPACITY - 1;
+
   /****************************************************************************
    *
    * Instance variables
@@ -43,6 +52,17 @@ public abstract class TraceLocal extends TransitiveClosure {
   /** delayed root slots */
   protected final AddressDeque rootLocations;
 
+  /** Gray objects popped and prefetched, but not yet scanned (a ring buffer) */
+  private final AddressArray prefetchedNodes = AddressArray.create(PREFETCH_CAPACITY);
+  private int nodeHead;
+  private int nodeCount;
+  /** Slots of the object being scanned whose referents are prefetched but not yet traced */
+  private final AddressArray prefetchedEdges = AddressArray.create(PREFETCH_CAPACITY);
+  private int edgeHead;
+  private int edgeCount;
+  /** The prefetch distance while prefetching, zero otherwise */
+  private int prefetchDistance;
+
   /****************************************************************************
    *
    * Initialization
@@ -93,6 +113,20 @@ public abstract class TraceLocal extends TransitiveClosure {
   @Override
   @Inline
   public final void processEdge(ObjectReference source, Address slot) {
+    if (prefetchDistance > 0) {
+      prefetchEdge(slot);
+      return;
+    }
+    traceEdge(slot);
+  }
+
+  /**
+   * Trace the reference held in a slot, updating the slot if required.
+   *
+   * @param slot The location containing the object reference to be traced.
+   */
+  @Inline
+  private void traceEdge(Address slot) {
     ObjectReference object = VM.activePlan.global().loadObjectReference(slot);
     ObjectReference newObject = traceObject(object, false);
     if (overwriteReferenceDuringTrace()) {
@@ -182,6 +216,74 @@ public abstract class TraceLocal extends TransitiveClosure {
     } else {
       VM.scanning.scanObject(this, object);
     }
+    if (prefetchDistance > 0) {
+      drainPrefetchedEdges();
+    }
+  }
+
+  /****************************************************************************
+   *
+   * Prefetching
+   */
+
+  /**
+   * Delay tracing a slot until its referent has had time to arrive in
+   * the cache, tracing the oldest delayed slot if the buffer is full.
+   * Slots are only ever delayed within the scan of a single object (see
+   * {@link #scanObject}), so subclasses that inspect an object's slots
+   * after scanning it see them updated.
+   *
+   * @param slot The location containing the object reference to be traced.
+   */
+  @Inline
+  private void prefetchEdge(Address slot) {
+    ObjectReference object = VM.activePlan.global().loadObjectReference(slot);
+    if (object.isNull()) return;
+    VM.objectModel.refToAddress(object).prefetch();
+    if (edgeCount == prefetchDistance) {
+      Address oldest = prefetchedEdges.get(edgeHead);
+      edgeHead = (edgeHead + 1) & PREFETCH_MASK;
+      edgeCount--;
+      traceEdge(oldest);
+    }
+    prefetchedEdges.set((edgeHead + edgeCount) & PREFETCH_MASK, slot);
+    edgeCount++;
+  }
+
+  /**
+   * Trace all delayed slots.
+   */
+  private void drainPrefetchedEdges() {
+    while (edgeCount > 0) {
+      Address slot = prefetchedEdges.get(edgeHead);
+      edgeHead = (edgeHead + 1) & PREFETCH_MASK;
+      edgeCount--;
+      traceEdge(slot);
+    }
+  }
+
+  /**
+   * Scan gray objects until the values deque is exhausted, keeping up to
+   * <code>prefetchDistance</code> popped objects in a FIFO whose headers
+   * are prefetched as they enter it.  The FIFO is only topped up from
+   * this thread's own head buffer so that we never wait on the shared
+   * pool (and thus join termination) while holding unscanned objects.
+   */
+  private void scanValuesWithPrefetch() {
+    while (!values.isEmpty()) {
+      do {
+        while (nodeCount < prefetchDistance && values.isLocallyNonEmpty()) {
+          ObjectReference v = values.pop();
+          VM.objectModel.refToAddress(v).prefetch();
+          prefetchedNodes.set((nodeHead + nodeCount) & PREFETCH_MASK, v.toAddress());
+          nodeCount++;
+        }
+        ObjectReference v = prefetchedNodes.get(nodeHead).toObjectReference();
+        nodeHead = (nodeHead + 1) & PREFETCH_MASK;
+        nodeCount--;
+        scanObject(v);
+      } while (nodeCount > 0);
+    }
   }
 
 
@@ -489,13 +591,19 @@ public abstract class TraceLocal extends TransitiveClosure {
     }
     logMessage(5, "processing gray objects");
     assertMutatorRemsetsFlushed();
+    prefetchDistance = Options.prefetchDistance.getValue();
     do {
-      while (!values.isEmpty()) {
-        ObjectReference v = values.pop();
-        scanObject(v);
+      if (prefetchDistance > 0) {
+        scanValuesWithPrefetch();
+      } else {
+        while (!values.isEmpty()) {
+          ObjectReference v = values.pop();
+          scanObject(v);
+        }
       }
       processRememberedSets();
     } while (!values.isEmpty());
+    prefetchDistance = 0;
     assertMutatorRemsetsFlushed();
   }
 
@@ -15,6 +15,8 @@ package org.mmtk.plan.concurrent;
 import org.mmtk.plan.Phase;
 import org.mmtk.plan.Simple;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.options.ConcurrentAssist;
+import org.mmtk.utility.options.ConcurrentThreads;
 import org.mmtk.utility.options.ConcurrentTrigger;
 import org.mmtk.utility.options.Options;
 
@@ -91,6 +93,8 @@ public abstract class Concurrent extends Simple {
    */
   public Concurrent() {
     Options.concurrentTrigger = new ConcurrentTrigger();
+    Options.concurrentThreads = new ConcurrentThreads();
+    Options.concurrentAssist = new ConcurrentAssist();
   }
 
   /*****************************************************************************
@@ -149,6 +153,25 @@ public abstract class Concurrent extends Simple {
     super.collectionPhase(phaseId);
   }
 
+  @Override
+  @Interruptible
+  protected int concurrentWorkerCount(int numThreads) {
+    int workers = Options.concurrentThreads.getValue();
+    return workers > 0 ? workers : numThreads;
+  }
+
+  /**
+   * Has the concurrent collection fallen behind the mutators?  It has
+   * once more than half of the headroom left when it was triggered has
+   * been allocated, at which point allocating mutators help to mark.
+   *
+   * @return {@code true} if mutators should help the concurrent collection
+   */
+  public boolean concurrentCollectionBehind() {
+    int halfway = (Options.concurrentTrigger.getValue() + 100) / 2;
+    return ((getPagesReserved() * 100) / getTotalPages()) > halfway;
+  }
+
   @Override
   protected boolean concurrentCollectionRequired() {
     return !Phase.concurrentPhaseActive() &&
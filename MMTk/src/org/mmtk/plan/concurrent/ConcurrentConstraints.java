@@ -33,6 +33,23 @@ public abstract class ConcurrentConstraints extends SimpleConstraints {
     return true;
   }
 
+  /**
+   * {@inheritDoc}<p>
+   *
+   * The snapshot barrier only records overwritten referents.  The fields
+   * of a new object held nothing at the snapshot, and objects are allocated
+   * live while marking is under way.
+   */
+  @Override
+  public boolean objectReferenceWriteBarrierElidableOnNewObjects() {
+    return true;
+  }
+
+  @Override
+  public boolean objectReferenceBulkCopySupported() {
+    return true;
+  }
+
   @Override
   public boolean needsJavaLangReferenceReadBarrier() {
     return true;
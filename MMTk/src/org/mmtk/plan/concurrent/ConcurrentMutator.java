@@ -15,6 +15,8 @@ package org.mmtk.plan.concurrent;
 import static org.mmtk.utility.Constants.*;
 
 import org.mmtk.plan.*;
+import org.mmtk.policy.Space;
+import org.mmtk.utility.options.Options;
 
 import org.mmtk.vm.VM;
 
@@ -76,6 +78,28 @@ public abstract class ConcurrentMutator extends SimpleMutator {
     super.collectionPhase(phaseId, primary);
   }
 
+  /**
+   * {@inheritDoc}<p>
+   *
+   * While marking is under way and falling behind, make this mutator
+   * mark in proportion to the pages it allocates, pacing the
+   * collection against the rate at which the heap is consumed.
+   */
+  @Override
+  public void pagesAcquired(Space space, int pages) {
+    int assist = Options.concurrentAssist.getValue();
+    if (barrierActive && assist > 0 && global().concurrentCollectionBehind()) {
+      TraceLocal trace = getAssistTrace();
+      trace.incrementalTrace(pages * assist);
+      trace.flush();
+    }
+  }
+
+  /**
+   * @return The trace with which this mutator helps concurrent marking
+   */
+  protected abstract TraceLocal getAssistTrace();
+
   /****************************************************************************
   *
   * Write and read barriers.
@@ -119,14 +143,26 @@ public abstract class ConcurrentMutator extends SimpleMutator {
   @Inline
   @Override
   public boolean objectReferenceBulkCopy(ObjectReference src, Offset srcOffset, ObjectReference dst, Offset dstOffset, int bytes) {
-    Address cursor = dst.toAddress().plus(dstOffset);
-    Address limit = cursor.plus(bytes);
+    if (barrierActive) {
+      Address start = dst.toAddress().plus(dstOffset);
+      logOverwrittenRange(start, start.plus(bytes));
+    }
+    return false;
+  }
+
+  /**
+   * Enqueue the referents about to be overwritten by a bulk copy, so
+   * that the snapshot still reaches them.
+   *
+   * @param cursor The first slot to be overwritten
+   * @param limit The end of the slots to be overwritten
+   */
+  @NoInline
+  private void logOverwrittenRange(Address cursor, Address limit) {
     while (cursor.LT(limit)) {
-      ObjectReference ref = cursor.loadObjectReference();
-      if (barrierActive) checkAndEnqueueReference(ref);
+      checkAndEnqueueReference(cursor.loadObjectReference());
       cursor = cursor.plus(BYTES_IN_ADDRESS);
     }
-    return false;
   }
 
   @Inline
@@ -143,4 +179,10 @@ public abstract class ConcurrentMutator extends SimpleMutator {
    * @param ref The reference to check.
    */
   protected abstract void checkAndEnqueueReference(ObjectReference ref);
+
+  /** @return The active global plan as a <code>Concurrent</code> instance. */
+  @Inline
+  private static Concurrent global() {
+    return (Concurrent) VM.activePlan.global();
+  }
 }
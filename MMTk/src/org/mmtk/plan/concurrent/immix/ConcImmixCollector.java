@@ -0,0 +1,107 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.concurrent.immix;
+
+import org.mmtk.plan.*;
+import org.mmtk.plan.concurrent.ConcurrentCollector;
+import org.mmtk.policy.immix.CollectorLocal;
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+
+/**
+ * This class implements <i>per-collector thread</i> behavior
+ * and state for the <i>ConcImmix</i> plan, which implements a full-heap
+ * concurrent immix collector.<p>
+ *
+ * Sweeping of the immix lines and blocks is shared between the
+ * collector threads at the end of each collection.
+ *
+ * @see ConcImmix
+ */
+@Uninterruptible
+public class ConcImmixCollector extends ConcurrentCollector {
+
+  /****************************************************************************
+   * Instance fields
+   */
+  protected final ConcImmixTraceLocal trace;
+  protected final CollectorLocal immix;
+
+  /****************************************************************************
+   * Initialization
+   */
+
+  /**
+   * Constructor
+   */
+  public ConcImmixCollector() {
+    trace = new ConcImmixTraceLocal(global().immixTrace);
+    immix = new CollectorLocal(ConcImmix.immixSpace);
+  }
+
+  /****************************************************************************
+   *
+   * Collection
+   */
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @Inline
+  public void collectionPhase(short phaseId, boolean primary) {
+    if (phaseId == ConcImmix.PREPARE) {
+      super.collectionPhase(phaseId, primary);
+      immix.prepare(true);
+      trace.prepare();
+      return;
+    }
+
+    if (phaseId == ConcImmix.CLOSURE) {
+      trace.completeTrace();
+      return;
+    }
+
+    if (phaseId == ConcImmix.RELEASE) {
+      trace.release();
+      immix.release(true);
+      super.collectionPhase(phaseId, primary);
+      return;
+    }
+
+    super.collectionPhase(phaseId, primary);
+  }
+
+  @Override
+  protected boolean concurrentTraceComplete() {
+    return !global().immixTrace.hasWork();
+  }
+
+  /****************************************************************************
+   *
+   * Miscellaneous
+   */
+
+  /** @return The active global plan as a <code>ConcImmix</code> instance. */
+  @Inline
+  private static ConcImmix global() {
+    return (ConcImmix) VM.activePlan.global();
+  }
+
+  /** @return The current trace instance. */
+  @Override
+  public final TraceLocal getCurrentTrace() {
+    return trace;
+  }
+}
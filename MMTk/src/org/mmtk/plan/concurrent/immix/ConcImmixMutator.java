@@ -0,0 +1,184 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.concurrent.immix;
+
+import org.mmtk.plan.*;
+import org.mmtk.plan.concurrent.ConcurrentMutator;
+import org.mmtk.policy.Space;
+import org.mmtk.policy.immix.MutatorLocal;
+
+import org.mmtk.utility.alloc.Allocator;
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * This class implements <i>per-mutator thread</i> behavior
+ * and state for the <i>ConcImmix</i> plan, which implements a full-heap
+ * concurrent immix collector.
+ *
+ * @see ConcImmix
+ * @see ConcImmixCollector
+ * @see ConcurrentMutator
+ * @see MutatorContext
+ */
+@Uninterruptible
+public class ConcImmixMutator extends ConcurrentMutator {
+
+  /****************************************************************************
+   * Instance fields
+   */
+
+  /**
+   *
+   */
+  protected final MutatorLocal immix;
+  private final TraceWriteBuffer remset;
+  private final ConcImmixTraceLocal assist;
+
+  /****************************************************************************
+   *
+   * Initialization
+   */
+
+  /**
+   * Constructor
+   */
+  public ConcImmixMutator() {
+    immix = new MutatorLocal(ConcImmix.immixSpace, false);
+    remset = new TraceWriteBuffer(global().immixTrace);
+    assist = new ConcImmixTraceLocal(global().immixTrace);
+  }
+
+  /****************************************************************************
+   *
+   * Mutator-time allocation
+   */
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * This class handles the default allocator from the immix space, and
+   * delegates everything else to the superclass.
+   */
+  @Inline
+  @Override
+  public Address alloc(int bytes, int align, int offset, int allocator, int site) {
+    if (allocator == ConcImmix.ALLOC_DEFAULT) {
+      return immix.alloc(bytes, align, offset);
+    }
+    return super.alloc(bytes, align, offset, allocator, site);
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * Initialize the object header for objects in the immix space,
+   * and delegate to the superclass for other objects.
+   */
+  @Inline
+  @Override
+  public void postAlloc(ObjectReference ref, ObjectReference typeRef,
+      int bytes, int allocator) {
+    if (allocator == ConcImmix.ALLOC_DEFAULT)
+      ConcImmix.immixSpace.postAlloc(ref, bytes);
+    else
+      super.postAlloc(ref, typeRef, bytes, allocator);
+  }
+
+  @Override
+  public Allocator getAllocatorFromSpace(Space space) {
+    if (space == ConcImmix.immixSpace) return immix;
+    return super.getAllocatorFromSpace(space);
+  }
+
+  /****************************************************************************
+   *
+   * Collection
+   */
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @Inline
+  public void collectionPhase(short phaseId, boolean primary) {
+    if (phaseId == ConcImmix.PREPARE) {
+      super.collectionPhase(phaseId, primary);
+      immix.prepare();
+      return;
+    }
+
+    if (phaseId == ConcImmix.RELEASE) {
+      immix.release();
+      super.collectionPhase(phaseId, primary);
+      return;
+    }
+
+    super.collectionPhase(phaseId, primary);
+  }
+
+  @Override
+  public void flushRememberedSets() {
+    remset.flush();
+  }
+
+  /****************************************************************************
+   *
+   * Write and read barriers.
+   */
+
+  @Override
+  protected TraceLocal getAssistTrace() {
+    return assist;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void checkAndEnqueueReference(ObjectReference ref) {
+    if (ref.isNull()) return;
+    if (barrierActive) {
+      if      (Space.isInSpace(ConcImmix.IMMIX,      ref)) ConcImmix.immixSpace.fastTraceObject(remset, ref);
+      else if (Space.isInSpace(ConcImmix.IMMORTAL,   ref)) ConcImmix.immortalSpace.traceObject(remset, ref);
+      else if (Space.isInSpace(ConcImmix.LOS,        ref)) ConcImmix.loSpace.traceObject(remset, ref);
+      else if (Space.isInSpace(ConcImmix.NON_MOVING, ref)) ConcImmix.nonMovingSpace.traceObject(remset, ref);
+      else if (Space.isInSpace(ConcImmix.SMALL_CODE, ref)) ConcImmix.smallCodeSpace.traceObject(remset, ref);
+      else if (Space.isInSpace(ConcImmix.LARGE_CODE, ref)) ConcImmix.largeCodeSpace.traceObject(remset, ref);
+    }
+
+    if (VM.VERIFY_ASSERTIONS) {
+      if (!Plan.gcInProgress()) {
+        if      (Space.isInSpace(ConcImmix.IMMIX,      ref)) VM.assertions._assert(ConcImmix.immixSpace.isLive(ref));
+        else if (Space.isInSpace(ConcImmix.IMMORTAL,   ref)) VM.assertions._assert(ConcImmix.immortalSpace.isLive(ref));
+        else if (Space.isInSpace(ConcImmix.LOS,        ref)) VM.assertions._assert(ConcImmix.loSpace.isLive(ref));
+        else if (Space.isInSpace(ConcImmix.NON_MOVING, ref)) VM.assertions._assert(ConcImmix.nonMovingSpace.isLive(ref));
+        else if (Space.isInSpace(ConcImmix.SMALL_CODE, ref)) VM.assertions._assert(ConcImmix.smallCodeSpace.isLive(ref));
+        else if (Space.isInSpace(ConcImmix.LARGE_CODE, ref)) VM.assertions._assert(ConcImmix.largeCodeSpace.isLive(ref));
+      }
+    }
+  }
+
+  /****************************************************************************
+   *
+   * Miscellaneous
+   */
+
+  /** @return The active global plan as a <code>ConcImmix</code> instance. */
+  @Inline
+  private static ConcImmix global() {
+    return (ConcImmix) VM.activePlan.global();
+  }
+}
@@ -51,6 +51,7 @@ public class CMSMutator extends ConcurrentMutator {
    */
   private final MarkSweepLocal ms;
   private final TraceWriteBuffer remset;
+  private final CMSTraceLocal assist;
 
   /****************************************************************************
    *
@@ -63,6 +64,7 @@ public class CMSMutator extends ConcurrentMutator {
   public CMSMutator() {
     ms = new MarkSweepLocal(CMS.msSpace);
     remset = new TraceWriteBuffer(global().msTrace);
+    assist = new CMSTraceLocal(global().msTrace);
   }
 
   /****************************************************************************
@@ -146,6 +148,11 @@ public class CMSMutator extends ConcurrentMutator {
    * Write and read barriers.
    */
 
+  @Override
+  protected TraceLocal getAssistTrace() {
+    return assist;
+  }
+
   /**
    * {@inheritDoc}
    */
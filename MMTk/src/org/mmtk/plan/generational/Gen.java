@@ -17,12 +17,17 @@ import static org.mmtk.utility.Constants.LOG_BYTES_IN_PAGE;
 import org.mmtk.plan.*;
 import org.mmtk.policy.CopySpace;
 import org.mmtk.policy.Space;
-
+import org.mmtk.utility.CardTable;
+import org.mmtk.utility.DeduplicationTable;
+import org.mmtk.utility.ForwardingWord;
 import org.mmtk.utility.deque.*;
 import org.mmtk.utility.heap.Map;
 import org.mmtk.utility.heap.VMRequest;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.options.MaxTenuringThreshold;
 import org.mmtk.utility.options.Options;
+import org.mmtk.utility.options.SitePretenureSurvival;
+import org.mmtk.utility.options.StringDeduplication;
 import org.mmtk.utility.sanitychecker.SanityChecker;
 import org.mmtk.utility.statistics.*;
 
@@ -65,10 +70,37 @@ public abstract class Gen extends StopTheWorld {
   public static final boolean USE_OBJECT_BARRIER_FOR_AASTORE = false; // choose between slot and object barriers
   public static final boolean USE_OBJECT_BARRIER_FOR_PUTFIELD = false; // choose between slot and object barriers
   public static final boolean USE_OBJECT_BARRIER = USE_OBJECT_BARRIER_FOR_AASTORE || USE_OBJECT_BARRIER_FOR_PUTFIELD;
+  public static final boolean USE_CARD_MARKING_FOR_AASTORE = ((GenConstraints) VM.activePlan.constraints()).cardMarking(); // remember array stores by card
+  public static final boolean USE_SITE_PRETENURING = ((GenConstraints) VM.activePlan.constraints()).sitePretenuring(); // pretenure by allocation site
+  public static final boolean USE_SURVIVOR_SPACES = ((GenConstraints) VM.activePlan.constraints()).survivorSpaces(); // age survivors before promotion
+
+  /** One in this many nursery allocations is sampled by the site profiler */
+  static final int SITE_SAMPLE_INTERVAL = 128;
+  /** Allocation sites with ids at or above this are not profiled */
+  private static final int MAX_PROFILED_SITES = 1 << 14;
+  /** Number of samples required before a site may be pretenured */
+  private static final int MIN_SITE_SAMPLES = 32;
+
+  /** The log of the number of entries in the string deduplication table */
+  private static final int LOG_DEDUPLICATION_ENTRIES = 16;
 
   /** Fraction of available virtual memory to give to the nursery (if contiguous) */
   protected static final float NURSERY_VM_FRACTION = 0.15f;
 
+  /** Fraction of available virtual memory to give to each survivor space (if contiguous) */
+  private static final float SURVIVOR_VM_FRACTION = 0.05f;
+
+  /** Number of header bits holding the number of nursery collections a survivor has survived */
+  static final int AGE_BITS = 4;
+  private static final int AGE_SHIFT = ForwardingWord.FORWARDING_BITS;
+  private static final byte AGE_MASK = (byte) (((1 << AGE_BITS) - 1) << AGE_SHIFT);
+  private static final byte AGE_INCREMENT = (byte) (1 << AGE_SHIFT);
+
+  /** Survivors occupying more than this fraction of the maximum nursery lower the tenuring threshold */
+  private static final float SURVIVOR_HIGH_WATER = 0.5f;
+  /** Survivors occupying less than this fraction of the maximum nursery raise the tenuring threshold */
+  private static final float SURVIVOR_LOW_WATER = 0.25f;
+
   /** Switch between a contiguous and discontiguous nursery (experimental) */
   static final boolean USE_DISCONTIGUOUS_NURSERY = false;
 
@@ -77,6 +109,7 @@ public abstract class Gen extends StopTheWorld {
   public static final int ALLOC_MATURE         = StopTheWorld.ALLOCATORS + 1;
   public static final int ALLOC_MATURE_MINORGC = StopTheWorld.ALLOCATORS + 2;
   public static final int ALLOC_MATURE_MAJORGC = StopTheWorld.ALLOCATORS + 3;
+  public static final int ALLOC_SURVIVOR       = StopTheWorld.ALLOCATORS + 4;
 
   public static final int SCAN_NURSERY = 0;
   public static final int SCAN_MATURE  = 1;
@@ -99,11 +132,33 @@ public abstract class Gen extends StopTheWorld {
   public static final SizeCounter nurseryCons;
 
   /* The nursery space is where all new objects are allocated by default */
-  private static final VMRequest vmRequest = USE_DISCONTIGUOUS_NURSERY ? VMRequest.discontiguous() : VMRequest.highFraction(NURSERY_VM_FRACTION);
+  private static final VMRequest vmRequest = (USE_DISCONTIGUOUS_NURSERY ? VMRequest.discontiguous() : VMRequest.highFraction(NURSERY_VM_FRACTION)).withHugePages();
   public static final CopySpace nurserySpace = new CopySpace("nursery", false, vmRequest);
 
+  /*
+   * The survivor spaces hold nursery survivors which have yet to reach the
+   * tenuring threshold.  They are created immediately after the nursery, so
+   * (if contiguous) they lie directly beneath it.
+   */
+  public static final CopySpace survivorSpace0 = USE_SURVIVOR_SPACES ? new CopySpace("survivor0", false, survivorVMRequest()) : null;
+  public static final CopySpace survivorSpace1 = USE_SURVIVOR_SPACES ? new CopySpace("survivor1", false, survivorVMRequest()) : null;
+
   public static final int NURSERY = nurserySpace.getDescriptor();
-  private static final Address NURSERY_START = nurserySpace.getStart();
+  public static final int SURVIVOR0 = USE_SURVIVOR_SPACES ? survivorSpace0.getDescriptor() : 0;
+  public static final int SURVIVOR1 = USE_SURVIVOR_SPACES ? survivorSpace1.getDescriptor() : 0;
+  /** The start of the young generation: the nursery and any survivor spaces */
+  private static final Address NURSERY_START = USE_SURVIVOR_SPACES ? survivorSpace1.getStart() : nurserySpace.getStart();
+
+  /** Is survivor space 1 (rather than 0) the destination of the current or most recent collection? */
+  static boolean survivorHi = false;
+
+  /** The number of nursery collections an object must survive before it is promoted */
+  private static int tenuringThreshold = 1;
+
+  /* Allocation site profile: sampled and surviving objects, and the pretenuring decision */
+  private static final int[] siteSamples = new int[USE_SITE_PRETENURING ? MAX_PROFILED_SITES : 0];
+  private static final int[] siteSurvivors = new int[USE_SITE_PRETENURING ? MAX_PROFILED_SITES : 0];
+  private static final boolean[] sitePretenured = new boolean[USE_SITE_PRETENURING ? MAX_PROFILED_SITES : 0];
 
   /*****************************************************************************
    *
@@ -118,6 +173,13 @@ public abstract class Gen extends StopTheWorld {
   public boolean gcFullHeap = false;
   public boolean nextGCFullHeap = false;
 
+  /**
+   * Set by a subclass while a nursery collection also collects part of
+   * the mature space.  References are then processed as they would be
+   * in a full heap collection.
+   */
+  protected boolean gcMatureIncrement = false;
+
   /* The trace object */
   public final Trace nurseryTrace = new Trace(metaDataSpace);
 
@@ -131,11 +193,26 @@ public abstract class Gen extends StopTheWorld {
   public final SharedDeque modbufPool = new SharedDeque("modBufs",metaDataSpace, 1);
   public final SharedDeque remsetPool = new SharedDeque("remSets",metaDataSpace, 1);
   public final SharedDeque arrayRemsetPool = new SharedDeque("arrayRemSets",metaDataSpace, 2);
+  public final SharedDeque cardRemsetPool = new SharedDeque("cardRemSets",metaDataSpace, 1);
+
+  /** Mature slots referring to objects in survivor space 0 and 1 respectively */
+  public final SharedDeque survivorRemsetPool0 = new SharedDeque("survivorRemSets0",metaDataSpace, 1);
+  public final SharedDeque survivorRemsetPool1 = new SharedDeque("survivorRemSets1",metaDataSpace, 1);
+
+  /** Nursery allocations sampled by mutators: (cell address, site + 1) pairs */
+  public final SharedDeque siteSamplePool = new SharedDeque("siteSamples",metaDataSpace, 2);
+  private final AddressPairDeque siteSampleDeque = new AddressPairDeque(siteSamplePool);
+
+  /** The canonical contents of strings seen by the current mature collection */
+  public final DeduplicationTable deduplicationTable = new DeduplicationTable(metaDataSpace, LOG_DEDUPLICATION_ENTRIES);
 
   /*
    * Class initializer
    */
   static {
+    Options.sitePretenureSurvival = new SitePretenureSurvival();
+    Options.maxTenuringThreshold = new MaxTenuringThreshold();
+    Options.stringDeduplication = new StringDeduplication();
     if (GATHER_WRITE_BARRIER_STATS) {
       wbFast = new EventCounter("wbFast");
       wbSlow = new EventCounter("wbSlow");
@@ -152,6 +229,14 @@ public abstract class Gen extends StopTheWorld {
     }
   }
 
+  /**
+   * @return The virtual memory request for a survivor space
+   */
+  @Interruptible
+  private static VMRequest survivorVMRequest() {
+    return (USE_DISCONTIGUOUS_NURSERY ? VMRequest.discontiguous() : VMRequest.highFraction(SURVIVOR_VM_FRACTION)).withHugePages();
+  }
+
   /*****************************************************************************
    *
    * Collection
@@ -176,6 +261,19 @@ public abstract class Gen extends StopTheWorld {
 
     if (phaseId == PREPARE) {
       nurserySpace.prepare(true);
+      if (USE_SURVIVOR_SPACES) {
+        survivorHi = !survivorHi;
+        fromSurvivor().prepare(true);
+        toSurvivor().prepare(false);
+        if (traceFullHeap()) {
+          /* every young object will be promoted */
+          survivorRemsetPool0.clearDeque(1);
+          survivorRemsetPool1.clearDeque(1);
+        } else {
+          fromSurvivorRemsetPool().prepareNonBlocking();
+        }
+      }
+      if (USE_SITE_PRETENURING) siteSamplePool.prepareNonBlocking();
       if (traceFullHeap()) {
         if (gcFullHeap) {
           if (Stats.gatheringStats()) fullHeap.set();
@@ -186,6 +284,7 @@ public abstract class Gen extends StopTheWorld {
         // we can throw away the remsets (but not modbuf) for a full heap GC
         remsetPool.clearDeque(1);
         arrayRemsetPool.clearDeque(2);
+        if (Options.stringDeduplication.getValue()) deduplicationTable.prepare();
       }
       return;
     }
@@ -204,11 +303,18 @@ public abstract class Gen extends StopTheWorld {
     }
 
     if (phaseId == RELEASE) {
+      if (USE_SITE_PRETENURING) profileSites();
       nurserySpace.release();
+      if (USE_SURVIVOR_SPACES) {
+        fromSurvivor().release();
+        fromSurvivorRemsetPool().clearDeque(1);
+        if (!traceFullHeap()) adjustTenuringThreshold();
+      }
       switchNurseryZeroingApproach(nurserySpace);
       modbufPool.clearDeque(1);
       remsetPool.clearDeque(1);
       arrayRemsetPool.clearDeque(2);
+      cardRemsetPool.clearDeque(1);
       if (!traceFullHeap()) {
         nurseryTrace.release();
       } else {
@@ -279,6 +385,65 @@ public abstract class Gen extends StopTheWorld {
     return ((int)(getCollectionReserve() * WORST_CASE_COPY_EXPANSION)) >= getMaturePhysicalPagesAvail();
   }
 
+  /**
+   * Adjust the tenuring threshold after a nursery collection so that
+   * survivors occupy a modest fraction of the nursery.  Survivors are
+   * copied at every nursery collection until they are promoted, so a
+   * high threshold trades repeated copying of long-lived objects for
+   * fewer medium-lived objects reaching the mature space.
+   */
+  private void adjustTenuringThreshold() {
+    int survivorPages = toSurvivor().reservedPages();
+    int maxNursery = Options.nurserySize.getMaxNursery();
+    if (survivorPages > maxNursery * SURVIVOR_HIGH_WATER) {
+      if (tenuringThreshold > 1) tenuringThreshold--;
+    } else if (survivorPages < maxNursery * SURVIVOR_LOW_WATER) {
+      if (tenuringThreshold < Options.maxTenuringThreshold.getValue()) tenuringThreshold++;
+    }
+    if (tenuringThreshold > Options.maxTenuringThreshold.getValue())
+      tenuringThreshold = Options.maxTenuringThreshold.getValue();
+    if (Options.verbose.getValue() >= 3) {
+      Log.write("Tenuring threshold "); Log.write(tenuringThreshold);
+      Log.write(" ("); Log.write(survivorPages); Log.writeln(" survivor pages)");
+    }
+  }
+
+  /**
+   * Update the allocation site profile from the nursery allocations sampled
+   * by mutators.  This is called after the trace, while the nursery still
+   * holds the forwarding state of its objects, so a sampled object survived
+   * if and only if it is live in the nursery.  Sites whose sampled objects
+   * have mostly survived are marked as pretenured, after which mutators
+   * allocate their objects directly into the mature space.
+   */
+  private void profileSites() {
+    while (!siteSampleDeque.isEmpty()) {
+      Address cell = siteSampleDeque.pop1();
+      int site = siteSampleDeque.pop2().toInt() - 1;
+      ObjectReference object = VM.objectModel.getObjectFromStartAddress(cell);
+      siteSamples[site]++;
+      if (nurserySpace.isLive(object)) siteSurvivors[site]++;
+    }
+    siteSamplePool.reset();
+
+    float threshold = Options.sitePretenureSurvival.getValue();
+    for (int site = 0; site < MAX_PROFILED_SITES; site++) {
+      int samples = siteSamples[site];
+      if (samples < MIN_SITE_SAMPLES) continue;
+      if (!sitePretenured[site] && siteSurvivors[site] >= samples * threshold) {
+        sitePretenured[site] = true;
+        if (Options.verbose.getValue() >= 3) {
+          Log.write("Pretenuring allocation site "); Log.write(site);
+          Log.write(" ("); Log.write(siteSurvivors[site]); Log.write("/");
+          Log.write(samples); Log.writeln(" sampled objects survived)");
+        }
+      }
+      /* Decay the profile so that it tracks phase changes */
+      siteSamples[site] = samples >> 1;
+      siteSurvivors[site] >>= 1;
+    }
+  }
+
   /*****************************************************************************
    *
    * Correctness
@@ -296,7 +461,7 @@ public abstract class Gen extends StopTheWorld {
    */
   @Override
   public int getPagesUsed() {
-    return (nurserySpace.reservedPages() + super.getPagesUsed());
+    return (nurserySpace.reservedPages() + survivorPages() + super.getPagesUsed());
   }
 
   /**
@@ -316,7 +481,15 @@ public abstract class Gen extends StopTheWorld {
    */
   @Override
   public int getCollectionReserve() {
-    return nurserySpace.reservedPages() + super.getCollectionReserve();
+    return nurserySpace.reservedPages() + survivorPages() + super.getCollectionReserve();
+  }
+
+  /**
+   * @return The number of pages reserved by the survivor spaces
+   */
+  private int survivorPages() {
+    if (!USE_SURVIVOR_SPACES) return 0;
+    return survivorSpace0.reservedPages() + survivorSpace1.reservedPages();
   }
 
   /**
@@ -335,18 +508,132 @@ public abstract class Gen extends StopTheWorld {
 
   /**
    * Return {@code true} if the address resides within the nursery
+   * (including any survivor spaces)
    *
    * @param addr The object to be tested
    * @return {@code true} if the address resides within the nursery
    */
   @Inline
-  static boolean inNursery(Address addr) {
-    if (USE_DISCONTIGUOUS_NURSERY)
-      return Map.getDescriptorForAddress(addr) == NURSERY;
-    else
+  public static boolean inNursery(Address addr) {
+    if (USE_DISCONTIGUOUS_NURSERY) {
+      int descriptor = Map.getDescriptorForAddress(addr);
+      return descriptor == NURSERY || (USE_SURVIVOR_SPACES && (descriptor == SURVIVOR0 || descriptor == SURVIVOR1));
+    } else
       return addr.GE(NURSERY_START);
   }
 
+  /**
+   * Return the young space holding an object.
+   *
+   * @param object An object within the nursery (including any survivor spaces)
+   * @return The space holding the object
+   */
+  @Inline
+  static CopySpace youngSpace(ObjectReference object) {
+    if (!USE_SURVIVOR_SPACES || Space.isInSpace(NURSERY, object)) return nurserySpace;
+    return Space.isInSpace(SURVIVOR0, object) ? survivorSpace0 : survivorSpace1;
+  }
+
+  /**
+   * Return {@code true} if the object resides within a survivor space.
+   *
+   * @param object The object to be tested
+   * @return {@code true} if the object resides within a survivor space
+   */
+  @Inline
+  static boolean inSurvivor(ObjectReference object) {
+    return USE_SURVIVOR_SPACES && !object.isNull() && inNursery(object) && !Space.isInSpace(NURSERY, object);
+  }
+
+  /** @return The survivor space being evacuated by the current collection */
+  static CopySpace fromSurvivor() {
+    return survivorHi ? survivorSpace0 : survivorSpace1;
+  }
+
+  /** @return The survivor space receiving survivors in the current collection */
+  static CopySpace toSurvivor() {
+    return survivorHi ? survivorSpace1 : survivorSpace0;
+  }
+
+  /** @return The remembered slots referring to the survivor space being evacuated */
+  private SharedDeque fromSurvivorRemsetPool() {
+    return survivorHi ? survivorRemsetPool0 : survivorRemsetPool1;
+  }
+
+  /**
+   * Return the allocator to which a young object should be copied by a
+   * nursery collection.  An object is promoted once it has survived
+   * <code>tenuringThreshold</code> nursery collections, and is otherwise
+   * copied to the survivor space.
+   *
+   * @param object The young object
+   * @return The allocator for the copy
+   */
+  @Inline
+  static int nurseryCopyAllocator(ObjectReference object) {
+    if (USE_SURVIVOR_SPACES && getAge(object) + 1 < tenuringThreshold)
+      return ALLOC_SURVIVOR;
+    return ALLOC_MATURE_MINORGC;
+  }
+
+  /**
+   * @param object A young object
+   * @return The number of nursery collections the object has survived
+   */
+  @Inline
+  private static int getAge(ObjectReference object) {
+    return (VM.objectModel.readAvailableByte(object) & AGE_MASK) >>> AGE_SHIFT;
+  }
+
+  /**
+   * Initialize the header of an object just copied to the survivor space,
+   * incrementing its age.
+   *
+   * @param object The new copy of the object
+   */
+  @Inline
+  public static void postCopySurvivor(ObjectReference object) {
+    ForwardingWord.clearForwardingBits(object);
+    byte value = VM.objectModel.readAvailableByte(object);
+    VM.objectModel.writeAvailableByte(object, (byte) (value + AGE_INCREMENT));
+  }
+
+  /**
+   * Clear the age of an object being promoted, so that the age bits may
+   * be used by the mature space.
+   *
+   * @param object The promoted object
+   */
+  @Inline
+  public static void clearAge(ObjectReference object) {
+    byte value = VM.objectModel.readAvailableByte(object);
+    VM.objectModel.writeAvailableByte(object, (byte) (value & ~AGE_MASK));
+  }
+
+  /**
+   * Return {@code true} if objects from the given allocation site should be
+   * allocated directly into the mature space.
+   *
+   * @param site The allocation site
+   * @return {@code true} if the site has been found to allocate long-lived objects
+   */
+  @Inline
+  static boolean isPretenuredSite(int site) {
+    return site >= 0 && site < MAX_PROFILED_SITES && sitePretenured[site];
+  }
+
+  /**
+   * Return {@code true} if allocations from the given site are sampled by
+   * the site profiler.
+   *
+   * @param site The allocation site
+   * @return {@code true} if the site is profiled
+   */
+  @Inline
+  static boolean isProfiledSite(int site) {
+    return site >= 0 && site < MAX_PROFILED_SITES;
+  }
+
   /**
    * Return {@code true} if the object resides within the nursery
    *
@@ -354,7 +641,7 @@ public abstract class Gen extends StopTheWorld {
    * @return {@code true} if the object resides within the nursery
    */
   @Inline
-  static boolean inNursery(ObjectReference obj) {
+  public static boolean inNursery(ObjectReference obj) {
     return inNursery(obj.toAddress());
   }
 
@@ -394,7 +681,7 @@ public abstract class Gen extends StopTheWorld {
 
   @Override
   public final boolean isCurrentGCNursery() {
-    return !(IGNORE_REMSETS || gcFullHeap);
+    return !(IGNORE_REMSETS || gcFullHeap || gcMatureIncrement);
   }
 
   @Override
@@ -404,7 +691,7 @@ public abstract class Gen extends StopTheWorld {
 
   @Override
   public boolean willNeverMove(ObjectReference object) {
-    if (Space.isInSpace(NURSERY, object))
+    if (inNursery(object))
       return false;
     return super.willNeverMove(object);
   }
@@ -418,13 +705,18 @@ public abstract class Gen extends StopTheWorld {
       return SanityChecker.DEAD;
     }
 
+    // Survivor spaces
+    if (USE_SURVIVOR_SPACES && (space == survivorSpace0 || space == survivorSpace1)) {
+      return traceFullHeap() ? SanityChecker.DEAD : SanityChecker.UNSURE;
+    }
+
     // Immortal spaces
     if (space == Gen.immortalSpace || space == Gen.vmSpace) {
       return space.isReachable(object) ? SanityChecker.ALIVE : SanityChecker.DEAD;
     }
 
     // Mature space (nursery collection)
-    if (VM.activePlan.global().isCurrentGCNursery()) {
+    if (!traceFullHeap()) {
       return SanityChecker.UNSURE;
     }
 
@@ -439,6 +731,13 @@ public abstract class Gen extends StopTheWorld {
     super.registerSpecializedMethods();
   }
 
+  @Interruptible
+  @Override
+  public void enableAllocation() {
+    super.enableAllocation();
+    if (USE_CARD_MARKING_FOR_AASTORE) CardTable.acquireTable(metaDataSpace);
+  }
+
   @Interruptible
   @Override
   public void fullyBooted() {
@@ -13,7 +13,9 @@
 package org.mmtk.plan.generational;
 
 import org.mmtk.plan.*;
+import org.mmtk.policy.CopyLocal;
 import org.mmtk.policy.LargeObjectLocal;
+import org.mmtk.utility.CardTable;
 import org.mmtk.utility.deque.*;
 
 import org.mmtk.vm.VM;
@@ -47,10 +49,14 @@ import org.vmmagic.pragma.*;
 
   protected final LargeObjectLocal los;
 
+  /** Allocates copies of nursery survivors which are not yet promoted */
+  protected final CopyLocal survivor;
+
   // remembered set consumers
   protected final ObjectReferenceDeque modbuf;
   protected final AddressDeque remset;
   protected final AddressPairDeque arrayRemset;
+  protected final AddressDeque cardRemset;
 
   /****************************************************************************
    *
@@ -67,10 +73,22 @@ import org.vmmagic.pragma.*;
    */
   public GenCollector() {
     los = new LargeObjectLocal(Plan.loSpace);
+    survivor = Gen.USE_SURVIVOR_SPACES ? new CopyLocal(Gen.survivorSpace0) : null;
     arrayRemset = new AddressPairDeque(global().arrayRemsetPool);
     remset = new AddressDeque("remset", global().remsetPool);
     modbuf = new ObjectReferenceDeque("modbuf", global().modbufPool);
-    nurseryTrace = new GenNurseryTraceLocal(global().nurseryTrace, this);
+    cardRemset = new AddressDeque("cardRemset", global().cardRemsetPool);
+    nurseryTrace = createNurseryTrace();
+  }
+
+  /**
+   * Create the trace used for nursery collections.  Called from the
+   * constructor, once the remembered sets have been created.
+   *
+   * @return The nursery trace for this collector
+   */
+  protected GenNurseryTraceLocal createNurseryTrace() {
+    return new GenNurseryTraceLocal(global().nurseryTrace, this);
   }
 
   /****************************************************************************
@@ -87,9 +105,11 @@ import org.vmmagic.pragma.*;
 
     if (phaseId == Gen.PREPARE) {
       los.prepare(true);
+      if (Gen.USE_SURVIVOR_SPACES) survivor.rebind(Gen.toSurvivor());
       global().arrayRemsetPool.prepareNonBlocking();
       global().remsetPool.prepareNonBlocking();
       global().modbufPool.prepareNonBlocking();
+      global().cardRemsetPool.prepareNonBlocking();
       nurseryTrace.prepare();
       return;
     }
@@ -117,11 +137,19 @@ import org.vmmagic.pragma.*;
 
     if (phaseId == Gen.RELEASE) {
       los.release(true);
+      /* help sweep the large object spaces; the global release sweeps any remainder */
+      Plan.loSpace.sweep(parallelWorkerOrdinal(), parallelWorkerCount());
+      if (Plan.USE_CODE_SPACE) Plan.largeCodeSpace.sweep(parallelWorkerOrdinal(), parallelWorkerCount());
       if (!global().traceFullHeap()) {
         nurseryTrace.release();
         global().arrayRemsetPool.reset();
         global().remsetPool.reset();
         global().modbufPool.reset();
+        global().cardRemsetPool.reset();
+      } else if (Gen.USE_CARD_MARKING_FOR_AASTORE) {
+        /* the nursery is now empty, so every dirty card can be cleaned */
+        while (!cardRemset.isEmpty())
+          CardTable.clean(cardRemset.pop());
       }
       return;
     }
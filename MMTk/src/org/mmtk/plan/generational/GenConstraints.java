@@ -40,7 +40,7 @@ public class GenConstraints extends StopTheWorldConstraints {
 
   @Override
   public int gcHeaderBits() {
-    return CopySpace.LOCAL_GC_BITS_REQUIRED;
+    return CopySpace.LOCAL_GC_BITS_REQUIRED + (survivorSpaces() ? Gen.AGE_BITS : 0);
   }
 
   @Override
@@ -63,6 +63,18 @@ public class GenConstraints extends StopTheWorldConstraints {
     return true;
   }
 
+  /**
+   * {@inheritDoc}<p>
+   *
+   * A new object is in the nursery (or the large object nursery) until
+   * the next collection, and stores into the nursery are never remembered.
+   * Pretenured sites break this, since they are redirected at run time.
+   */
+  @Override
+  public boolean objectReferenceWriteBarrierElidableOnNewObjects() {
+    return !sitePretenuring();
+  }
+
   @Override
   public int numSpecializedScans() {
     return 2;
@@ -73,6 +85,32 @@ public class GenConstraints extends StopTheWorldConstraints {
     return Gen.USE_OBJECT_BARRIER;
   }
 
+  /**
+   * @return {@code true} if stores into reference arrays are remembered
+   * by marking cards rather than by logging each slot
+   */
+  public boolean cardMarking() {
+    return false;
+  }
+
+  /**
+   * @return {@code true} if nursery survival is profiled per allocation
+   * site, and allocations from sites whose objects mostly survive are
+   * made directly into the mature space
+   */
+  public boolean sitePretenuring() {
+    return false;
+  }
+
+  /**
+   * @return {@code true} if nursery survivors are aged in a pair of
+   * survivor spaces, and only promoted to the mature space once they
+   * reach the tenuring threshold
+   */
+  public boolean survivorSpaces() {
+    return false;
+  }
+
   /**
    * @return The maximum size of an object that may be allocated directly into the nursery
    */
@@ -16,6 +16,7 @@ import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.Trace;
 import org.mmtk.utility.HeaderByte;
 import org.mmtk.utility.deque.*;
+import org.mmtk.utility.options.Options;
 
 import org.mmtk.vm.VM;
 
@@ -41,6 +42,9 @@ public abstract class GenMatureTraceLocal extends TraceLocal {
   private final AddressDeque remset;
   private final AddressPairDeque arrayRemset;
 
+  /** Should the current trace deduplicate the contents of strings? */
+  private boolean deduplicate;
+
   /****************************************************************************
    *
    * Initialization
@@ -70,6 +74,12 @@ public abstract class GenMatureTraceLocal extends TraceLocal {
     this.arrayRemset = plan.arrayRemset;
   }
 
+  @Override
+  public void prepare() {
+    super.prepare();
+    deduplicate = Options.stringDeduplication.getValue();
+  }
+
   /****************************************************************************
    *
    * Object processing and tracing
@@ -83,7 +93,7 @@ public abstract class GenMatureTraceLocal extends TraceLocal {
   public boolean isLive(ObjectReference object) {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!object.isNull());
     if (Gen.inNursery(object)) {
-      return Gen.nurserySpace.isLive(object);
+      return Gen.youngSpace(object).isLive(object);
     }
     return super.isLive(object);
   }
@@ -110,10 +120,29 @@ public abstract class GenMatureTraceLocal extends TraceLocal {
   public ObjectReference traceObject(ObjectReference object) {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!object.isNull());
     if (Gen.inNursery(object))
-      return Gen.nurserySpace.traceObject(this, object, Gen.ALLOC_MATURE_MAJORGC);
+      return Gen.youngSpace(object).traceObject(this, object, Gen.ALLOC_MATURE_MAJORGC);
     return super.traceObject(object);
   }
 
+  /**
+   * {@inheritDoc}<p>
+   *
+   * If string deduplication is enabled, a string is redirected to the
+   * canonical copy of its contents before its fields are traced, so
+   * that duplicate contents die unless referenced elsewhere.
+   */
+  @Override
+  @Inline
+  protected void scanObject(ObjectReference object) {
+    if (deduplicate) {
+      Address slot = VM.scanning.getDeduplicationSlot(object);
+      if (!slot.isZero()) {
+        ((Gen) VM.activePlan.global()).deduplicationTable.deduplicate(slot);
+      }
+    }
+    super.scanObject(object);
+  }
+
   /**
    * Process any remembered set entries.
    */
@@ -15,11 +15,13 @@ package org.mmtk.plan.generational;
 import org.mmtk.plan.*;
 import org.mmtk.policy.CopyLocal;
 import org.mmtk.policy.Space;
+import org.mmtk.utility.CardTable;
 import org.mmtk.utility.HeaderByte;
 import org.mmtk.utility.deque.*;
 import org.mmtk.utility.alloc.Allocator;
 import org.mmtk.utility.statistics.Stats;
 import org.mmtk.vm.VM;
+import static org.mmtk.plan.generational.Gen.USE_CARD_MARKING_FOR_AASTORE;
 import static org.mmtk.plan.generational.Gen.USE_OBJECT_BARRIER_FOR_AASTORE;
 import static org.mmtk.plan.generational.Gen.USE_OBJECT_BARRIER_FOR_PUTFIELD;
 import static org.mmtk.utility.Constants.*;
@@ -55,6 +57,9 @@ import org.vmmagic.unboxed.*;
   private final ObjectReferenceDeque modbuf;    /* remember modified scalars */
   protected final WriteBuffer remset;           /* remember modified array fields */
   protected final AddressPairDeque arrayRemset; /* remember modified array ranges */
+  private final WriteBuffer cardRemset;          /* remember dirtied array cards */
+  private final AddressPairDeque siteSamples;    /* sampled nursery allocations */
+  private int siteSampleCountdown = Gen.SITE_SAMPLE_INTERVAL;
 
   /****************************************************************************
    *
@@ -73,6 +78,8 @@ import org.vmmagic.unboxed.*;
     modbuf = new ObjectReferenceDeque("modbuf", global().modbufPool);
     remset = new WriteBuffer(global().remsetPool);
     arrayRemset = new AddressPairDeque(global().arrayRemsetPool);
+    cardRemset = new WriteBuffer(global().cardRemsetPool);
+    siteSamples = new AddressPairDeque(global().siteSamplePool);
   }
 
   /****************************************************************************
@@ -87,21 +94,73 @@ import org.vmmagic.unboxed.*;
   @Inline
   public Address alloc(int bytes, int align, int offset, int allocator, int site) {
     if (allocator == Gen.ALLOC_NURSERY) {
+      if (Gen.USE_SITE_PRETENURING && Gen.isPretenuredSite(site)) {
+        return allocPretenured(bytes, align, offset, site);
+      }
       if (Stats.GATHER_MARK_CONS_STATS) Gen.nurseryCons.inc(bytes);
-      return nursery.alloc(bytes, align, offset);
+      Address result = nursery.alloc(bytes, align, offset);
+      if (Gen.USE_SITE_PRETENURING && --siteSampleCountdown == 0) {
+        sampleSite(result, site);
+      }
+      return result;
     }
     return super.alloc(bytes, align, offset, allocator, site);
   }
 
+  /**
+   * Allocate an object from a pretenured site directly into the mature space.
+   *
+   * @param bytes The number of bytes to allocate
+   * @param align The requested alignment
+   * @param offset The alignment offset
+   * @param site The allocation site
+   * @return The address of the first byte of the allocated region
+   */
+  @NoInline
+  private Address allocPretenured(int bytes, int align, int offset, int site) {
+    return alloc(bytes, align, offset, Gen.ALLOC_MATURE, site);
+  }
+
+  /**
+   * Record a sampled nursery allocation for the allocation site profile.
+   *
+   * @param cell The start of the allocated region
+   * @param site The allocation site
+   */
+  @NoInline
+  private void sampleSite(Address cell, int site) {
+    siteSampleCountdown = Gen.SITE_SAMPLE_INTERVAL;
+    if (Gen.isProfiledSite(site)) {
+      siteSamples.insert(cell, Address.fromIntZeroExtend(site + 1));
+    }
+  }
+
   @Override
   @Inline
   public void postAlloc(ObjectReference ref, ObjectReference typeRef,
       int bytes, int allocator) {
     if (allocator != Gen.ALLOC_NURSERY) {
       super.postAlloc(ref, typeRef, bytes, allocator);
+    } else if (Gen.USE_SITE_PRETENURING && !Gen.inNursery(ref)) {
+      postAllocPretenured(ref, typeRef, bytes);
     }
   }
 
+  /**
+   * Initialize an object allocated directly into the mature space on
+   * behalf of a pretenured site.
+   *
+   * @param ref The newly allocated object
+   * @param typeRef the type reference for the instance being created
+   * @param bytes The size of the space to be allocated (in bytes)
+   */
+  @NoInline
+  private void postAllocPretenured(ObjectReference ref, ObjectReference typeRef, int bytes) {
+    postAlloc(ref, typeRef, bytes, Gen.ALLOC_MATURE);
+    if (Gen.USE_OBJECT_BARRIER)
+      HeaderByte.markAsUnlogged(ref);
+  }
+
   @Override
   public Allocator getAllocatorFromSpace(Space space) {
     if (space == Gen.nurserySpace) return nursery;
@@ -135,12 +194,42 @@ import org.vmmagic.unboxed.*;
       }
     } else {
       if (!Gen.inNursery(slot) && Gen.inNursery(tgt)) {
-        if (Gen.GATHER_WRITE_BARRIER_STATS) Gen.wbSlow.inc();
-        remset.insert(slot);
+        if (mode == ARRAY_ELEMENT && USE_CARD_MARKING_FOR_AASTORE) {
+          if (!CardTable.isDirty(slot)) {
+            if (Gen.GATHER_WRITE_BARRIER_STATS) Gen.wbSlow.inc();
+            rememberCard(src, slot);
+          }
+        } else {
+          if (Gen.GATHER_WRITE_BARRIER_STATS) Gen.wbSlow.inc();
+          remset.insert(slot);
+        }
       }
     }
   }
 
+  /**
+   * Remember a store into a reference array by marking its card dirty,
+   * provided the card lies wholly within the elements of the array, so
+   * that every word of the card is a reference slot.  Stores into the
+   * partial cards at either end of the array are remembered individually.
+   *
+   * @param src The array into which the new reference will be stored
+   * @param slot The address into which the new reference will be
+   * stored.
+   */
+  @NoInline
+  private void rememberCard(ObjectReference src, Address slot) {
+    Address card = CardTable.align(slot);
+    Address elements = src.toAddress();
+    Address limit = elements.plus(VM.objectModel.getArrayLength(src) << LOG_BYTES_IN_ADDRESS);
+    if (card.GE(elements) && card.plus(CardTable.BYTES_IN_CARD).LE(limit)) {
+      CardTable.markDirty(card);
+      cardRemset.insert(card);
+    } else {
+      remset.insert(slot);
+    }
+  }
+
   /**
    * {@inheritDoc}<p>
    *
@@ -153,6 +242,7 @@ import org.vmmagic.unboxed.*;
   public final void objectReferenceWrite(ObjectReference src, Address slot,
       ObjectReference tgt, Word metaDataA,
       Word metaDataB, int mode) {
+    rememberMatureEdge(slot, tgt);
     fastPath(src, slot, tgt, mode);
     VM.barriers.objectReferenceWrite(src, tgt, metaDataA, metaDataB, mode);
   }
@@ -202,8 +292,10 @@ import org.vmmagic.unboxed.*;
   public boolean objectReferenceTryCompareAndSwap(ObjectReference src, Address slot, ObjectReference old, ObjectReference tgt,
       Word metaDataA, Word metaDataB, int mode) {
     boolean result = VM.barriers.objectReferenceTryCompareAndSwap(src, old, tgt, metaDataA, metaDataB, mode);
-    if (result)
+    if (result) {
+      rememberMatureEdge(slot, tgt);
       fastPath(src, slot, tgt, mode);
+    }
     return result;
   }
 
@@ -216,6 +308,7 @@ import org.vmmagic.unboxed.*;
   @Inline
   @Override
   public final boolean objectReferenceBulkCopy(ObjectReference src, Offset srcOffset, ObjectReference dst, Offset dstOffset, int bytes) {
+    rememberMatureEdges(src.toAddress().plus(srcOffset), dst.toAddress().plus(dstOffset), bytes);
     if (!Gen.inNursery(dst)) {
       Address start = dst.toAddress().plus(dstOffset);
       arrayRemset.insert(start, start.plus(bytes));
@@ -223,11 +316,37 @@ import org.vmmagic.unboxed.*;
     return false;
   }
 
+  /**
+   * Remember a slot whose new target lies in a part of the mature
+   * space which a subclass collects incrementally.  The default does
+   * nothing.
+   *
+   * @param slot The slot being written
+   * @param tgt The new target of the slot
+   */
+  @Inline
+  protected void rememberMatureEdge(Address slot, ObjectReference tgt) {
+  }
+
+  /**
+   * Remember those slots of a bulk copy destination whose new targets
+   * lie in a part of the mature space which a subclass collects
+   * incrementally.  The default does nothing.
+   *
+   * @param src The start of the source range
+   * @param dst The start of the destination range
+   * @param bytes The size of the range
+   */
+  @Inline
+  protected void rememberMatureEdges(Address src, Address dst, int bytes) {
+  }
+
   @Override
   public final void flushRememberedSets() {
     modbuf.flushLocal();
     remset.flushLocal();
     arrayRemset.flushLocal();
+    cardRemset.flushLocal();
     assertRemsetsFlushed();
   }
 
@@ -237,9 +356,16 @@ import org.vmmagic.unboxed.*;
       VM.assertions._assert(modbuf.isFlushed());
       VM.assertions._assert(remset.isFlushed());
       VM.assertions._assert(arrayRemset.isFlushed());
+      VM.assertions._assert(cardRemset.isFlushed());
     }
   }
 
+  @Override
+  public void flush() {
+    super.flush();
+    if (Gen.USE_SITE_PRETENURING) siteSamples.flushLocal();
+  }
+
   /****************************************************************************
    *
    * Collection
@@ -254,11 +380,13 @@ import org.vmmagic.unboxed.*;
 
     if (phaseId == Gen.PREPARE) {
       nursery.reset();
+      if (Gen.USE_SITE_PRETENURING) siteSamples.flushLocal();
       if (global().traceFullHeap()) {
         super.collectionPhase(phaseId, primary);
         modbuf.flushLocal();
         remset.flushLocal();
         arrayRemset.flushLocal();
+        cardRemset.flushLocal();
       } else {
         flushRememberedSets();
       }
@@ -16,6 +16,7 @@ import static org.mmtk.utility.Constants.BYTES_IN_ADDRESS;
 
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.Trace;
+import org.mmtk.utility.CardTable;
 import org.mmtk.utility.HeaderByte;
 import org.mmtk.utility.deque.*;
 import org.mmtk.vm.VM;
@@ -28,7 +29,7 @@ import org.vmmagic.unboxed.*;
  * closure over the heap graph.
  */
 @Uninterruptible
-public final class GenNurseryTraceLocal extends TraceLocal {
+public class GenNurseryTraceLocal extends TraceLocal {
 
   /****************************************************************************
    *
@@ -41,6 +42,9 @@ public final class GenNurseryTraceLocal extends TraceLocal {
   private final ObjectReferenceDeque modbuf;
   private final AddressDeque remset;
   private final AddressPairDeque arrayRemset;
+  private final AddressDeque cardRemset;
+  /** Remembers the mature slots referring to survivors */
+  private final GenSurvivorRemset survivorRemset;
 
   /**
    * @param trace the global trace class to use
@@ -51,6 +55,8 @@ public final class GenNurseryTraceLocal extends TraceLocal {
     this.modbuf = plan.modbuf;
     this.remset = plan.remset;
     this.arrayRemset = plan.arrayRemset;
+    this.cardRemset = plan.cardRemset;
+    this.survivorRemset = Gen.USE_SURVIVOR_SPACES ? new GenSurvivorRemset((Gen) VM.activePlan.global()) : null;
   }
 
   /****************************************************************************
@@ -65,7 +71,7 @@ public final class GenNurseryTraceLocal extends TraceLocal {
   public boolean isLive(ObjectReference object) {
     if (object.isNull()) return false;
     if (Gen.inNursery(object)) {
-      return Gen.nurserySpace.isLive(object);
+      return Gen.youngSpace(object).isReachable(object);
     }
     /* During a nursery trace, all objects not in the nursery are considered alive */
     return true;
@@ -75,11 +81,49 @@ public final class GenNurseryTraceLocal extends TraceLocal {
   @Inline
   public ObjectReference traceObject(ObjectReference object) {
     if (Gen.inNursery(object)) {
-      return Gen.nurserySpace.traceObject(this, object, Gen.ALLOC_MATURE_MINORGC);
+      return Gen.youngSpace(object).traceObject(this, object, Gen.nurseryCopyAllocator(object));
     }
     return object;
   }
 
+  /**
+   * {@inheritDoc}<p>
+   *
+   * When survivors are aged, the slots of mature objects which refer to
+   * survivors are remembered for the next nursery collection.
+   */
+  @Inline
+  @Override
+  protected void scanObject(ObjectReference object) {
+    super.scanObject(object);
+    if (Gen.USE_SURVIVOR_SPACES && !Gen.inNursery(object) && willNotMoveInCurrentCollection(object))
+      survivorRemset.scan(object);
+  }
+
+  /**
+   * Trace a remembered slot, remembering it again if it still refers
+   * to a survivor.
+   *
+   * @param slot The remembered slot
+   */
+  @Inline
+  private void processRememberedSlot(Address slot) {
+    processRootEdge(slot, false);
+    if (Gen.USE_SURVIVOR_SPACES && slotWillNotMove(slot))
+      survivorRemset.remember(slot, VM.activePlan.global().loadObjectReference(slot));
+  }
+
+  /**
+   * Return {@code true} if a slot outside the nursery is guaranteed not
+   * to move during this collection, and so may be remembered for the next.
+   *
+   * @param slot The slot
+   * @return {@code true} if the slot will not move
+   */
+  protected boolean slotWillNotMove(Address slot) {
+    return true;
+  }
+
   /**
    * Process any remembered set entries.
    */
@@ -97,7 +141,7 @@ public final class GenNurseryTraceLocal extends TraceLocal {
     while (!remset.isEmpty()) {
       Address loc = remset.pop();
       if (VM.DEBUG) VM.debugging.remsetEntry(loc);
-      processRootEdge(loc, false);
+      processRememberedSlot(loc);
     }
     logMessage(5, "processing array remset");
     arrayRemset.flushLocal();
@@ -106,10 +150,25 @@ public final class GenNurseryTraceLocal extends TraceLocal {
       Address guard = arrayRemset.pop2();
       if (VM.DEBUG) VM.debugging.arrayRemsetEntry(start,guard);
       while (start.LT(guard)) {
-        processRootEdge(start, false);
+        processRememberedSlot(start);
         start = start.plus(BYTES_IN_ADDRESS);
       }
     }
+    logMessage(5, "processing card remset");
+    while (!cardRemset.isEmpty()) {
+      Address card = cardRemset.pop();
+      CardTable.clean(card);
+      Address guard = card.plus(CardTable.BYTES_IN_CARD);
+      while (card.LT(guard)) {
+        processRememberedSlot(card);
+        card = card.plus(BYTES_IN_ADDRESS);
+      }
+    }
+    if (Gen.USE_SURVIVOR_SPACES) {
+      logMessage(5, "processing survivor remset");
+      while (!survivorRemset.isEmpty())
+        processRememberedSlot(survivorRemset.pop());
+    }
   }
 
   /**
@@ -124,4 +183,16 @@ public final class GenNurseryTraceLocal extends TraceLocal {
     return !Gen.inNursery(object);
   }
 
+  @Override
+  public void prepare() {
+    super.prepare();
+    if (Gen.USE_SURVIVOR_SPACES) survivorRemset.prepare();
+  }
+
+  @Override
+  public void release() {
+    super.release();
+    if (Gen.USE_SURVIVOR_SPACES) survivorRemset.flush();
+  }
+
 }
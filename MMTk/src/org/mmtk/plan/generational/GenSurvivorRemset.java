@@ -0,0 +1,117 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.generational;
+
+import org.mmtk.plan.TransitiveClosure;
+import org.mmtk.utility.deque.AddressDeque;
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * This class remembers those mature slots which refer to objects in the
+ * survivor spaces.  Survivors are not promoted, so the slots must be
+ * revisited by the next nursery collection, which evacuates the survivor
+ * space they refer to.  The slots are kept in one remembered set per
+ * survivor space: the set for the space being evacuated is consumed
+ * while the set for the destination space is filled.
+ */
+@Uninterruptible
+public final class GenSurvivorRemset extends TransitiveClosure {
+
+  /****************************************************************************
+   *
+   * Instance fields.
+   */
+
+  /** Slots referring to survivor space 0 and 1 respectively */
+  private final AddressDeque remset0;
+  private final AddressDeque remset1;
+
+  /** Slots referring to the survivor space being evacuated */
+  private AddressDeque fromRemset;
+  /** Slots referring to the survivor space receiving survivors */
+  private AddressDeque toRemset;
+
+  /**
+   * @param global The global generational plan
+   */
+  public GenSurvivorRemset(Gen global) {
+    remset0 = new AddressDeque("survivorRemset0", global.survivorRemsetPool0);
+    remset1 = new AddressDeque("survivorRemset1", global.survivorRemsetPool1);
+    fromRemset = remset1;
+    toRemset = remset0;
+  }
+
+  /**
+   * Select the remembered sets for this collection, once the survivor
+   * spaces have been flipped.
+   */
+  public void prepare() {
+    fromRemset = Gen.survivorHi ? remset0 : remset1;
+    toRemset = Gen.survivorHi ? remset1 : remset0;
+  }
+
+  /**
+   * @return {@code true} if no slots referring to the survivor space
+   * being evacuated remain
+   */
+  @Inline
+  public boolean isEmpty() {
+    return fromRemset.isEmpty();
+  }
+
+  /**
+   * @return The next slot referring to the survivor space being evacuated
+   */
+  @Inline
+  public Address pop() {
+    return fromRemset.pop();
+  }
+
+  /**
+   * Remember those slots of a mature object which refer to survivors.
+   *
+   * @param object The object to be scanned.
+   */
+  @Inline
+  public void scan(ObjectReference object) {
+    VM.scanning.scanObject(this, object);
+  }
+
+  @Override
+  @Inline
+  public void processEdge(ObjectReference source, Address slot) {
+    remember(slot, VM.activePlan.global().loadObjectReference(slot));
+  }
+
+  /**
+   * Remember a slot if its target lies in a survivor space.
+   *
+   * @param slot The slot
+   * @param target The current value of the slot
+   */
+  @Inline
+  public void remember(Address slot, ObjectReference target) {
+    if (Gen.inSurvivor(target))
+      toRemset.insert(slot);
+  }
+
+  /**
+   * Flush the remembered slots to the shared pool.
+   */
+  public void flush() {
+    toRemset.flushLocal();
+  }
+}
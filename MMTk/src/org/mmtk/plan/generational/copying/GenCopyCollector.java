@@ -81,7 +81,9 @@ public class GenCopyCollector extends GenCollector {
   @Inline
   public Address allocCopy(ObjectReference original, int bytes,
       int align, int offset, int allocator) {
-    if (allocator == Plan.ALLOC_LOS) {
+    if (Gen.USE_SURVIVOR_SPACES && allocator == Gen.ALLOC_SURVIVOR) {
+      return survivor.alloc(bytes, align, offset);
+    } else if (allocator == Plan.ALLOC_LOS) {
       if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Allocator.getMaximumAlignedSize(bytes, align) > Plan.MAX_NON_LOS_COPY_BYTES);
       return los.alloc(bytes, align, offset);
     } else {
@@ -103,6 +105,13 @@ public class GenCopyCollector extends GenCollector {
   @Inline
   public final void postCopy(ObjectReference object, ObjectReference typeRef,
       int bytes, int allocator) {
+    if (Gen.USE_SURVIVOR_SPACES) {
+      if (allocator == Gen.ALLOC_SURVIVOR) {
+        Gen.postCopySurvivor(object);
+        return;
+      }
+      Gen.clearAge(object);
+    }
     ForwardingWord.clearForwardingBits(object);
     if (allocator == Plan.ALLOC_LOS)
       Plan.loSpace.initializeHeader(object, false);
@@ -18,7 +18,9 @@ import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.policy.immix.ImmixSpace;
 import org.mmtk.policy.immix.ObjectHeader;
 import org.mmtk.policy.Space;
+import org.mmtk.utility.deque.SharedDeque;
 import org.mmtk.utility.heap.VMRequest;
+import org.mmtk.utility.options.Options;
 import org.vmmagic.pragma.*;
 import org.vmmagic.unboxed.*;
 
@@ -45,6 +47,12 @@ import org.vmmagic.unboxed.*;
  * collection and fast allocation." SP&amp;E 19(2):171--183, 1989.<p>
  *
  *
+ * When the <code>matureEvacuationBudget</code> option is set, each full heap
+ * collection selects the sparsest mature blocks as evacuation candidates and
+ * remembers every reference into them.  Subsequent nursery collections then
+ * evacuate those blocks a budgeted increment at a time, using the mature
+ * remembered set to find the references to update.<p>
+ *
  * For general comments about the global/local distinction among classes refer
  * to Plan.java and PlanLocal.java.
  */
@@ -57,7 +65,7 @@ public class GenImmix extends Gen {
    */
 
   /** The mature space, which for GenImmix uses a mark sweep collection policy. */
-  public static final ImmixSpace immixSpace = new ImmixSpace("immix", false, VMRequest.discontiguous());
+  public static final ImmixSpace immixSpace = new ImmixSpace("immix", false, VMRequest.discontiguous().withHugePages());
 
   public static final int IMMIX = immixSpace.getDescriptor();
 
@@ -73,6 +81,16 @@ public class GenImmix extends Gen {
   public final Trace matureTrace = new Trace(metaDataSpace);
   private boolean lastGCWasDefrag = false;
 
+  /**
+   * Remset pools for incremental evacuation
+   */
+
+  /**
+   *
+   */
+  public final SharedDeque matureRemsetPool = new SharedDeque("matureRemSets", metaDataSpace, 1);
+  public final SharedDeque retainedRemsetPool = new SharedDeque("retainedRemSets", metaDataSpace, 1);
+
   /*****************************************************************************
    *
    * Collection
@@ -86,6 +104,7 @@ public class GenImmix extends Gen {
   public final void collectionPhase(short phaseId) {
     if (phaseId == SET_COLLECTION_KIND) {
       super.collectionPhase(phaseId);
+      immixSpace.setEvacuationBudget(Options.matureEvacuationBudget.getPages());
       if (gcFullHeap) {
         immixSpace.decideWhetherToDefrag(emergencyCollection, true, collectionAttempt, userTriggeredCollection);
       }
@@ -97,6 +116,9 @@ public class GenImmix extends Gen {
         super.collectionPhase(phaseId);
         matureTrace.prepare();
         immixSpace.prepare(true);
+        // the full heap trace remembers references into the new candidates
+        matureRemsetPool.clearDeque(1);
+        retainedRemsetPool.clearDeque(1);
         return;
       }
 
@@ -111,9 +133,29 @@ public class GenImmix extends Gen {
         super.collectionPhase(phaseId);
         return;
       }
-    } else
+    } else {
       lastGCWasDefrag = false;
 
+      if (phaseId == PREPARE) {
+        super.collectionPhase(phaseId);
+        immixSpace.selectEvacuationSet();
+        // a nursery collection which evacuates mature blocks must treat references as a full heap collection would
+        gcMatureIncrement = immixSpace.inEvacuation();
+        return;
+      }
+
+      if (phaseId == RELEASE) {
+        super.collectionPhase(phaseId);
+        immixSpace.releaseEvacuationSet();
+        gcMatureIncrement = false;
+        if (!immixSpace.evacuationPending()) {
+          matureRemsetPool.clearDeque(1);
+          retainedRemsetPool.clearDeque(1);
+        }
+        return;
+      }
+    }
+
     super.collectionPhase(phaseId);
   }
 
@@ -144,7 +186,7 @@ public class GenImmix extends Gen {
 
   @Override
   public int getCollectionReserve() {
-    return super.getCollectionReserve() + immixSpace.defragHeadroomPages();
+    return super.getCollectionReserve() + immixSpace.defragHeadroomPages() + immixSpace.evacuationHeadroomPages();
   }
 
   /*****************************************************************************
@@ -152,6 +194,19 @@ public class GenImmix extends Gen {
    * Miscellaneous
    */
 
+  /**
+   * Return {@code true} if the object lies in a mature block awaiting
+   * incremental evacuation, in which case references to it must be
+   * remembered.
+   *
+   * @param object The object in question
+   * @return {@code true} if the object awaits evacuation
+   */
+  @Inline
+  static boolean awaitsEvacuation(ObjectReference object) {
+    return !object.isNull() && Space.isInSpace(IMMIX, object) && immixSpace.isEvacuationCandidate(object);
+  }
+
   /**
    * @return The active mature space
    */
@@ -165,6 +220,7 @@ public class GenImmix extends Gen {
   public boolean willNeverMove(ObjectReference object) {
     if (Space.isInSpace(IMMIX, object)) {
       ObjectHeader.pinObject(object);
+      immixSpace.retainIfPinned(object);
       return true;
     } else
       return super.willNeverMove(object);
@@ -176,6 +232,7 @@ public class GenImmix extends Gen {
     TransitiveClosure.registerSpecializedScan(SCAN_IMMIX, GenImmixMatureTraceLocal.class);
 //    TransitiveClosure.registerSpecializedScan(SCAN_DEFRAG, GenImmixMatureDefragTraceLocal.class);
     super.registerSpecializedMethods();
+    TransitiveClosure.registerSpecializedScan(SCAN_NURSERY, GenImmixNurseryTraceLocal.class);
   }
 
   @Override
@@ -13,6 +13,8 @@
 package org.mmtk.plan.generational.immix;
 
 import org.mmtk.plan.Plan;
+import org.mmtk.plan.Simple;
+import org.mmtk.plan.StopTheWorld;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.generational.*;
 import org.mmtk.policy.Space;
@@ -63,6 +65,21 @@ public class GenImmixCollector extends GenCollector {
   private final ImmixAllocator copy = new ImmixAllocator(GenImmix.immixSpace, true, false);
   private final ImmixAllocator defragCopy = new ImmixAllocator(GenImmix.immixSpace, true, true);
 
+  /****************************************************************************
+   *
+   * Initialization
+   */
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * Our nursery trace also evacuates mature blocks.
+   */
+  @Override
+  protected GenNurseryTraceLocal createNurseryTrace() {
+    return new GenImmixNurseryTraceLocal(global().nurseryTrace, this);
+  }
+
   /****************************************************************************
    *
    * Collection-time allocation
@@ -79,7 +96,9 @@ public class GenImmixCollector extends GenCollector {
     if (Stats.GATHER_MARK_CONS_STATS) {
       if (Space.isInSpace(GenImmix.NURSERY, original)) GenImmix.nurseryMark.inc(bytes);
     }
-    if (allocator == Plan.ALLOC_LOS) {
+    if (Gen.USE_SURVIVOR_SPACES && allocator == Gen.ALLOC_SURVIVOR) {
+      return survivor.alloc(bytes, align, offset);
+    } else if (allocator == Plan.ALLOC_LOS) {
       if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Allocator.getMaximumAlignedSize(bytes, align) > Plan.MAX_NON_LOS_COPY_BYTES);
       return los.alloc(bytes, align, offset);
     } else {
@@ -101,6 +120,13 @@ public class GenImmixCollector extends GenCollector {
   @Inline
   public final void postCopy(ObjectReference object, ObjectReference typeRef,
       int bytes, int allocator) {
+    if (Gen.USE_SURVIVOR_SPACES) {
+      if (allocator == Gen.ALLOC_SURVIVOR) {
+        Gen.postCopySurvivor(object);
+        return;
+      }
+      Gen.clearAge(object);
+    }
     if (allocator == Plan.ALLOC_LOS)
       Plan.loSpace.initializeHeader(object, false);
     else {
@@ -127,6 +153,27 @@ public class GenImmixCollector extends GenCollector {
   public void collectionPhase(short phaseId, boolean primary) {
     TraceLocal trace = GenImmix.immixSpace.inImmixDefragCollection() ? defragTrace : matureTrace;
 
+    if (phaseId == GenImmix.PREPARE) {
+      global().matureRemsetPool.prepareNonBlocking();
+      global().retainedRemsetPool.prepareNonBlocking();
+    }
+
+    if (GenImmix.immixSpace.inEvacuation()) {
+      /* The mature remset covers the heap, but every other root must be scanned in full */
+      if (phaseId == Simple.STACK_ROOTS) {
+        VM.scanning.computeThreadRoots(getCurrentTrace());
+        return;
+      }
+      if (phaseId == StopTheWorld.ROOTS) {
+        VM.scanning.computeGlobalRoots(getCurrentTrace());
+        VM.scanning.computeStaticRoots(getCurrentTrace());
+        if (Plan.SCAN_BOOT_IMAGE) {
+          VM.scanning.computeBootImageRoots(getCurrentTrace());
+        }
+        return;
+      }
+    }
+
     if (global().traceFullHeap()) {
       if (phaseId == GenImmix.PREPARE) {
         super.collectionPhase(phaseId, primary);
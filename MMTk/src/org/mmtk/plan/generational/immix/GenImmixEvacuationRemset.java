@@ -0,0 +1,81 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.generational.immix;
+
+import org.mmtk.plan.TransitiveClosure;
+import org.mmtk.utility.deque.AddressDeque;
+import org.mmtk.utility.deque.SharedDeque;
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * This class remembers those slots of scanned objects which refer to
+ * mature blocks awaiting incremental evacuation.  The remembered slots
+ * are revisited by the nursery collection which evacuates the block.
+ */
+@Uninterruptible
+public final class GenImmixEvacuationRemset extends TransitiveClosure {
+
+  /****************************************************************************
+   *
+   * Instance fields.
+   */
+
+  /** The slots referring to blocks awaiting evacuation */
+  private final AddressDeque remset;
+
+  /**
+   * @param pool The shared pool into which remembered slots are flushed
+   */
+  public GenImmixEvacuationRemset(SharedDeque pool) {
+    remset = new AddressDeque("evacuationRemset", pool);
+  }
+
+  /**
+   * Remember those slots of an object which refer to blocks awaiting
+   * evacuation.
+   *
+   * @param object The object to be scanned.
+   */
+  @Inline
+  public void scan(ObjectReference object) {
+    VM.scanning.scanObject(this, object);
+  }
+
+  @Override
+  @Inline
+  public void processEdge(ObjectReference source, Address slot) {
+    remember(slot, VM.activePlan.global().loadObjectReference(slot));
+  }
+
+  /**
+   * Remember a slot if its target lies in a block awaiting evacuation.
+   *
+   * @param slot The slot
+   * @param target The current value of the slot
+   */
+  @Inline
+  public void remember(Address slot, ObjectReference target) {
+    if (GenImmix.awaitsEvacuation(target))
+      remset.insert(slot);
+  }
+
+  /**
+   * Flush the remembered slots to the shared pool.
+   */
+  public void flush() {
+    remset.flushLocal();
+  }
+}
@@ -18,6 +18,7 @@ import org.mmtk.plan.generational.GenCollector;
 import org.mmtk.plan.generational.GenMatureTraceLocal;
 import org.mmtk.plan.Trace;
 import org.mmtk.policy.Space;
+import org.mmtk.vm.VM;
 
 import org.vmmagic.unboxed.*;
 import org.vmmagic.pragma.*;
@@ -30,12 +31,16 @@ import org.vmmagic.pragma.*;
 @Uninterruptible
 public final class GenImmixMatureTraceLocal extends GenMatureTraceLocal{
 
+  /** Remembers every slot which refers to a block awaiting evacuation */
+  private final GenImmixEvacuationRemset evacuationRemset;
+
   /**
    * @param global the global trace class to use
    * @param plan the state of the generational collector
    */
   public GenImmixMatureTraceLocal(Trace global, GenCollector plan) {
     super(GenImmix.SCAN_IMMIX, global, plan);
+    evacuationRemset = new GenImmixEvacuationRemset(((GenImmix) VM.activePlan.global()).matureRemsetPool);
   }
 
   @Override
@@ -72,5 +77,16 @@ public final class GenImmixMatureTraceLocal extends GenMatureTraceLocal{
     super.scanObject(object);
     if (MARK_LINE_AT_SCAN_TIME && Space.isInSpace(GenImmix.IMMIX, object))
       GenImmix.immixSpace.markLines(object);
+    if (GenImmix.immixSpace.evacuationPending()) {
+      if (Space.isInSpace(GenImmix.IMMIX, object))
+        GenImmix.immixSpace.retainIfPinned(object);
+      evacuationRemset.scan(object);
+    }
+  }
+
+  @Override
+  public void release() {
+    super.release();
+    evacuationRemset.flush();
   }
 }
@@ -12,10 +12,13 @@
  */
 package org.mmtk.plan.generational.immix;
 
+import static org.mmtk.utility.Constants.BYTES_IN_ADDRESS;
+
 import org.mmtk.plan.generational.*;
 import org.mmtk.policy.Space;
 import org.mmtk.policy.immix.MutatorLocal;
 import org.mmtk.utility.alloc.Allocator;
+import org.mmtk.utility.deque.WriteBuffer;
 
 import org.mmtk.vm.VM;
 
@@ -56,6 +59,8 @@ public class GenImmixMutator extends GenMutator {
    */
   private final MutatorLocal mature;
 
+  /** Remember slots referring to mature blocks awaiting evacuation */
+  private final WriteBuffer matureRemset;
 
   /****************************************************************************
    *
@@ -67,6 +72,7 @@ public class GenImmixMutator extends GenMutator {
    */
   public GenImmixMutator() {
     mature = new MutatorLocal(GenImmix.immixSpace, false);
+    matureRemset = new WriteBuffer(global().matureRemsetPool);
   }
 
   /****************************************************************************
@@ -81,7 +87,7 @@ public class GenImmixMutator extends GenMutator {
   @Inline
   public final Address alloc(int bytes, int align, int offset, int allocator, int site) {
     if (allocator == GenImmix.ALLOC_MATURE) {
-      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(false); // no pretenuring yet
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Gen.USE_SITE_PRETENURING);
       return mature.alloc(bytes, align, offset);
     }
     return super.alloc(bytes, align, offset, allocator, site);
@@ -92,7 +98,8 @@ public class GenImmixMutator extends GenMutator {
   public final void postAlloc(ObjectReference ref, ObjectReference typeRef,
       int bytes, int allocator) {
     if (allocator == GenImmix.ALLOC_MATURE) {
-      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(false); // no pretenuring yet
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Gen.USE_SITE_PRETENURING);
+      GenImmix.immixSpace.postAlloc(ref, bytes);
     } else {
       super.postAlloc(ref, typeRef, bytes, allocator);
     }
@@ -104,6 +111,77 @@ public class GenImmixMutator extends GenMutator {
     return super.getAllocatorFromSpace(space);
   }
 
+  /****************************************************************************
+   *
+   * Barriers
+   */
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * While mature blocks await evacuation, we remember the slot if the
+   * new reference points into one of them.
+   */
+  @Override
+  @Inline
+  protected final void rememberMatureEdge(Address slot, ObjectReference tgt) {
+    if (GenImmix.immixSpace.evacuationPending())
+      rememberEvacuationEdge(slot, tgt);
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * While mature blocks await evacuation, we remember each destination
+   * slot which will point into one of them.
+   */
+  @Override
+  @Inline
+  protected final void rememberMatureEdges(Address src, Address dst, int bytes) {
+    if (GenImmix.immixSpace.evacuationPending())
+      rememberEvacuationEdges(src, dst, bytes);
+  }
+
+  /**
+   * Remember a slot outside the nursery if its new target awaits
+   * evacuation.  Nursery objects are scanned when they are promoted,
+   * so their slots need not be remembered.
+   *
+   * @param slot The slot being written
+   * @param tgt The new target of the slot
+   */
+  @NoInline
+  private void rememberEvacuationEdge(Address slot, ObjectReference tgt) {
+    if (GenImmix.awaitsEvacuation(tgt) && !Gen.inNursery(slot))
+      matureRemset.insert(slot);
+  }
+
+  /**
+   * Remember those slots of a bulk copy destination which will point
+   * to objects awaiting evacuation.
+   *
+   * @param src The start of the source range
+   * @param dst The start of the destination range
+   * @param bytes The size of the range
+   */
+  @NoInline
+  private void rememberEvacuationEdges(Address src, Address dst, int bytes) {
+    if (Gen.inNursery(dst)) return;
+    Address guard = src.plus(bytes);
+    while (src.LT(guard)) {
+      if (GenImmix.awaitsEvacuation(src.loadObjectReference()))
+        matureRemset.insert(dst);
+      src = src.plus(BYTES_IN_ADDRESS);
+      dst = dst.plus(BYTES_IN_ADDRESS);
+    }
+  }
+
+  @Override
+  public void flush() {
+    super.flush();
+    matureRemset.flushLocal();
+  }
+
   /*****************************************************************************
    *
    * Collection
@@ -115,6 +193,14 @@ public class GenImmixMutator extends GenMutator {
   @Override
   @NoInline
   public void collectionPhase(short phaseId, boolean primary) {
+    if (phaseId == GenImmix.PREPARE) {
+      matureRemset.flushLocal();
+    }
+
+    if (phaseId == GenImmix.RELEASE) {
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(matureRemset.isFlushed());
+    }
+
     if (global().traceFullHeap()) {
       if (phaseId == GenImmix.PREPARE) {
         super.collectionPhase(phaseId, primary);
@@ -0,0 +1,150 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.generational.immix;
+
+import org.mmtk.plan.Trace;
+import org.mmtk.plan.generational.Gen;
+import org.mmtk.plan.generational.GenCollector;
+import org.mmtk.plan.generational.GenNurseryTraceLocal;
+import org.mmtk.policy.Space;
+import org.mmtk.utility.deque.AddressDeque;
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * This class implements the core functionality for a nursery collection
+ * in a generational immix collector.  In addition to the nursery, such a
+ * collection may evacuate a set of sparse mature blocks, in which case
+ * the mature remembered set supplies every heap reference into them.
+ */
+@Uninterruptible
+public final class GenImmixNurseryTraceLocal extends GenNurseryTraceLocal {
+
+  /****************************************************************************
+   *
+   * Instance fields.
+   */
+
+  /** Slots which referred to blocks awaiting evacuation */
+  private final AddressDeque matureRemset;
+  /** Slots which still refer to blocks awaiting a later increment */
+  private final AddressDeque retainedRemset;
+  /** Remembers the slots of scanned objects into blocks awaiting evacuation */
+  private final GenImmixEvacuationRemset remembering;
+
+  /**
+   * @param trace the global trace class to use
+   * @param plan the state of the generational collector
+   */
+  public GenImmixNurseryTraceLocal(Trace trace, GenCollector plan) {
+    super(trace, plan);
+    GenImmix global = (GenImmix) VM.activePlan.global();
+    matureRemset = new AddressDeque("matureRemset", global.matureRemsetPool);
+    retainedRemset = new AddressDeque("retainedRemset", global.retainedRemsetPool);
+    remembering = new GenImmixEvacuationRemset(global.matureRemsetPool);
+  }
+
+  /****************************************************************************
+   *
+   * Externally visible Object processing and tracing
+   */
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isLive(ObjectReference object) {
+    if (object.isNull()) return false;
+    if (Space.isInSpace(GenImmix.IMMIX, object)) {
+      return GenImmix.immixSpace.evacuationIsLive(object);
+    }
+    return super.isLive(object);
+  }
+
+  @Override
+  @Inline
+  public ObjectReference traceObject(ObjectReference object) {
+    if (!object.isNull() && Space.isInSpace(GenImmix.IMMIX, object)) {
+      return GenImmix.immixSpace.evacuateObject(this, object, GenImmix.ALLOC_MATURE_MINORGC);
+    }
+    return super.traceObject(object);
+  }
+
+  @Override
+  public boolean willNotMoveInCurrentCollection(ObjectReference object) {
+    if (object.isNull()) return false;
+    if (Space.isInSpace(GenImmix.IMMIX, object)) {
+      return !GenImmix.immixSpace.isInEvacuationSet(object);
+    }
+    return super.willNotMoveInCurrentCollection(object);
+  }
+
+  @Override
+  protected boolean slotWillNotMove(Address slot) {
+    return !(Space.isInSpace(GenImmix.IMMIX, slot) && GenImmix.immixSpace.isInEvacuationSet(slot));
+  }
+
+  @Inline
+  @Override
+  protected void scanObject(ObjectReference object) {
+    super.scanObject(object);
+    if (GenImmix.immixSpace.evacuationPending() && !Gen.inNursery(object))
+      remembering.scan(object);
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * When blocks are being evacuated, we also process the mature
+   * remembered set.  Slots within the evacuated blocks are dropped,
+   * slots referring to them are traced, and slots referring to blocks
+   * awaiting a later increment are retained.
+   */
+  @Override
+  @Inline
+  protected void processRememberedSets() {
+    super.processRememberedSets();
+    if (!GenImmix.immixSpace.inEvacuation()) return;
+    logMessage(5, "processing mature remset");
+    while (!matureRemset.isEmpty()) {
+      Address slot = matureRemset.pop();
+      if (Space.isInSpace(GenImmix.IMMIX, slot) && GenImmix.immixSpace.isInEvacuationSet(slot))
+        continue;
+      ObjectReference target = VM.activePlan.global().loadObjectReference(slot);
+      if (target.isNull() || !Space.isInSpace(GenImmix.IMMIX, target))
+        continue;
+      if (GenImmix.immixSpace.isInEvacuationSet(target)) {
+        processRootEdge(slot, false);
+      } else if (GenImmix.immixSpace.isEvacuationCandidate(target)) {
+        retainedRemset.push(slot);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * Retained slots are returned to the mature remembered set for the
+   * next increment.
+   */
+  @Override
+  public void release() {
+    super.release();
+    while (!retainedRemset.isEmpty())
+      matureRemset.push(retainedRemset.pop());
+    matureRemset.flushLocal();
+    remembering.flush();
+  }
+}
@@ -0,0 +1,27 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.generational.immix.useCardMarking;
+
+import org.mmtk.plan.generational.immix.GenImmix;
+
+import org.vmmagic.pragma.*;
+
+/**
+ * This class exercises card marking: a GenImmix collector which
+ * remembers stores into reference arrays by marking cards rather than
+ * by logging each slot.
+ */
+@Uninterruptible
+public class UseCardMarking extends GenImmix {
+
+}
@@ -0,0 +1,29 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.generational.immix.useSitePretenuring;
+
+import org.mmtk.plan.generational.immix.GenImmixConstraints;
+
+import org.vmmagic.pragma.*;
+
+/**
+ * UseSitePretenuring common constants.
+ */
+@Uninterruptible
+public class UseSitePretenuringConstraints extends GenImmixConstraints {
+
+  @Override
+  public boolean sitePretenuring() {
+    return true;
+  }
+}
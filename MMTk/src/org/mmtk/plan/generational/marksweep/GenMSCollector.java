@@ -79,7 +79,9 @@ public class GenMSCollector extends GenCollector {
       if (Space.isInSpace(GenMS.NURSERY, original)) GenMS.nurseryMark.inc(bytes);
     }
 
-    if (allocator == Plan.ALLOC_LOS) {
+    if (Gen.USE_SURVIVOR_SPACES && allocator == Gen.ALLOC_SURVIVOR) {
+      return survivor.alloc(bytes, align, offset);
+    } else if (allocator == Plan.ALLOC_LOS) {
       if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Allocator.getMaximumAlignedSize(bytes, align) > Plan.MAX_NON_LOS_COPY_BYTES);
       return los.alloc(bytes, align, offset);
     } else {
@@ -96,6 +98,13 @@ public class GenMSCollector extends GenCollector {
   @Override
   public final void postCopy(ObjectReference object, ObjectReference typeRef,
                              int bytes, int allocator) {
+    if (Gen.USE_SURVIVOR_SPACES) {
+      if (allocator == Gen.ALLOC_SURVIVOR) {
+        Gen.postCopySurvivor(object);
+        return;
+      }
+      Gen.clearAge(object);
+    }
     if (allocator == Plan.ALLOC_LOS)
       Plan.loSpace.initializeHeader(object, false);
     else
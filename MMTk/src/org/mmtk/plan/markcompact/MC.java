@@ -17,6 +17,7 @@ import org.mmtk.policy.MarkCompactSpace;
 import org.mmtk.policy.Space;
 import org.mmtk.utility.heap.VMRequest;
 import org.mmtk.utility.sanitychecker.SanityChecker;
+import org.mmtk.vm.VM;
 
 import org.vmmagic.pragma.*;
 import org.vmmagic.unboxed.ObjectReference;
@@ -83,6 +84,7 @@ import org.vmmagic.unboxed.ObjectReference;
       Phase.scheduleComplex  (rootClosurePhase),
       Phase.scheduleComplex  (refTypeClosurePhase),
       Phase.scheduleComplex  (completeClosurePhase),
+      Phase.scheduleGlobal   (CALCULATE_FP),
       Phase.scheduleCollector(CALCULATE_FP),
       Phase.scheduleGlobal   (PREPARE_FORWARD),
       Phase.scheduleCollector(PREPARE_FORWARD),
@@ -148,6 +150,11 @@ import org.vmmagic.unboxed.ObjectReference;
       return;
     }
 
+    if (phaseId == CALCULATE_FP) {
+      mcSpace.partitionRegions(VM.activePlan.collector().parallelWorkerCount());
+      return;
+    }
+
     if (phaseId == PREPARE_FORWARD) {
       super.collectionPhase(PREPARE);
       forwardTrace.prepare();
@@ -200,6 +207,12 @@ import org.vmmagic.unboxed.ObjectReference;
     return super.sanityExpectedRC(object, sanityRootRC);
   }
 
+  @Override
+  @Interruptible
+  protected void preCollectorSpawn() {
+    mcSpace.initializePartitions();
+  }
+
   @Override
   @Interruptible
   protected void registerSpecializedMethods() {
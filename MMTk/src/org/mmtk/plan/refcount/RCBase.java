@@ -16,14 +16,21 @@ import org.mmtk.plan.Phase;
 import org.mmtk.plan.StopTheWorld;
 import org.mmtk.plan.Trace;
 import org.mmtk.plan.refcount.backuptrace.BTFreeLargeObjectSweeper;
+import org.mmtk.plan.refcount.backuptrace.BTGarbageLargeObjectScanner;
+import org.mmtk.plan.refcount.backuptrace.BTGarbageScanner;
+import org.mmtk.plan.refcount.backuptrace.BTReleaseBuffer;
 import org.mmtk.plan.refcount.backuptrace.BTSweeper;
 import org.mmtk.policy.ExplicitFreeListSpace;
 import org.mmtk.policy.ExplicitLargeObjectSpace;
 import org.mmtk.policy.Space;
+import org.mmtk.policy.immix.ImmixSpace;
 import org.mmtk.utility.Log;
 import org.mmtk.utility.alloc.LinearScan;
+import org.mmtk.utility.deque.ObjectReferenceDeque;
 import org.mmtk.utility.deque.SharedDeque;
 import org.mmtk.utility.heap.VMRequest;
+import org.mmtk.utility.options.CycleMetaDataLimit;
+import org.mmtk.utility.options.CycleTraceIncrement;
 import org.mmtk.utility.options.Options;
 import org.mmtk.utility.sanitychecker.SanityChecker;
 import org.mmtk.vm.VM;
@@ -55,9 +62,21 @@ public class RCBase extends StopTheWorld {
   public static boolean performCycleCollection;
   public static final short BT_CLOSURE             = Phase.createSimple("closure-bt");
 
+  /** Spread the backup trace over several collections (generational RC only)? */
+  public static boolean ccIncremental;
+  /** Is an incremental backup trace under way? */
+  public static boolean ccTracing;
+  /** Does an incremental backup trace begin in this collection? */
+  public static boolean ccStartTrace;
+  /** Must the incremental backup trace be completed in this collection? */
+  public static boolean ccFinishTrace;
+
   /** True if we are building for generational RC */
   public static final boolean BUILD_FOR_GENRC = ((RCBaseConstraints) VM.activePlan.constraints()).buildForGenRC();
 
+  /** True if we are building for RC-Immix, which counts references over immix lines */
+  public static final boolean BUILD_FOR_RCIMMIX = VM.activePlan.constraints().needsLineLiveCounts();
+
   // CHECKSTYLE:OFF
 
   /**
@@ -149,10 +168,17 @@ public class RCBase extends StopTheWorld {
   public static final int REF_COUNT = rcSpace.getDescriptor();
   public static final int REF_COUNT_LOS = rcloSpace.getDescriptor();
 
+  /** RC-Immix allocates (and copies) all movable objects into this space */
+  public static final ImmixSpace rcImmixSpace = BUILD_FOR_RCIMMIX ? new ImmixSpace("rcimmix", VMRequest.discontiguous()) : null;
+  public static final int REF_COUNT_IMMIX = BUILD_FOR_RCIMMIX ? rcImmixSpace.getDescriptor() : 0;
+
   public final SharedDeque modPool = new SharedDeque("mod", metaDataSpace, 1);
   public final SharedDeque decPool = new SharedDeque("dec", metaDataSpace, 1);
   public final SharedDeque newRootPool = new SharedDeque("newRoot", metaDataSpace, 1);
   public final SharedDeque oldRootPool = new SharedDeque("oldRoot", metaDataSpace, 1);
+  public final SharedDeque immixMarkedPool = new SharedDeque("immixMarked", metaDataSpace, 1);
+  /** Objects which died while an incremental backup trace was under way, and are yet to be freed */
+  public final SharedDeque ccDeferredPool = new SharedDeque("ccDeferred", metaDataSpace, 1);
 
   /*****************************************************************************
    *
@@ -166,6 +192,18 @@ public class RCBase extends StopTheWorld {
   public final Trace backupTrace;
   private final BTSweeper rcSweeper;
   private final BTFreeLargeObjectSweeper loFreeSweeper;
+  private final BTReleaseBuffer ccRelease;
+  private final BTGarbageScanner ccGarbageScanner;
+  private final BTGarbageLargeObjectScanner ccLoGarbageScanner;
+  private final ObjectReferenceDeque ccDeferred;
+
+  /*
+   * Class initializer
+   */
+  static {
+    Options.cycleMetaDataLimit = new CycleMetaDataLimit();
+    Options.cycleTraceIncrement = new CycleTraceIncrement();
+  }
 
   /**
    * Constructor
@@ -177,6 +215,10 @@ public class RCBase extends StopTheWorld {
     backupTrace = new Trace(metaDataSpace);
     rcSweeper = new BTSweeper();
     loFreeSweeper = new BTFreeLargeObjectSweeper();
+    ccRelease = new BTReleaseBuffer(decPool);
+    ccGarbageScanner = new BTGarbageScanner(ccRelease);
+    ccLoGarbageScanner = new BTGarbageLargeObjectScanner(ccRelease);
+    ccDeferred = new ObjectReferenceDeque("cc-deferred", ccDeferredPool);
   }
 
   @Override
@@ -189,6 +231,7 @@ public class RCBase extends StopTheWorld {
     if (!Options.noFinalizer.getValue()) {
       VM.assertions.fail("Finalizers are not supported by RC");
     }
+    ccIncremental = BUILD_FOR_GENRC && !BUILD_FOR_RCIMMIX && Options.cycleTraceIncrement.getValue() > 0;
   }
 
   /*****************************************************************************
@@ -201,12 +244,13 @@ public class RCBase extends StopTheWorld {
    * @return whether the object is subject to collection by reference counting
    */
   public static final boolean isRCObject(ObjectReference object) {
-    return !object.isNull() && (Space.isInSpace(REF_COUNT, object) || Space.isInSpace(REF_COUNT_LOS, object));
+    return !object.isNull() && (Space.isInSpace(REF_COUNT, object) || Space.isInSpace(REF_COUNT_LOS, object) ||
+        (BUILD_FOR_RCIMMIX && Space.isInSpace(REF_COUNT_IMMIX, object)));
   }
 
   @Override
   public boolean lastCollectionFullHeap() {
-    return performCycleCollection;
+    return performCycleCollection || ccFinishTrace;
   }
 
   @Override
@@ -217,7 +261,18 @@ public class RCBase extends StopTheWorld {
         ccForceFull = Options.fullHeapSystemGC.getValue();
         if (BUILD_FOR_GENRC) performCycleCollection = (collectionAttempt > 1) || emergencyCollection || ccForceFull;
         else performCycleCollection |= (collectionAttempt > 1) || emergencyCollection || ccForceFull;
-        if (performCycleCollection && Options.verbose.getValue() > 0) Log.write(" [CC] ");
+        ccStartTrace = false;
+        ccFinishTrace = false;
+        if (ccIncremental) {
+          if (ccTracing) {
+            /* Marks already made must stand, so finish the trace under way rather than start afresh */
+            ccFinishTrace = performCycleCollection;
+            performCycleCollection = false;
+          } else if (!performCycleCollection) {
+            ccStartTrace = getPagesAvail() < Options.cycleTriggerThreshold.getPages();
+          }
+        }
+        if ((performCycleCollection || ccFinishTrace) && Options.verbose.getValue() > 0) Log.write(" [CC] ");
       }
       return;
     }
@@ -244,6 +299,14 @@ public class RCBase extends StopTheWorld {
     if (phaseId == BT_CLOSURE) {
       if (CC_BACKUP_TRACE && performCycleCollection) {
         backupTrace.prepare();
+        if (BUILD_FOR_RCIMMIX) immixMarkedPool.prepare();
+      } else if (ccStartTrace || ccTracing) {
+        if (backupTrace.enqueuedPages() + ccDeferredPool.enqueuedPages() > Options.cycleMetaDataLimit.getPages()) {
+          ccFinishTrace = true;
+        }
+        /* A single collector advances the trace by an increment unless it must be finished now */
+        if (ccFinishTrace) backupTrace.prepare();
+        else backupTrace.prepareNonBlocking();
       }
       return;
     }
@@ -275,7 +338,12 @@ public class RCBase extends StopTheWorld {
         backupTrace.release();
         rcSpace.sweepCells(rcSweeper);
         rcloSpace.sweep(loFreeSweeper);
+      } else if ((ccStartTrace || ccTracing) && !backupTrace.hasWork()) {
+        ccTracing = false;
+        backupTrace.release();
+        releaseCycles();
       } else {
+        ccTracing |= ccStartTrace;
         rcSpace.release();
       }
       if (!BUILD_FOR_GENRC) performCycleCollection = getPagesAvail() < Options.cycleTriggerThreshold.getPages();
@@ -285,6 +353,34 @@ public class RCBase extends StopTheWorld {
     super.collectionPhase(phaseId);
   }
 
+  /**
+   * Free the garbage found by a completed incremental backup trace.
+   * Counts were not recomputed by the trace, so before anything is freed
+   * the live referents of each unmarked object are decremented.  Objects
+   * whose counts fell to zero while the trace was under way may have been
+   * queued for scanning, so were kept until now.  All survivors are
+   * marked, and the final sweep clears their marks.
+   */
+  private void releaseCycles() {
+    rcSpace.sweepCells(ccGarbageScanner);
+    rcloSpace.sweep(ccLoGarbageScanner);
+    ccRelease.flushLocal();
+    ccDeferredPool.prepareNonBlocking();
+    ObjectReference current;
+    while (!(current = ccDeferred.pop()).isNull()) {
+      RCHeader.clearMarked(current);
+      if (Space.isInSpace(REF_COUNT, current)) {
+        rcSpace.free(current);
+      } else {
+        rcloSpace.free(current);
+      }
+    }
+    ccDeferredPool.reset();
+    rcSpace.prepare();
+    rcSpace.sweepCells(rcSweeper);
+    rcloSpace.sweep(loFreeSweeper);
+  }
+
   /*****************************************************************************
    *
    * Accounting
@@ -16,10 +16,12 @@ import org.mmtk.plan.Phase;
 import org.mmtk.plan.StopTheWorldCollector;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.TransitiveClosure;
+import org.mmtk.plan.refcount.backuptrace.BTIncrementalTraceLocal;
 import org.mmtk.plan.refcount.backuptrace.BTTraceLocal;
 import org.mmtk.policy.Space;
 import org.mmtk.policy.ExplicitFreeListSpace;
 import org.mmtk.utility.deque.ObjectReferenceDeque;
+import org.mmtk.utility.options.Options;
 import org.mmtk.vm.VM;
 import org.vmmagic.pragma.Inline;
 import org.vmmagic.pragma.Uninterruptible;
@@ -44,6 +46,8 @@ public abstract class RCBaseCollector extends StopTheWorldCollector {
    */
   protected final ObjectReferenceDeque newRootBuffer;
   private final BTTraceLocal backupTrace;
+  private final BTIncrementalTraceLocal incrementalTrace;
+  private final ObjectReferenceDeque ccDeferred;
   private final ObjectReferenceDeque modBuffer;
   private final ObjectReferenceDeque oldRootBuffer;
   private final RCDecBuffer decBuffer;
@@ -57,7 +61,9 @@ public abstract class RCBaseCollector extends StopTheWorldCollector {
     oldRootBuffer = new ObjectReferenceDeque("old-root", global().oldRootPool);
     modBuffer = new ObjectReferenceDeque("mod buf", global().modPool);
     decBuffer = new RCDecBuffer(global().decPool);
-    backupTrace = new BTTraceLocal(global().backupTrace);
+    backupTrace = new BTTraceLocal(global().backupTrace, global().immixMarkedPool);
+    incrementalTrace = new BTIncrementalTraceLocal(global().backupTrace);
+    ccDeferred = new ObjectReferenceDeque("cc-deferred", global().ccDeferredPool);
     zero = new RCZero();
   }
 
@@ -102,6 +108,14 @@ public abstract class RCBaseCollector extends StopTheWorldCollector {
     if (phaseId == RCBase.BT_CLOSURE) {
       if (RCBase.CC_BACKUP_TRACE && RCBase.performCycleCollection) {
         backupTrace.completeTrace();
+        if (RCBase.BUILD_FOR_RCIMMIX) backupTrace.flushImmixMarked();
+      } else if (RCBase.ccStartTrace || RCBase.ccTracing) {
+        if (RCBase.ccFinishTrace) {
+          incrementalTrace.completeTrace();
+        } else if (primary) {
+          incrementalTrace.incrementalTrace(Options.cycleTraceIncrement.getValue());
+        }
+        incrementalTrace.flush();
       }
       return;
     }
@@ -127,6 +141,7 @@ public abstract class RCBaseCollector extends StopTheWorldCollector {
                 modBuffer.push(current);
               }
             }
+            backupTrace.retain(current);
             backupTrace.processNode(current);
           } else {
             if (RCBase.BUILD_FOR_GENRC) {
@@ -150,8 +165,10 @@ public abstract class RCBaseCollector extends StopTheWorldCollector {
           }
         }
         oldRootBuffer.push(current);
+        if (RCBase.ccStartTrace) incrementalTrace.traceObject(current);
       }
       oldRootBuffer.flushLocal();
+      if (RCBase.ccStartTrace) incrementalTrace.flush();
       if (!RCBase.BUILD_FOR_GENRC) modBuffer.flushLocal();
       return;
     }
@@ -190,12 +207,19 @@ public abstract class RCBaseCollector extends StopTheWorldCollector {
       }
       while (!(current = decBuffer.pop()).isNull()) {
         if (RCBase.BUILD_FOR_GENRC) {
+          /* While tracing incrementally, the overwritten referents logged by the barrier form the snapshot's deletions */
+          if (RCBase.ccTracing) incrementalTrace.traceObject(current);
           if (RCHeader.decRC(current) == RCHeader.DEC_KILL) {
             decBuffer.processChildren(current);
-            if (Space.isInSpace(RCBase.REF_COUNT, current)) {
+            if (RCBase.ccTracing && !Space.isInSpace(RCBase.IMMORTAL, current)) {
+              /* The object may be queued for scanning, so is freed when the trace is complete */
+              ccDeferred.push(current);
+            } else if (Space.isInSpace(RCBase.REF_COUNT, current)) {
               RCBase.rcSpace.free(current);
             } else if (Space.isInSpace(RCBase.REF_COUNT_LOS, current)) {
               RCBase.rcloSpace.free(current);
+            } else if (RCBase.BUILD_FOR_RCIMMIX && Space.isInSpace(RCBase.REF_COUNT_IMMIX, current)) {
+              RCBase.rcImmixSpace.decLineLiveCounts(current);
             } else if (Space.isInSpace(RCBase.IMMORTAL, current)) {
               VM.scanning.scanObject(zero, current);
             }
@@ -223,12 +247,17 @@ public abstract class RCBaseCollector extends StopTheWorldCollector {
           }
         }
       }
+      if (RCBase.ccTracing) {
+        incrementalTrace.flush();
+        ccDeferred.flushLocal();
+      }
       return;
     }
 
     if (phaseId == RCBase.RELEASE) {
       if (RCBase.CC_BACKUP_TRACE && RCBase.performCycleCollection) {
         backupTrace.release();
+        if (RCBase.BUILD_FOR_RCIMMIX) backupTrace.clearImmixMarks();
         global().oldRootPool.clearDeque(1);
         if (RCBase.BUILD_FOR_GENRC) global().decPool.clearDeque(1);
       }
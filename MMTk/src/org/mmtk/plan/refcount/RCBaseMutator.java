@@ -104,6 +104,7 @@ public class RCBaseMutator extends StopTheWorldMutator {
         decBuffer.push(ref);
         RCHeader.initializeHeader(ref, true);
         ExplicitFreeListSpace.unsyncSetLiveBit(ref);
+        if (RCBase.ccTracing) RCHeader.testAndMark(ref);
       }
       break;
     case RCBase.ALLOC_LOS:
@@ -113,6 +114,7 @@ public class RCBaseMutator extends StopTheWorldMutator {
       decBuffer.push(ref);
       if (RCBase.BUILD_FOR_GENRC) RCHeader.initializeHeader(ref, true);
       RCBase.rcloSpace.initializeHeader(ref, true);
+      if (RCBase.ccTracing) RCHeader.testAndMark(ref);
       return;
     case RCBase.ALLOC_IMMORTAL:
       if (RCBase.BUILD_FOR_GENRC) modBuffer.push(ref);
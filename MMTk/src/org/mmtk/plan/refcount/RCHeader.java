@@ -233,6 +233,39 @@ public class RCHeader {
     return header.and(NEW_BIT_MASK).NE(NEW_BIT_MASK);
   }
 
+  /**
+   * Return <code>true</code> if an object in the RC-Immix space is yet to
+   * survive a collection.  Once a young object has been forwarded its
+   * header holds the forwarding pointer rather than the new bit, but the
+   * forwarded state (which coincides with <code>BEING_LOGGED</code>) is
+   * never seen on a mature object during a collection.
+   *
+   * @param object The object in question
+   * @return <code>true</code> if the object is young
+   */
+  @Inline
+  public static boolean isYoung(ObjectReference object) {
+    Word value = VM.objectModel.readAvailableBitsWord(object);
+    return isHeaderNew(value) || value.and(LOGGING_MASK).EQ(BEING_LOGGED);
+  }
+
+  /**
+   * Make a young object which has survived its first collection mature.
+   * RC-Immix uses the new bit, which is otherwise unused by generational
+   * RC, to tell mature objects from young ones.  The object is left
+   * unlogged, with a reference count of zero, and any forwarding state
+   * is discarded.  The caller must own the object's header, having won
+   * the race to forward it.
+   *
+   * @param object The object which has survived
+   */
+  @Inline
+  public static void makeMature(ObjectReference object) {
+    Word value = VM.objectModel.readAvailableBitsWord(object);
+    value = value.and(WRITE_MASK).and(LOGGING_MASK.not()).or(UNLOGGED).or(NEW_BIT_MASK);
+    VM.objectModel.writeAvailableBitsWord(object, value);
+  }
+
   /**
    * Perform any required initialization of the GC portion of the header.
    *
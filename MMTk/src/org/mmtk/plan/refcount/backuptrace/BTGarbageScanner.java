@@ -0,0 +1,45 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.refcount.backuptrace;
+
+import org.mmtk.plan.refcount.RCHeader;
+import org.mmtk.policy.ExplicitFreeListSpace;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * Scans the cells left unmarked by an incremental backup trace before
+ * they are swept, decrementing the counts of the live objects they
+ * refer to.  Nothing is freed, so every referent can still be read.
+ */
+@Uninterruptible
+public final class BTGarbageScanner extends ExplicitFreeListSpace.Sweeper {
+
+  private final BTReleaseBuffer release;
+
+  /**
+   * @param release the buffer of decrements for live referents
+   */
+  public BTGarbageScanner(BTReleaseBuffer release) {
+    this.release = release;
+  }
+
+  @Override
+  public boolean sweepCell(ObjectReference object) {
+    if (!RCHeader.isMarked(object)) {
+      release.processChildren(object);
+    }
+    return false;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.refcount.backuptrace;
+
+import org.mmtk.plan.TraceLocal;
+import org.mmtk.plan.Trace;
+import org.mmtk.plan.refcount.RCBase;
+import org.mmtk.plan.refcount.RCHeader;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * This class implements the thread-local core functionality of a backup
+ * trace which is spread over several collections.  Reference counts
+ * continue to be maintained by the coalesced increments and decrements
+ * of the collections the trace spans, so unlike {@link BTTraceLocal}
+ * this trace only marks, and never recomputes a count.
+ */
+@Uninterruptible
+public final class BTIncrementalTraceLocal extends TraceLocal {
+
+  /**
+   * @param trace the associated global trace
+   */
+  public BTIncrementalTraceLocal(Trace trace) {
+    super(trace);
+  }
+
+  /****************************************************************************
+   *
+   * Externally visible Object processing and tracing
+   */
+
+  /**
+   * Is the specified object reachable?
+   *
+   * @param object The object.
+   * @return <code>true</code> if the object is reachable.
+   */
+  @Override
+  public boolean isLive(ObjectReference object) {
+    return !RCBase.isRCObject(object) || RCHeader.isMarked(object);
+  }
+
+  /**
+   * Mark an object and, if this is the first time it has been marked,
+   * queue it to be scanned.  This is also used to grey the roots of the
+   * trace and the referents recorded by the coalescing write barrier
+   * while the trace is under way.
+   *
+   * @param object The object to be traced.
+   * @return The new reference to the same object instance.
+   */
+  @Override
+  @Inline
+  public ObjectReference traceObject(ObjectReference object) {
+    if (RCBase.isRCObject(object) && RCHeader.testAndMark(object)) {
+      processNode(object);
+    }
+    return object;
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.refcount.backuptrace;
+
+import org.mmtk.plan.refcount.RCBase;
+import org.mmtk.plan.refcount.RCHeader;
+import org.mmtk.utility.deque.*;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * A decrement buffer for the referents of garbage found by an incremental
+ * backup trace.  Only marked referents are decremented: those which are
+ * not marked are garbage themselves, and are freed by the same sweep.
+ */
+@Uninterruptible
+public final class BTReleaseBuffer extends ObjectReferenceBuffer {
+
+  /**
+   * @param queue the shared pool of decrements
+   */
+  public BTReleaseBuffer(SharedDeque queue) {
+    super("release", queue);
+  }
+
+  @Override
+  @Inline
+  protected void process(ObjectReference object) {
+    if (RCBase.isRCObject(object) && RCHeader.isMarked(object)) {
+      push(object);
+    }
+  }
+}
@@ -16,6 +16,9 @@ import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.Trace;
 import org.mmtk.plan.refcount.RCBase;
 import org.mmtk.plan.refcount.RCHeader;
+import org.mmtk.policy.Space;
+import org.mmtk.utility.deque.ObjectReferenceDeque;
+import org.mmtk.utility.deque.SharedDeque;
 
 import org.vmmagic.pragma.*;
 import org.vmmagic.unboxed.*;
@@ -27,11 +30,16 @@ import org.vmmagic.unboxed.*;
 @Uninterruptible
 public final class BTTraceLocal extends TraceLocal {
 
+  /** RC-Immix objects marked by this trace, whose marks must be cleared */
+  private final ObjectReferenceDeque immixMarked;
+
   /**
    * @param trace the associated global trace
+   * @param immixMarkedPool the shared pool of marked RC-Immix objects
    */
-public BTTraceLocal(Trace trace) {
+public BTTraceLocal(Trace trace, SharedDeque immixMarkedPool) {
     super(trace);
+    immixMarked = new ObjectReferenceDeque("immix-marked", immixMarkedPool);
   }
 
   /****************************************************************************
@@ -62,6 +70,7 @@ public BTTraceLocal(Trace trace) {
     if (RCBase.isRCObject(object)) {
       if (RCHeader.testAndMark(object)) {
         RCHeader.initRC(object);
+        retain(object);
         processNode(object);
       } else {
         RCHeader.incRC(object);
@@ -69,4 +78,38 @@ public BTTraceLocal(Trace trace) {
     }
     return object;
   }
+
+  /**
+   * Account for an object which this trace has just marked.  In RC-Immix
+   * the live objects on each line are counted afresh by the trace, and
+   * since nothing sweeps the immix space object by object, each marked
+   * object is remembered so that its mark can be cleared afterwards.
+   *
+   * @param object The object which has just been marked
+   */
+  @Inline
+  public void retain(ObjectReference object) {
+    if (RCBase.BUILD_FOR_RCIMMIX && Space.isInSpace(RCBase.REF_COUNT_IMMIX, object)) {
+      RCBase.rcImmixSpace.incLineLiveCounts(object);
+      immixMarked.push(object);
+    }
+  }
+
+  /**
+   * Make the RC-Immix objects marked by this trace visible to all
+   * collectors.  Called once the trace is complete.
+   */
+  public void flushImmixMarked() {
+    immixMarked.flushLocal();
+  }
+
+  /**
+   * Clear the marks of the RC-Immix objects marked by the trace.
+   */
+  public void clearImmixMarks() {
+    ObjectReference current;
+    while (!(current = immixMarked.pop()).isNull()) {
+      RCHeader.clearMarked(current);
+    }
+  }
 }
@@ -103,6 +103,7 @@ public class GenRCCollector extends RCBaseCollector {
     RCHeader.initializeHeader(object, false);
     RCHeader.makeUnlogged(object);
     ExplicitFreeListSpace.unsyncSetLiveBit(object);
+    if (RCBase.ccTracing) RCHeader.testAndMark(object);
   }
 
   @Override
@@ -0,0 +1,150 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.refcount.immix;
+
+import org.mmtk.plan.TransitiveClosure;
+import org.mmtk.plan.refcount.RCBase;
+import org.mmtk.plan.refcount.RCHeader;
+import org.mmtk.policy.Space;
+import org.mmtk.utility.ForwardingWord;
+import org.mmtk.utility.options.Options;
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * This class implements the global state of RC-Immix, a reference counting
+ * collector over a line and block structured (immix) heap.  See Shahriyar
+ * et al, "Taking Off the Gloves with Reference Counting Immix" (OOPSLA
+ * 2013) for details of and rationale for the design.<p>
+ *
+ * Objects are allocated into the lines of {@link RCBase#rcImmixSpace}.  As
+ * in generational RC, new objects are born dead and unlogged: they are
+ * not counted until they survive their first collection, at which point
+ * they are copied to a clean block (or, once copying has used up the
+ * available clean pages, left in place), and the lines they occupy are
+ * counted.  Increments and decrements are coalesced exactly as in
+ * {@link org.mmtk.plan.refcount.generational.GenRC}.  Each line keeps a
+ * count of the live objects on it; a line whose count drops to zero is
+ * free for reuse, and a block whose lines are all free is returned.  The
+ * backup trace used for cycle collection counts the objects on each line
+ * afresh.
+ */
+@Uninterruptible
+public class RCImmix extends RCBase {
+
+  /*****************************************************************************
+   *
+   * Collection
+   */
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void collectionPhase(short phaseId) {
+    if (phaseId == PREPARE) {
+      rcImmixSpace.prepareCounted();
+      super.collectionPhase(phaseId);
+      return;
+    }
+
+    if (phaseId == RELEASE) {
+      super.collectionPhase(phaseId);
+      rcImmixSpace.release(false);
+      return;
+    }
+
+    super.collectionPhase(phaseId);
+  }
+
+  @Override
+  public final boolean collectionRequired(boolean spaceFull, Space space) {
+    boolean nurseryFull = rcImmixSpace.getPagesAllocated() > Options.nurserySize.getMaxNursery();
+    return super.collectionRequired(spaceFull, space) || nurseryFull;
+  }
+
+  /**
+   * Trace a reference to an object in the RC-Immix space.  If the object
+   * is young this is its first survival: it is copied (or, if copying has
+   * used up the available clean pages, made mature in place), its lines
+   * are counted, and it is enqueued so that its referents are incremented.
+   * Mature objects are returned unchanged.
+   *
+   * @param trace The trace performing the transitive closure
+   * @param object The object to be traced
+   * @return The object, which may have been moved
+   */
+  @Inline
+  public static ObjectReference traceObject(TransitiveClosure trace, ObjectReference object) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Space.isInSpace(REF_COUNT_IMMIX, object));
+    if (!RCHeader.isYoung(object)) return object;
+
+    /* Race to be the (potential) forwarder */
+    Word priorStatusWord = ForwardingWord.attemptToForward(object);
+    if (ForwardingWord.stateIsForwardedOrBeingForwarded(priorStatusWord))
+      return ForwardingWord.spinAndGetForwardedObject(object, priorStatusWord);
+
+    ObjectReference newObject;
+    if (rcImmixSpace.copySpaceExhausted()) {
+      RCHeader.makeMature(object);
+      newObject = object;
+    } else {
+      newObject = ForwardingWord.forwardObject(object, ALLOC_DEFAULT);
+    }
+    /* a backup trace counts the lines of every object it marks */
+    if (!(CC_BACKUP_TRACE && performCycleCollection))
+      rcImmixSpace.incLineLiveCounts(newObject);
+    trace.processNode(newObject);
+    return newObject;
+  }
+
+  /*****************************************************************************
+   *
+   * Accounting
+   */
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getPagesUsed() {
+    return rcImmixSpace.reservedPages() + super.getPagesUsed();
+  }
+
+  /**
+   * Return the number of pages reserved for collection.
+   */
+  @Override
+  public int getCollectionReserve() {
+    return super.getCollectionReserve() + rcImmixSpace.defragHeadroomPages();
+  }
+
+  @Override
+  public boolean willNeverMove(ObjectReference object) {
+    if (Space.isInSpace(REF_COUNT_IMMIX, object)) {
+      return false;
+    }
+    if (Space.isInSpace(REF_COUNT, object) || Space.isInSpace(REF_COUNT_LOS, object)) {
+      return true;
+    }
+    return super.willNeverMove(object);
+  }
+
+  @Override
+  @Interruptible
+  public void preCollectorSpawn() {
+    rcImmixSpace.initializeDefrag();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.refcount.immix;
+
+import org.mmtk.plan.TraceLocal;
+import org.mmtk.plan.TransitiveClosure;
+import org.mmtk.plan.refcount.RCBase;
+import org.mmtk.plan.refcount.RCBaseCollector;
+import org.mmtk.plan.refcount.RCHeader;
+import org.mmtk.policy.immix.CollectorLocal;
+import org.mmtk.utility.alloc.ImmixAllocator;
+import org.mmtk.vm.VM;
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.ObjectReference;
+
+/**
+ * This class implements the collector context for RC-Immix.
+ */
+@Uninterruptible
+public class RCImmixCollector extends RCBaseCollector {
+  private final RCImmixFindRootSetTraceLocal rootTrace;
+  private final RCImmixModifiedProcessor modProcessor;
+  private final CollectorLocal immix;
+  private final ImmixAllocator copy;
+
+  public RCImmixCollector() {
+    immix = new CollectorLocal(RCBase.rcImmixSpace);
+    copy = new ImmixAllocator(RCBase.rcImmixSpace, true, true);
+    rootTrace = new RCImmixFindRootSetTraceLocal(global().rootTrace, newRootBuffer);
+    modProcessor = new RCImmixModifiedProcessor(rootTrace);
+  }
+
+  /****************************************************************************
+   *
+   * Collection
+   */
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void collectionPhase(short phaseId, boolean primary) {
+    if (phaseId == RCBase.PREPARE) {
+      super.collectionPhase(phaseId, primary);
+      if (RCBase.CC_BACKUP_TRACE && RCBase.performCycleCollection) immix.clearLineLiveCounts();
+      copy.reset();
+      return;
+    }
+
+    if (phaseId == RCBase.RELEASE) {
+      super.collectionPhase(phaseId, primary);
+      copy.reset();
+      immix.release(false);
+      return;
+    }
+
+    super.collectionPhase(phaseId, primary);
+  }
+
+  /****************************************************************************
+   *
+   * Collection-time allocation
+   */
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @Inline
+  public final Address allocCopy(ObjectReference original, int bytes,
+      int align, int offset, int allocator) {
+    if (VM.VERIFY_ASSERTIONS) {
+      VM.assertions._assert(bytes <= RCBase.MAX_NON_LOS_COPY_BYTES);
+      VM.assertions._assert(allocator == RCImmix.ALLOC_DEFAULT);
+    }
+    return copy.alloc(bytes, align, offset);
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * The copy is a survivor, so it becomes mature.
+   */
+  @Override
+  @Inline
+  public final void postCopy(ObjectReference object, ObjectReference typeRef,
+                             int bytes, int allocator) {
+    RCHeader.makeMature(object);
+  }
+
+  @Override
+  protected final TransitiveClosure getModifiedProcessor() {
+    return modProcessor;
+  }
+
+  @Override
+  protected final TraceLocal getRootTrace() {
+    return rootTrace;
+  }
+}
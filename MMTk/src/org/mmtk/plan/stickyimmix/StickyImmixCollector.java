@@ -108,6 +108,9 @@ public class StickyImmixCollector extends ImmixCollector {
 
       if (phaseId == StickyImmix.RELEASE) {
         nurseryTrace.release();
+        /* help sweep the large object spaces; the global release sweeps any remainder */
+        Plan.loSpace.sweep(parallelWorkerOrdinal(), parallelWorkerCount());
+        if (Plan.USE_CODE_SPACE) Plan.largeCodeSpace.sweep(parallelWorkerOrdinal(), parallelWorkerCount());
         immix.release(false);
         global().modPool.reset();
         return;
@@ -97,6 +97,9 @@ public class StickyMSCollector extends MSCollector {
 
       if (phaseId == StickyMS.RELEASE) {
         nurseryTrace.release();
+        /* help sweep the large object spaces; the global release sweeps any remainder */
+        Plan.loSpace.sweep(parallelWorkerOrdinal(), parallelWorkerCount());
+        if (Plan.USE_CODE_SPACE) Plan.largeCodeSpace.sweep(parallelWorkerOrdinal(), parallelWorkerCount());
         global().modPool.reset();
         return;
       }
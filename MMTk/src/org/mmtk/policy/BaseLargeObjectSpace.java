@@ -136,6 +136,17 @@ public abstract class BaseLargeObjectSpace extends Space {
     return cell.toWord().and(PAGE_MASK).toAddress();
   }
 
+  /**
+   * Acquire a superpage kept back from an earlier sweep rather than
+   * fresh pages.  By default nothing is kept back.
+   *
+   * @param pages The number of pages requested
+   * @return The first page of a suitable superpage, or zero if there is none
+   */
+  public Address acquireRecycled(int pages) {
+    return Address.zero();
+  }
+
   /**
    * Return the size of the super page
    *
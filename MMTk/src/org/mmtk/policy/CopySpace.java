@@ -105,6 +105,8 @@ import org.vmmagic.pragma.*;
     } else {
       pr = new MonotonePageResource(this, start, extent, META_DATA_PAGES_PER_REGION);
     }
+    /* Pages are only ever released all at once, when the space is reset */
+    allowPagePooling();
   }
 
   /****************************************************************************
@@ -12,14 +12,18 @@
  */
 package org.mmtk.policy;
 
+import static org.mmtk.utility.Constants.BITS_IN_INT;
+import static org.mmtk.utility.Constants.BYTES_IN_ADDRESS;
 import static org.mmtk.utility.Constants.LOG_BYTES_IN_PAGE;
 
 import org.mmtk.plan.TransitiveClosure;
+import org.mmtk.utility.Conversions;
 import org.mmtk.utility.heap.FreeListPageResource;
 import org.mmtk.utility.heap.VMRequest;
 import org.mmtk.utility.HeaderByte;
 import org.mmtk.utility.Treadmill;
 
+import org.mmtk.vm.Lock;
 import org.mmtk.vm.VM;
 
 import org.vmmagic.pragma.*;
@@ -46,6 +50,11 @@ public final class LargeObjectSpace extends BaseLargeObjectSpace {
   private static final byte NURSERY_BIT =  2; // ...10
   private static final byte LOS_BIT_MASK = 3; // ...11
 
+  /* superpages of dead objects kept back for reuse, binned by log2 of their size in pages */
+  private static final int RECYCLE_CLASSES = BITS_IN_INT;
+  private static final int LOG_RECYCLE_FRACTION = 5; // keep back at most 1/32 of the heap
+  private static final Offset RECYCLE_PAGES_OFFSET = Offset.fromIntSignExtend(BYTES_IN_ADDRESS);
+
   /****************************************************************************
    *
    * Instance variables
@@ -57,6 +66,12 @@ public final class LargeObjectSpace extends BaseLargeObjectSpace {
   private byte markState;
   private boolean inNurseryGC;
   private final Treadmill treadmill;
+  private boolean sweepPending;
+  private boolean sweepFullHeap;
+  private final AddressArray recycled = AddressArray.create(RECYCLE_CLASSES);
+  private final Lock recycleLock = VM.newLock("losRecycle");
+  private int recycledPages;
+  private int recycleLimit;
 
   /****************************************************************************
    *
@@ -103,6 +118,8 @@ public final class LargeObjectSpace extends BaseLargeObjectSpace {
    * @param fullHeap whether the collection will be full heap
    */
   public void prepare(boolean fullHeap) {
+    flushRecycled();
+    recycleLimit = VM.activePlan.global().getTotalPages() >> LOG_RECYCLE_FRACTION;
     if (fullHeap) {
       if (VM.VERIFY_ASSERTIONS) {
         VM.assertions._assert(treadmill.fromSpaceEmpty());
@@ -111,6 +128,8 @@ public final class LargeObjectSpace extends BaseLargeObjectSpace {
     }
     treadmill.flip(fullHeap);
     inNurseryGC = !fullHeap;
+    sweepFullHeap = fullHeap;
+    sweepPending = true;
   }
 
   /**
@@ -120,25 +139,142 @@ public final class LargeObjectSpace extends BaseLargeObjectSpace {
    * @param fullHeap whether the collection was full heap
    */
   public void release(boolean fullHeap) {
-    // sweep the large objects
-    sweepLargePages(true);                // sweep the nursery
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(fullHeap == sweepFullHeap);
+    // sweep whatever the collectors have not already swept
+    for (int segment = 0; segment < Treadmill.SEGMENTS; segment++)
+      sweepSegment(segment, fullHeap);
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(treadmill.nurseryEmpty());
-    if (fullHeap) sweepLargePages(false); // sweep the mature space
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!fullHeap || treadmill.fromSpaceEmpty());
+    sweepPending = false;
+  }
+
+  /**
+   * Sweeps a share of the treadmill segments on behalf of one of
+   * several collectors releasing in parallel.  Segments left unswept
+   * are picked up by the global {@link #release(boolean)}.
+   *
+   * @param ordinal the ordinal of the calling collector
+   * @param stride the number of collectors sweeping in parallel
+   */
+  public void sweep(int ordinal, int stride) {
+    if (!sweepPending) return;
+    for (int segment = ordinal; segment < Treadmill.SEGMENTS; segment += stride)
+      sweepSegment(segment, sweepFullHeap);
   }
 
   /**
-   * Sweeps through the large pages, releasing all superpages on the
-   * "from space" treadmill.
+   * Sweeps through the large pages of one treadmill segment, releasing
+   * all superpages on its nursery and, if requested, its "from space".
    *
-   * @param sweepNursery whether to sweep the nursery
+   * @param segment the treadmill segment
+   * @param fullHeap whether to sweep the mature space as well as the nursery
    */
-  private void sweepLargePages(boolean sweepNursery) {
+  private void sweepSegment(int segment, boolean fullHeap) {
     while (true) {
-      Address cell = sweepNursery ? treadmill.popNursery() : treadmill.pop();
+      Address cell = treadmill.popNursery(segment);
+      if (cell.isZero()) break;
+      recycle(getSuperPage(cell));
+    }
+    while (fullHeap) {
+      Address cell = treadmill.pop(segment);
       if (cell.isZero()) break;
-      release(getSuperPage(cell));
+      recycle(getSuperPage(cell));
+    }
+  }
+
+  /**
+   * Keep the superpage of a dead object back for reuse by a later
+   * allocation of a similar size, or release it if too many pages are
+   * already kept back.
+   *
+   * @param first The first page of the superpage
+   */
+  private void recycle(Address first) {
+    int pages = Conversions.bytesToPages(getSize(first));
+    int sizeClass = sizeClass(pages);
+    recycleLock.acquire();
+    boolean keep = recycledPages + pages <= recycleLimit;
+    if (keep) {
+      first.store(recycled.get(sizeClass));
+      first.store(pages, RECYCLE_PAGES_OFFSET);
+      recycled.set(sizeClass, first);
+      recycledPages += pages;
+    }
+    recycleLock.release();
+    if (!keep) release(first);
+  }
+
+  /**
+   * Take a superpage kept back by the last sweep, if one is at least the
+   * requested size and at most an eighth larger.  Its pages are still
+   * reserved by this space, so no page budget is consumed.
+   *
+   * @param pages The number of pages requested
+   * @return The first page of the superpage, or zero if none fits
+   */
+  @Override
+  public Address acquireRecycled(int pages) {
+    if (recycledPages == 0) return Address.zero();
+    int sizeClass = sizeClass(pages);
+    int size = 0;
+    recycleLock.acquire();
+    Address prev = Address.zero();
+    Address first = recycled.get(sizeClass);
+    while (!first.isZero()) {
+      size = first.loadInt(RECYCLE_PAGES_OFFSET);
+      if (size >= pages && size - pages <= pages >> 3) break;
+      prev = first;
+      first = first.loadAddress();
+    }
+    if (!first.isZero()) {
+      if (prev.isZero())
+        recycled.set(sizeClass, first.loadAddress());
+      else
+        prev.store(first.loadAddress());
+      recycledPages -= size;
     }
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(sweepNursery ? treadmill.nurseryEmpty() : treadmill.fromSpaceEmpty());
+    recycleLock.release();
+    if (!first.isZero() && zeroed)
+      VM.memory.zero(false, first, Conversions.pagesToBytes(size));
+    return first;
+  }
+
+  /**
+   * Return the number of pages held in superpages kept back for
+   * reuse.  These pages are still reserved by this space, but hold no
+   * live objects.
+   *
+   * @return The number of pages kept back for reuse
+   */
+  @Override
+  public int reclaimablePages() {
+    return recycledPages;
+  }
+
+  /**
+   * Release every superpage kept back for reuse.
+   */
+  private void flushRecycled() {
+    for (int sizeClass = 0; sizeClass < RECYCLE_CLASSES; sizeClass++) {
+      Address first = recycled.get(sizeClass);
+      while (!first.isZero()) {
+        Address next = first.loadAddress();
+        release(first);
+        first = next;
+      }
+      recycled.set(sizeClass, Address.zero());
+    }
+    recycledPages = 0;
+  }
+
+  /**
+   * @param pages a size in pages
+   * @return the recycling size class for the given size
+   */
+  private static int sizeClass(int pages) {
+    int sizeClass = 0;
+    while ((pages >>> (sizeClass + 1)) != 0) sizeClass++;
+    return sizeClass;
   }
 
   @Override
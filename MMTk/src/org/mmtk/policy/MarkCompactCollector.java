@@ -34,10 +34,11 @@ import org.vmmagic.unboxed.ObjectReference;
  *  <li>Performs the compaction pass over the heap.</li>
  * </ul>
  *<p>
- * Each collector thread maintains a private list of the pages that it compacts.
- * If it runs out of work during the calculateForwardingPointers pass, it requests
- * a new region from the global MarkCompactSpace.  Regions compacted by a collector
- * remain local to the collector.
+ * Before the calculateForwardingPointers pass, the MarkCompactSpace splits its
+ * global list of regions into one contiguous partition per collector, balanced
+ * on the bytes in use.  Each collector then calculates forwarding pointers for,
+ * and compacts, its own partition without synchronizing with the others, and
+ * returns the surviving regions to the global list once compaction is done.
  *
  * @see MarkCompactSpace
  * @see MarkCompactLocal
@@ -52,7 +53,7 @@ public final class MarkCompactCollector {
   private final MarkCompactSpace space;
 
   /**
-   * This collector's work list
+   * This collector's work list for the current collection
    */
   private Address regions = Address.zero();
 
@@ -274,27 +275,6 @@ public final class MarkCompactCollector {
       if (VM.VERIFY_ASSERTIONS) assertCursorInBounds();
     }
 
-    /**
-     * Advance the cursor either to the next region in the list,
-     * or to a new region allocated from the global list.
-     * @param space the space that acts as the global list
-     */
-    void advanceToNextForwardableRegion(MarkCompactSpace space) {
-      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(get().EQ(getLimit()));
-      Address nextRegion = BumpPointer.getNextRegion(region);
-      if (nextRegion.isZero()) {
-        nextRegion = space.getNextRegion();
-        if (nextRegion.isZero()) {
-          region = Address.zero();
-          return;
-        }
-        MarkCompactLocal.setNextRegion(region,nextRegion);
-        MarkCompactLocal.clearNextRegion(nextRegion);
-      }
-      init(nextRegion);
-      if (VM.VERIFY_ASSERTIONS) assertCursorInBounds();
-    }
-
     /**
      * Override the superclass with an additional assertion - we only advance
      * when we have read to the end, and the cursor must point *precisely*
@@ -423,9 +403,8 @@ public final class MarkCompactCollector {
    * The outer loop advances the 'from' pointer
    */
   public void calculateForwardingPointers() {
-    if (regions.isZero()) {
-      regions = space.getNextRegion();
-    }
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(regions.isZero());
+    regions = space.getPartition(VM.activePlan.collector().parallelWorkerOrdinal());
 
     if (regions.isZero())
       return;
@@ -480,7 +459,7 @@ public final class MarkCompactCollector {
           }
         }
       }
-      fromCursor.advanceToNextForwardableRegion(space);
+      fromCursor.advanceToNextRegion();
     }
   }
 
@@ -544,5 +523,11 @@ public final class MarkCompactCollector {
       space.release(region);
       region = nextRegion;
     }
+
+    /*
+     * Hand the compacted regions back for the next collection to repartition
+     */
+    space.append(regions);
+    regions = Address.zero();
   }
 }
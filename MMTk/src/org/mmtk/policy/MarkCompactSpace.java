@@ -50,6 +50,12 @@ import org.vmmagic.pragma.*;
   /** The list of occupied regions */
   private Address regionList = Address.zero();
 
+  /** The last region in {@link #regionList} */
+  private Address regionListTail = Address.zero();
+
+  /** The head of the list of regions each collector compacts, indexed by ordinal */
+  private AddressArray partitions;
+
   // TODO - maintain a separate list of partially allocated regions
   // for threads to allocate into immediately after a collection.
 
@@ -316,22 +322,79 @@ import org.vmmagic.pragma.*;
   }
 
   /**
-   * @return A region of this space that has net yet been compacted during
-   *   the current collection
+   * Allocate the per-collector partition table.<p>
+   *
+   * This needs to happen at runtime because the collector count is not known
+   * at build time.
    */
-  public Address getNextRegion() {
-    lock.acquire();
-    if (regionList.isZero()) {
-      lock.release();
-      return Address.zero();
+  @Interruptible
+  public void initializePartitions() {
+    partitions = AddressArray.create(VM.activePlan.collectorCount());
+  }
+
+  /**
+   * Split the global list of regions into one list per collector, so that
+   * each collector can calculate forwarding pointers and compact its own
+   * list independently.  Cuts are placed on a prefix sum of the bytes in
+   * use in each region, so every collector scans a similar volume of the
+   * heap.  Each partition keeps the global list order, so objects only
+   * ever slide towards the head of their partition.
+   *
+   * @param collectors The number of collectors taking part in the collection
+   */
+  public void partitionRegions(int collectors) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(collectors <= partitions.length());
+    long total = 0;
+    for (Address region = regionList; !region.isZero(); region = BumpPointer.getNextRegion(region))
+      total += bytesInUse(region);
+
+    Address region = regionList;
+    long prefix = 0;
+    for (int p = 0; p < collectors; p++) {
+      long limit = total * (p + 1) / collectors;
+      Address head = region;
+      Address tail = Address.zero();
+      while (!region.isZero() && (prefix < limit || p == collectors - 1)) {
+        prefix += bytesInUse(region);
+        tail = region;
+        region = BumpPointer.getNextRegion(region);
+      }
+      if (tail.isZero()) {
+        partitions.set(p, Address.zero());
+      } else {
+        BumpPointer.clearNextRegion(tail);
+        partitions.set(p, head);
+      }
+      if (MarkCompactCollector.VERBOSE) {
+        Log.write("Partition "); Log.write(p);
+        Log.write(" ends at "); Log.write(prefix);
+        Log.write(" of "); Log.writeln(total);
+      }
     }
-    Address result = regionList;
-    regionList = BumpPointer.getNextRegion(regionList);
-    BumpPointer.clearNextRegion(result);
-    lock.release();
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(region.isZero() && prefix == total);
+    regionList = Address.zero();
+    regionListTail = Address.zero();
+  }
+
+  /**
+   * @param ordinal The ordinal of the collector
+   * @return The list of regions the given collector is to compact during
+   *   the current collection
+   */
+  public Address getPartition(int ordinal) {
+    Address result = partitions.get(ordinal);
+    partitions.set(ordinal, Address.zero());
     return result;
   }
 
+  /**
+   * @param region A region of this space
+   * @return The number of bytes allocated in the region
+   */
+  private static long bytesInUse(Address region) {
+    return MarkCompactLocal.getDataEnd(region).diff(MarkCompactLocal.getDataStart(region)).toLong();
+  }
+
   /**
    * Append a region or list of regions to the global list
    * @param region the region to append
@@ -345,7 +408,11 @@ import org.vmmagic.pragma.*;
     if (regionList.isZero()) {
       regionList = region;
     } else {
-      appendRegion(regionList,region);
+      BumpPointer.setNextRegion(regionListTail, region);
+    }
+    regionListTail = region;
+    while (!BumpPointer.getNextRegion(regionListTail).isZero()) {
+      regionListTail = BumpPointer.getNextRegion(regionListTail);
     }
     lock.release();
   }
@@ -12,11 +12,13 @@
  */
 package org.mmtk.policy;
 
+import org.mmtk.plan.Plan;
 import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.utility.heap.*;
 import org.mmtk.utility.options.Options;
 import org.mmtk.utility.options.MarkSweepMarkBits;
 import org.mmtk.utility.options.EagerCompleteSweep;
+import org.mmtk.utility.options.LazySweep;
 import org.mmtk.utility.HeaderByte;
 
 import org.mmtk.vm.VM;
@@ -89,6 +91,7 @@ public final class MarkSweepSpace extends SegregatedFreeListSpace {
   static {
     Options.markSweepMarkBits = new MarkSweepMarkBits();
     Options.eagerCompleteSweep = new EagerCompleteSweep();
+    Options.lazySweep = new LazySweep();
   }
 
   /**
@@ -186,6 +189,8 @@ public final class MarkSweepSpace extends SegregatedFreeListSpace {
    * @param gcWholeMS True if we are going to collect the whole marksweep space
    */
   public void prepare(boolean gcWholeMS) {
+    /* Blocks left unswept are judged against the marks of the last collection */
+    sweepUnsweptBlocks();
     if (HEADER_MARK_BITS && Options.eagerCompleteSweep.getValue()) {
       consumeBlocks();
     } else {
@@ -208,10 +213,18 @@ public final class MarkSweepSpace extends SegregatedFreeListSpace {
 
   /**
    * A new collection increment has completed.  For the mark-sweep
-   * collector this means we can perform the sweep phase.
- */
+   * collector this means we can perform the sweep phase.  If lazy
+   * sweeping is enabled the sweep is deferred: blocks are swept as
+   * allocators need them, and whatever remains is swept before the
+   * space grows or the next collection begins.  Emergency collections
+   * always sweep eagerly so that every dead block is reclaimed.
+   */
   public void release() {
-    sweepConsumedBlocks(!EAGER_MARK_CLEAR);
+    if (Options.lazySweep.getValue() && !Plan.isEmergencyCollection()) {
+      deferSweepConsumedBlocks(!EAGER_MARK_CLEAR);
+    } else {
+      sweepConsumedBlocks(!EAGER_MARK_CLEAR);
+    }
     inMSCollection = false;
   }
 
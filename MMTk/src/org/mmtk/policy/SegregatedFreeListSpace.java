@@ -87,6 +87,20 @@ public abstract class SegregatedFreeListSpace extends Space {
   protected final AddressArray consumedBlockHead = AddressArray.create(sizeClassCount());
   protected final AddressArray flushedBlockHead = AddressArray.create(sizeClassCount());
   protected final AddressArray availableBlockHead = AddressArray.create(sizeClassCount());
+  protected final AddressArray unsweptBlockHead = AddressArray.create(sizeClassCount());
+
+  /** Are there (possibly) blocks on the unswept lists? */
+  private boolean lazySweepPending = false;
+  /** Should block marks be cleared when the unswept blocks are swept? */
+  private boolean lazySweepClearMarks;
+  /** Pages in blocks on the unswept lists */
+  private int unsweptPages;
+  /** Pages deferred by the current lazy sweep, and how many of them have been freed */
+  private int deferredPages;
+  private int deferredPagesFreed;
+  /** Pages deferred by the last completed lazy sweep, and how many of them were freed */
+  private int lastDeferredPages;
+  private int lastDeferredPagesFreed;
 
   private final int[] cellSize = new int[sizeClassCount()];
   private final byte[] blockSizeClass = new byte[sizeClassCount()];
@@ -164,6 +178,84 @@ public abstract class SegregatedFreeListSpace extends Space {
     lock.release();
   }
 
+  /**
+   * Return a chain of consumed blocks, linked through their next
+   * pointers, to the global pool under a single acquisition of the lock.
+   *
+   * @param head The first block of the chain
+   * @param sizeClass The size class of every block in the chain
+   */
+  public void returnConsumedBlocks(Address head, int sizeClass) {
+    Address tail = head;
+    while (true) {
+      if (preserveFreeList()) {
+        setFreeList(tail, Address.zero());
+      }
+      Address next = BlockAllocator.getNext(tail);
+      if (next.isZero()) break;
+      tail = next;
+    }
+    lock.acquire();
+    BlockAllocator.setNext(tail, consumedBlockHead.get(sizeClass));
+    consumedBlockHead.set(sizeClass, head);
+    lock.release();
+  }
+
+  /**
+   * Detach up to <code>max</code> blocks from the available list of a
+   * size class under a single acquisition of the lock.  The blocks are
+   * returned as a chain linked through their next pointers, and must be
+   * prepared with {@link #advanceBlock} before they are allocated into.
+   *
+   * @param sizeClass The size class
+   * @param max The maximum number of blocks to take
+   * @return The first block of the chain, or zero if none were available
+   */
+  public Address takeAvailableBlocks(int sizeClass, int max) {
+    lock.acquire();
+    Address head = availableBlockHead.get(sizeClass);
+    if (!head.isZero()) {
+      Address tail = head;
+      for (int i = 1; i < max && !BlockAllocator.getNext(tail).isZero(); i++) {
+        tail = BlockAllocator.getNext(tail);
+      }
+      availableBlockHead.set(sizeClass, BlockAllocator.getNext(tail));
+      BlockAllocator.setNext(tail, Address.zero());
+    }
+    lock.release();
+    return head;
+  }
+
+  /**
+   * Put a chain of untouched blocks obtained from
+   * {@link #takeAvailableBlocks} back on the available list.
+   *
+   * @param head The first block of the chain
+   * @param sizeClass The size class of every block in the chain
+   */
+  public void returnAvailableBlocks(Address head, int sizeClass) {
+    Address tail = head;
+    while (!BlockAllocator.getNext(tail).isZero()) {
+      tail = BlockAllocator.getNext(tail);
+    }
+    lock.acquire();
+    BlockAllocator.setNext(tail, availableBlockHead.get(sizeClass));
+    availableBlockHead.set(sizeClass, head);
+    lock.release();
+  }
+
+  /**
+   * Prepare a block taken with {@link #takeAvailableBlocks} for
+   * allocation.
+   *
+   * @param block The block, which must not be on any list
+   * @param sizeClass The size class of the block
+   * @return the head of the block's free list, or zero if it is full
+   */
+  public final Address advanceBlock(Address block, int sizeClass) {
+    return advanceToBlock(block, sizeClass);
+  }
+
   /**
    * Acquire a new block from the global pool to allocate into. This method
    * with either return a non-empty free list, or zero when allocation
@@ -198,7 +290,37 @@ public abstract class SegregatedFreeListSpace extends Space {
       BlockAllocator.setNext(block, consumedBlockHead.get(sizeClass));
       consumedBlockHead.set(sizeClass, block);
     }
-    lock.release();
+    if (lazySweepPending) {
+      Extent blockSize = Extent.fromIntSignExtend(BlockAllocator.blockSize(blockSizeClass[sizeClass]));
+      while (!(block = unsweptBlockHead.get(sizeClass)).isZero()) {
+        unsweptBlockHead.set(sizeClass, BlockAllocator.getNext(block));
+        unsweptPages -= blockPages(sizeClass);
+        lock.release();
+        BlockAllocator.setNext(block, Address.zero());
+
+        /* Sweep the block on demand, and allocate into it if it survived */
+        if (containsLiveCell(block, blockSize, lazySweepClearMarks)) {
+          Address cell = advanceToBlock(block, sizeClass);
+          if (!cell.isZero()) {
+            freeList.set(sizeClass, cell);
+            return block;
+          }
+          lock.acquire();
+          BlockAllocator.setNext(block, consumedBlockHead.get(sizeClass));
+          consumedBlockHead.set(sizeClass, block);
+        } else {
+          BlockAllocator.free(this, block);
+          lock.acquire();
+          deferredPagesFreed += blockPages(sizeClass);
+        }
+      }
+      lock.release();
+
+      /* Reclaim the rest of the space before growing the heap */
+      sweepUnsweptBlocks();
+    } else {
+      lock.release();
+    }
     return expandSizeClass(sizeClass, freeList);
   }
 
@@ -341,6 +463,15 @@ public abstract class SegregatedFreeListSpace extends Space {
     }
   }
 
+  /**
+   * @param sizeClass the size class in question
+   * @return the number of pages in each block of the given size class
+   */
+  @Inline
+  private int blockPages(int sizeClass) {
+    return BlockAllocator.blockSize(blockSizeClass[sizeClass]) >>> LOG_BYTES_IN_PAGE;
+  }
+
   /**
    * Return the size of a basic cell (i.e. not including any cell
    * header) for a given size class.
@@ -523,6 +654,143 @@ public abstract class SegregatedFreeListSpace extends Space {
     }
   }
 
+  /**
+   * Defer the sweep of all flushed and consumed blocks.  The blocks are
+   * moved to the unswept lists, from which they are swept on demand as
+   * allocators ask for blocks of their size class.  The first allocator
+   * that would otherwise have to expand the space sweeps whatever remains
+   * (see {@link #sweepUnsweptBlocks()}), and the collectors sweep in
+   * parallel anything still unswept when the next collection starts
+   * (see {@link #finishDeferredSweep(int, int)}).<p>
+   *
+   * The marks consulted by the deferred sweep remain valid only until the
+   * next collection starts, so {@link #sweepUnsweptBlocks()} must be called
+   * before the mark state is changed.
+   *
+   * @param clearMarks should we clear block mark bits as we process.
+   */
+  protected final void deferSweepConsumedBlocks(boolean clearMarks) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(unsweptPages == 0);
+    if (deferredPages != 0) {
+      lastDeferredPages = deferredPages;
+      lastDeferredPagesFreed = deferredPagesFreed;
+    }
+    for (int sizeClass = 0; sizeClass < sizeClassCount(); sizeClass++) {
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(unsweptBlockHead.get(sizeClass).isZero());
+      int blocks = 0;
+      Address unsweptHead = Address.zero();
+      /* Flushed blocks */
+      Address block = flushedBlockHead.get(sizeClass);
+      flushedBlockHead.set(sizeClass, Address.zero());
+      while (!block.isZero()) {
+        Address next = BlockAllocator.getNext(block);
+        BlockAllocator.setNext(block, unsweptHead);
+        unsweptHead = block;
+        block = next;
+        blocks++;
+      }
+      /* Consumed blocks */
+      block = consumedBlockHead.get(sizeClass);
+      consumedBlockHead.set(sizeClass, Address.zero());
+      while (!block.isZero()) {
+        Address next = BlockAllocator.getNext(block);
+        BlockAllocator.setNext(block, unsweptHead);
+        unsweptHead = block;
+        block = next;
+        blocks++;
+      }
+      unsweptBlockHead.set(sizeClass, unsweptHead);
+      unsweptPages += blocks * blockPages(sizeClass);
+    }
+    deferredPages = unsweptPages;
+    deferredPagesFreed = 0;
+    lazySweepClearMarks = clearMarks;
+    lazySweepPending = true;
+  }
+
+  /**
+   * Estimate how many of the pages still on the unswept lists hold no
+   * live objects, assuming that the same fraction of them will be freed
+   * as was freed by the last lazy sweep to complete.  Until a lazy sweep
+   * has completed, the unswept pages are conservatively assumed live.
+   *
+   * @return The estimated number of unswept pages that will be freed
+   */
+  @Override
+  public int reclaimablePages() {
+    if (lastDeferredPages == 0) return 0;
+    return (int) ((long) unsweptPages * lastDeferredPagesFreed / lastDeferredPages);
+  }
+
+  /**
+   * Sweep, on behalf of one of several collectors working in parallel,
+   * whatever blocks the last collection left on the unswept lists.
+   *
+   * @param ordinal the ordinal of the calling collector
+   * @param stride the number of collectors sweeping in parallel
+   */
+  @Override
+  public void finishDeferredSweep(int ordinal, int stride) {
+    sweepUnsweptBlocks(ordinal, stride);
+  }
+
+  /**
+   * Sweep all blocks remaining on the unswept lists, freeing empty blocks
+   * and making the others available.
+   */
+  protected final void sweepUnsweptBlocks() {
+    sweepUnsweptBlocks(0, 1);
+  }
+
+  /**
+   * Sweep all blocks remaining on the unswept lists, freeing empty blocks
+   * and making the others available.<p>
+   *
+   * Blocks are taken from the unswept lists one at a time, so this may be
+   * called by multiple threads at once, which then share the work.  Each
+   * thread starts at a different size class, given by its ordinal, so that
+   * the threads mostly sweep different lists.
+   *
+   * @param ordinal the ordinal of the calling thread
+   * @param stride the number of threads sweeping in parallel
+   */
+  private void sweepUnsweptBlocks(int ordinal, int stride) {
+    if (!lazySweepPending) return;
+    int first = (ordinal * sizeClassCount()) / stride;
+    for (int i = 0; i < sizeClassCount(); i++) {
+      int sizeClass = (first + i) % sizeClassCount();
+      Extent blockSize = Extent.fromIntSignExtend(BlockAllocator.blockSize(blockSizeClass[sizeClass]));
+      while (true) {
+        lock.acquire();
+        Address block = unsweptBlockHead.get(sizeClass);
+        if (block.isZero()) {
+          lock.release();
+          break;
+        }
+        unsweptBlockHead.set(sizeClass, BlockAllocator.getNext(block));
+        unsweptPages -= blockPages(sizeClass);
+        lock.release();
+
+        if (containsLiveCell(block, blockSize, lazySweepClearMarks)) {
+          if (!LAZY_SWEEP) {
+            setFreeList(block, makeFreeList(block, sizeClass));
+          }
+          lock.acquire();
+          BlockAllocator.setNext(block, availableBlockHead.get(sizeClass));
+          availableBlockHead.set(sizeClass, block);
+          lock.release();
+        } else {
+          BlockAllocator.setNext(block, Address.zero());
+          BlockAllocator.free(this, block);
+          lock.acquire();
+          deferredPagesFreed += blockPages(sizeClass);
+          lock.release();
+        }
+      }
+    }
+    lazySweepPending = false;
+  }
+
   /**
    * Sweeps a block, freeing it and adding to the list given by availableHead
    * if it contains no free objects.
@@ -18,6 +18,7 @@ import org.mmtk.plan.Plan;
 import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.utility.heap.Map;
 import org.mmtk.utility.heap.Mmapper;
+import org.mmtk.utility.heap.PagePool;
 import org.mmtk.utility.heap.PageResource;
 import org.mmtk.utility.heap.SpaceDescriptor;
 import org.mmtk.utility.heap.VMRequest;
@@ -103,6 +104,8 @@ public abstract class Space {
   protected final boolean movable;
   protected final boolean contiguous;
   protected final boolean zeroed;
+  /** Mutators may hold runs of this space's pages in their page pools */
+  private boolean pooled = false;
 
   protected PageResource pr;
   protected final Address start;
@@ -244,6 +247,11 @@ public abstract class Space {
     return immortal;
   }
 
+  /** @return {@code true} if this space asked to be backed by huge pages */
+  public final boolean requestsHugePages() {
+    return vmRequest.hugePages;
+  }
+
   /** @return {@code true} if objects in this space may move */
   public boolean isMovable() {
     return movable;
@@ -264,6 +272,28 @@ public abstract class Space {
     return pr.getAvailablePhysicalPages();
   }
 
+  /**
+   * Return the number of reserved pages that hold no live objects but
+   * that this space has not yet handed back to its page resource.
+   * Heap sizing treats these pages as free.
+   *
+   * @return The number of reserved pages known to be reclaimable
+   */
+  public int reclaimablePages() {
+    return 0;
+  }
+
+  /**
+   * Finish any sweep this space put off after the last collection.  Called
+   * by each collector at the start of a collection, before the spaces are
+   * prepared, so the work may be shared among several collectors.
+   *
+   * @param ordinal the ordinal of the calling collector
+   * @param stride the number of collectors sweeping in parallel
+   */
+  public void finishDeferredSweep(int ordinal, int stride) {
+  }
+
   /** @return Cumulative committed pages. */
   public static long cumulativeCommittedPages() {
     return PageResource.cumulativeCommittedPages();
@@ -437,6 +467,10 @@ public abstract class Space {
    * the request fails, a GC is forced, and zero is returned.
    * Otherwise the address of the first page is returned.<p>
    *
+   * If this space allows pooling, a mutator first tries the run of
+   * pages held in its {@link PagePool}, which takes no lock, and
+   * otherwise refills the run with more pages than it asked for.
+   *
    * @param pages The number of pages requested
    * @return The start of the first page if successful, zero on
    * failure.
@@ -445,6 +479,40 @@ public abstract class Space {
   public final Address acquire(int pages) {
     boolean allowPoll = VM.activePlan.isMutator() && Plan.isInitialized();
 
+    Address rtn;
+    if (pooled && allowPoll) {
+      PagePool pool = VM.activePlan.mutator().getPagePool();
+      rtn = pool.take(this, pages);
+      if (rtn.isZero()) {
+        int run = pool.nextRun(this, pages);
+        rtn = acquireFromPageResource(run, allowPoll);
+        if (rtn.isZero()) return rtn;
+        pool.refill(this, rtn, run, pages);
+      }
+    } else {
+      rtn = acquireFromPageResource(pages, allowPoll);
+      if (rtn.isZero()) return rtn;
+    }
+
+    /* Meta data is acquired where the mutator may not be able to do other work */
+    if (allowPoll && this != Plan.metaDataSpace) {
+      VM.activePlan.mutator().pagesAcquired(this, pages);
+    }
+
+    return rtn;
+  }
+
+  /**
+   * Acquire a number of pages from the page resource, polling the GC
+   * if permitted.
+   *
+   * @param pages The number of pages requested
+   * @param allowPoll Whether the GC may be polled
+   * @return The start of the first page if successful, zero on
+   * failure.
+   */
+  @LogicallyUninterruptible
+  private Address acquireFromPageResource(int pages, boolean allowPoll) {
     /* Check page budget */
     int pagesReserved = pr.reservePages(pages);
 
@@ -466,10 +534,18 @@ public abstract class Space {
       VM.collection.blockForGC();
       return Address.zero();
     }
-
     return rtn;
   }
 
+  /**
+   * Let mutators hold runs of this space's pages in their page pools.
+   * Only spaces whose pages are all released or flipped at each
+   * collection, and never released page by page, may allow this.
+   */
+  protected final void allowPagePooling() {
+    pooled = true;
+  }
+
   /**
    * Extend the virtual memory associated with a particular discontiguous
    * space.  This simply involves requesting a suitable number of chunks
@@ -555,6 +631,35 @@ public abstract class Space {
     return pages;
   }
 
+  /**
+   * Get the total number of reserved pages that hold no live objects,
+   * summed over all of the spaces.
+   *
+   * @return the total number of reserved pages known to be reclaimable
+   * @see #reclaimablePages()
+   */
+  public static int getPagesReclaimable() {
+    int pages = 0;
+    for (int i = 0; i < spaceCount; i++) {
+      pages += spaces[i].reclaimablePages();
+    }
+    return pages;
+  }
+
+  /**
+   * Finish the sweeps put off by all of the spaces, on behalf of one of
+   * several collectors working in parallel.
+   *
+   * @param ordinal the ordinal of the calling collector
+   * @param stride the number of collectors sweeping in parallel
+   * @see #finishDeferredSweep(int, int)
+   */
+  public static void finishDeferredSweeps(int ordinal, int stride) {
+    for (int i = 0; i < spaceCount; i++) {
+      spaces[i].finishDeferredSweep(ordinal, stride);
+    }
+  }
+
   /****************************************************************************
    *
    * Debugging / printing
@@ -663,7 +768,7 @@ public abstract class Space {
           Log.write("->");
           Log.writeln(space.start.plus(space.extent.minus(1)));
         }
-        Mmapper.ensureMapped(space.start, space.extent.toInt() >> LOG_BYTES_IN_PAGE);
+        Mmapper.ensureMapped(space.start, space.extent.toInt() >> LOG_BYTES_IN_PAGE, space.requestsHugePages());
       }
     }
   }
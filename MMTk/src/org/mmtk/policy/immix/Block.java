@@ -154,7 +154,9 @@ public class Block  {
       VM.assertions._assert(markCount == 0 || !isUnused(block));
     }
 
-    getDefragStateAddress(block).store(conservativeSpillCount);
+    /* a candidate for incremental evacuation stays one until it is evacuated or found empty */
+    if (markCount == 0 || !isEvacuationCandidate(block))
+      getDefragStateAddress(block).store(conservativeSpillCount);
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(markCount >= conservativeSpillCount);
     markHistogram[conservativeSpillCount] += markCount;
 
@@ -175,6 +177,35 @@ public class Block  {
     return getDefragStateAddress(address).loadShort() == BLOCK_IS_DEFRAG_SOURCE;
   }
 
+  /**
+   * @param address the block's address
+   * @return whether the block awaits incremental evacuation
+   */
+  public static boolean isEvacuationCandidate(Address address) {
+    return getDefragStateAddress(address).loadShort() == BLOCK_IS_EVACUATION_CANDIDATE;
+  }
+
+  /**
+   * @param address the block's address
+   * @return whether the block is being evacuated by the current collection
+   */
+  public static boolean isInEvacuationSet(Address address) {
+    return getDefragStateAddress(address).loadShort() == BLOCK_IS_IN_EVACUATION_SET;
+  }
+
+  /**
+   * @param address the block's address
+   * @return whether the block is reserved for incremental evacuation, and
+   * so must not be recycled
+   */
+  public static boolean isReservedForEvacuation(Address address) {
+    return getDefragStateAddress(address).loadShort() < 0;
+  }
+
+  static void setEvacuationState(Address address, short value) {
+    getDefragStateAddress(address).store(value);
+  }
+
   static void clearConservativeSpillCount(Address address) {
     getDefragStateAddress(address).store((short) 0);
   }
@@ -212,6 +243,10 @@ public class Block  {
   private static final short BLOCK_IS_NOT_DEFRAG_SOURCE = 0;
   private static final short BLOCK_IS_DEFRAG_SOURCE = 1;
 
+  /* incremental evacuation states, kept negative so as not to alias a spill count */
+  static final short BLOCK_IS_EVACUATION_CANDIDATE = -1;
+  static final short BLOCK_IS_IN_EVACUATION_SET = -2;
+
   /* block states */
   static final int LOG_BYTES_IN_BLOCK_STATE_ENTRY = LOG_BYTES_IN_SHORT; // use a short for now
   static final int BYTES_IN_BLOCK_STATE_ENTRY = 1 << LOG_BYTES_IN_BLOCK_STATE_ENTRY;
@@ -55,6 +55,8 @@ public class Chunk {
       Address block = chunk.plus(index << LOG_BYTES_IN_BLOCK);
       if (block.GT(end)) break;
       final boolean defragSource = space.inImmixDefragCollection() && Block.isDefragSource(block);
+      if (BUILD_FOR_RCIMMIX && !Block.isUnused(block))
+        Line.markFromLiveCounts(block, markValue);
       short marked = Block.sweepOneBlock(block, markHistogram, markValue, resetMarks);
       if (marked == 0) {
         if (!Block.isUnusedState(cursor)) {
@@ -72,6 +74,78 @@ public class Chunk {
     }
   }
 
+  /**
+   * Mark as evacuation candidates those blocks of a chunk which survived the
+   * last sweep intact and whose conservative spill count reaches the
+   * given threshold.  Existing candidates are retained, unless the
+   * threshold selects no block at all.
+   *
+   * @param chunk the chunk
+   * @param threshold the minimum spill count of a candidate
+   */
+  static void selectEvacuationCandidates(Address chunk, short threshold) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
+    Address end = getHighWater(chunk);
+    for (int index = FIRST_USABLE_BLOCK_INDEX; index < BLOCKS_IN_CHUNK; index++) {
+      Address block = chunk.plus(index << LOG_BYTES_IN_BLOCK);
+      if (block.GT(end)) break;
+      short marked = Block.getBlockMarkState(block);
+      if (Block.isEvacuationCandidate(block)) {
+        if (threshold > MAX_CONSV_SPILL_COUNT)
+          Block.clearConservativeSpillCount(block);
+      } else if (marked > 0 && marked <= MAX_BLOCK_MARK_STATE && Block.getConservativeSpillCount(block) >= threshold)
+        Block.setEvacuationState(block, Block.BLOCK_IS_EVACUATION_CANDIDATE);
+    }
+  }
+
+  /**
+   * Move evacuation candidates of a chunk into the evacuation set of the
+   * current collection, until the given number of live lines is reached.
+   *
+   * @param chunk the chunk
+   * @param budget the number of live lines which may still be evacuated
+   * @return the number of live lines added to the evacuation set
+   */
+  static int selectEvacuationSet(Address chunk, int budget) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
+    Address end = getHighWater(chunk);
+    int lines = 0;
+    for (int index = FIRST_USABLE_BLOCK_INDEX; index < BLOCKS_IN_CHUNK && lines < budget; index++) {
+      Address block = chunk.plus(index << LOG_BYTES_IN_BLOCK);
+      if (block.GT(end)) break;
+      if (Block.isEvacuationCandidate(block)) {
+        Block.setEvacuationState(block, Block.BLOCK_IS_IN_EVACUATION_SET);
+        lines += Block.getBlockMarkState(block);
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Release the blocks of a chunk which were evacuated by the current
+   * collection.
+   *
+   * @param chunk the chunk
+   * @param space the space to which the chunk belongs
+   * @return {@code true} if the chunk still holds evacuation candidates
+   */
+  static boolean releaseEvacuationSet(Address chunk, ImmixSpace space) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
+    Address end = getHighWater(chunk);
+    boolean pending = false;
+    for (int index = FIRST_USABLE_BLOCK_INDEX; index < BLOCKS_IN_CHUNK; index++) {
+      Address block = chunk.plus(index << LOG_BYTES_IN_BLOCK);
+      if (block.GT(end)) break;
+      if (Block.isInEvacuationSet(block)) {
+        Block.clearConservativeSpillCount(block);
+        VM.memory.zero(false, Line.getBlockMarkTable(block), Extent.fromIntZeroExtend(Line.LINE_MARK_BYTES_PER_BLOCK));
+        space.release(block);
+      } else if (Block.isEvacuationCandidate(block))
+        pending = true;
+    }
+    return pending;
+  }
+
   static void clearMetaData(Address chunk) {
     if (VM.VERIFY_ASSERTIONS) {
       VM.assertions._assert(isAligned(chunk));
@@ -128,6 +202,11 @@ public class Chunk {
     return (rtn < 0) ? -rtn : rtn;
   }
 
+  static void clearLiveCounts(Address chunk) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
+    VM.memory.zero(false, Line.getChunkLiveCountTable(chunk), Extent.fromIntZeroExtend(Line.LINE_COUNT_TABLE_BYTES));
+  }
+
   static void resetLineMarksAndDefragStateTable(Address chunk, short threshold) {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
     Address markStateBase = Block.getBlockMarkStateAddress(chunk);
@@ -156,7 +235,9 @@ public class Chunk {
   static final int BLOCK_DEFRAG_STATE_TABLE_OFFSET = BLOCK_STATE_TABLE_OFFSET + Block.BLOCK_STATE_TABLE_BYTES;
   static final int HIGHWATER_OFFSET = BLOCK_DEFRAG_STATE_TABLE_OFFSET + Block.BLOCK_DEFRAG_STATE_TABLE_BYTES;
   static final int MAP_OFFSET = HIGHWATER_OFFSET + HIGHWATER_BYTES;
-  static final int METADATA_BYTES_PER_CHUNK = MAP_OFFSET + MAP_BYTES;
+  static final int MARK_BITMAP_OFFSET = (MAP_OFFSET + MAP_BYTES + BYTES_IN_WORD - 1) & ~(BYTES_IN_WORD - 1);
+  static final int LINE_COUNT_TABLE_OFFSET = (MARK_BITMAP_OFFSET + MarkBitmap.MARK_BITMAP_BYTES + BYTES_IN_WORD - 1) & ~(BYTES_IN_WORD - 1);
+  static final int METADATA_BYTES_PER_CHUNK = LINE_COUNT_TABLE_OFFSET + Line.LINE_COUNT_TABLE_BYTES;
 
   /* FIXME we round the metadata up to block sizes just to ensure the underlying allocator gives us aligned requests */
   private static final int BLOCK_MASK = (1 << LOG_BYTES_IN_BLOCK) - 1;
@@ -78,13 +78,35 @@ public final class CollectorLocal {
   public void prepare(boolean majorGC) {
     int ordinal = VM.activePlan.collector().parallelWorkerOrdinal();
     if (majorGC) {
+      if (SIDE_MARK_BITMAP)
+        clearMarkBitmaps(ordinal);
       if (immixSpace.inImmixDefragCollection()) {
         short threshold = Defrag.defragSpillThreshold;
         resetLineMarksAndDefragStateTable(ordinal, threshold);
+      } else if (immixSpace.refreshingEvacuationCandidates()) {
+        selectEvacuationCandidates(ordinal, Defrag.evacuationSpillThreshold);
       }
     }
   }
 
+  private void clearMarkBitmaps(int ordinal) {
+    int stride = VM.activePlan.collector().parallelWorkerCount();
+    Address chunk = chunkMap.firstChunk(ordinal, stride);
+    while (!chunk.isZero()) {
+      MarkBitmap.clearChunk(chunk);
+      chunk = chunkMap.nextChunk(chunk, ordinal, stride);
+    }
+  }
+
+  private void selectEvacuationCandidates(int ordinal, final short threshold) {
+    int stride = VM.activePlan.collector().parallelWorkerCount();
+    Address chunk = chunkMap.firstChunk(ordinal, stride);
+    while (!chunk.isZero()) {
+      Chunk.selectEvacuationCandidates(chunk, threshold);
+      chunk = chunkMap.nextChunk(chunk, ordinal, stride);
+    }
+  }
+
   private void resetLineMarksAndDefragStateTable(int ordinal, final short threshold) {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(immixSpace.inImmixDefragCollection());
     int stride = VM.activePlan.collector().parallelWorkerCount();
@@ -95,6 +117,22 @@ public final class CollectorLocal {
     }
   }
 
+  /**
+   * Forget the live object counts of every line, in preparation for a
+   * trace which will count the objects it finds afresh (RC-Immix).  We help
+   * clearing all the chunks in parallel.
+   */
+  public void clearLineLiveCounts() {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(BUILD_FOR_RCIMMIX);
+    int stride = VM.activePlan.collector().parallelWorkerCount();
+    int ordinal = VM.activePlan.collector().parallelWorkerOrdinal();
+    Address chunk = chunkMap.firstChunk(ordinal, stride);
+    while (!chunk.isZero()) {
+      Chunk.clearLiveCounts(chunk);
+      chunk = chunkMap.nextChunk(chunk, ordinal, stride);
+    }
+  }
+
   /**
    * Finish up after a collection.
    *
@@ -51,6 +51,7 @@ public class Defrag {
   private boolean debugCollectionTypeDetermined = false;
   static short defragSpillThreshold = 0;
   static short defragReusableMarkStateThreshold = 0;
+  static short evacuationSpillThreshold = SPILL_HISTOGRAM_BUCKETS;
   public static EventCounter defrags = new EventCounter("defrags");
 
   static {
@@ -186,6 +187,36 @@ public class Defrag {
   }
 
 
+  /**
+   * Choose the spill threshold above which blocks become candidates for
+   * incremental evacuation.  As with defragmentation, the most
+   * fragmented blocks are preferred, but here the candidates are limited
+   * by the number of live lines that will have to be evacuated rather
+   * than by the headroom available now.
+   *
+   * @param limit The maximum number of live lines held by the candidates
+   * @return {@code true} if any spill bucket was selected
+   */
+  boolean establishEvacuationSpillThreshold(int limit) {
+    short threshold = SPILL_HISTOGRAM_BUCKETS;
+    int requiredLines = 0;
+    int collectors = VM.activePlan.collectorCount();
+    for (short index = MAX_CONSV_SPILL_COUNT; index >= TMP_MIN_SPILL_THRESHOLD; index--) {
+      int thisBucketMark = 0;
+      for (int c = 0; c < collectors; c++) thisBucketMark += spillMarkHistograms[c][index];
+      if (requiredLines + thisBucketMark > limit)
+        break;
+      requiredLines += thisBucketMark;
+      threshold = index;
+    }
+    if (requiredLines == 0) threshold = SPILL_HISTOGRAM_BUCKETS;
+    if (VM.VERIFY_ASSERTIONS && Options.verbose.getValue() > 2) {
+      Log.write("[evacuation threshold: "); Log.write(threshold); Log.write(" lines: "); Log.write(requiredLines); Log.write("]");
+    }
+    evacuationSpillThreshold = threshold;
+    return threshold < SPILL_HISTOGRAM_BUCKETS;
+  }
+
   boolean spaceExhausted() {
     return defragSpaceExhausted;
   }
@@ -22,6 +22,8 @@ import org.vmmagic.unboxed.Word;
 
 public class ImmixConstants {
   public static final boolean BUILD_FOR_STICKYIMMIX = Plan.NEEDS_LOG_BIT_IN_HEADER;
+  /* RC-Immix frees lines by counting the live objects on each, and never marks */
+  public static final boolean BUILD_FOR_RCIMMIX = VM.activePlan.constraints().needsLineLiveCounts();
 
   /* start temporary experimental constants --- should not be allowed to lurk longer than necessary */
   public static final int TMP_MIN_SPILL_THRESHOLD = 2;
@@ -33,6 +35,9 @@ public class ImmixConstants {
 
   public static final boolean MARK_LINE_AT_SCAN_TIME = true; // else do it at mark time
 
+  /* mark objects in a per-chunk side bitmap rather than the header (sticky immix needs the header mark state) */
+  public static final boolean SIDE_MARK_BITMAP = !VM.config.HEADER_MARK_BITS && !BUILD_FOR_STICKYIMMIX && !BUILD_FOR_RCIMMIX;
+
   public static final boolean SANITY_CHECK_LINE_MARKS = false && VM.VERIFY_ASSERTIONS;
 
   public static final float DEFAULT_LINE_REUSE_RATIO = (float) 0.99;
@@ -42,6 +47,8 @@ public class ImmixConstants {
   public static final float DEFAULT_DEFRAG_HEADROOM_FRACTION = (float) 0.020;
   public static final int DEFAULT_DEFRAG_FREE_HEADROOM = 0; // number of pages.  This should only deviate from zero for analytical purposes.  Otherwise the defragmenter is cheating!
   public static final float DEFAULT_DEFRAG_FREE_HEADROOM_FRACTION = (float) 0.0;
+  public static final int DEFAULT_MATURE_EVACUATION_BUDGET = 0; // number of pages.  Zero disables incremental evacuation.
+  public static final int MAX_EVACUATION_INCREMENTS = 8; // candidates chosen at a full heap GC are evacuated over at most this many nursery GCs
   /* sizes etc */
   static final int LOG_BYTES_IN_BLOCK = (LOG_BYTES_IN_PAGE > 15 ? LOG_BYTES_IN_PAGE : 15);
   public static final int BYTES_IN_BLOCK = 1 << LOG_BYTES_IN_BLOCK;
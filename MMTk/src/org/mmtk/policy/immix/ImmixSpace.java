@@ -20,6 +20,7 @@ import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.policy.Space;
 import org.mmtk.utility.heap.*;
 import org.mmtk.utility.options.LineReuseRatio;
+import org.mmtk.utility.options.MatureEvacuationBudget;
 import org.mmtk.utility.options.Options;
 import org.mmtk.utility.ForwardingWord;
 import org.mmtk.utility.HeaderByte;
@@ -66,7 +67,12 @@ public final class ImmixSpace extends Space {
           byte lineMarkState = RESET_LINE_MARK_STATE;
   private byte lineUnavailState = RESET_LINE_MARK_STATE;
   private boolean inCollection;
+  private boolean isAllocAsMarked = false;
   private int linesConsumed = 0;
+  private int evacuationBudget = 0;
+  private boolean evacuationPending = false;
+  private boolean refreshEvacuationCandidates = false;
+  private boolean inEvacuation = false;
 
   private final Lock mutatorLock = VM.newLock(getName() + "mutator");
   private final Lock gcLock = VM.newLock(getName() + "gc");
@@ -85,6 +91,7 @@ public final class ImmixSpace extends Space {
 
   static {
     Options.lineReuseRatio = new LineReuseRatio();
+    Options.matureEvacuationBudget = new MatureEvacuationBudget();
     reusableMarkStateThreshold = (short) (Options.lineReuseRatio.getValue() * MAX_BLOCK_MARK_STATE);
   }
 
@@ -141,9 +148,26 @@ public final class ImmixSpace extends Space {
     }
     chunkMap.reset();
     defrag.prepare(chunkMap, this);
+    if (majorGC) {
+      refreshEvacuationCandidates = !defrag.inDefrag() && (evacuationBudget > 0 || evacuationPending);
+      evacuationPending = refreshEvacuationCandidates && defrag.establishEvacuationSpillThreshold(evacuationBudget * MAX_EVACUATION_INCREMENTS);
+    }
     inCollection = true;
   }
 
+  /**
+   * Prepare for a collection increment of a plan which counts the live
+   * objects on each line rather than marking lines (RC-Immix).  Until
+   * the increment is released, copying is confined to clean blocks,
+   * since a line with no counted objects may still hold young objects
+   * which are yet to be reached.
+   */
+  public void prepareCounted() {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(BUILD_FOR_RCIMMIX);
+    prepare(false);
+    exhaustedReusableSpace = true;
+  }
+
   /**
    * A new collection increment has completed.  Release global resources.
    * @param majorGC whether the collection was a full heap collection
@@ -159,6 +183,7 @@ public final class ImmixSpace extends Space {
     chunkMap.reset();
     defrag.globalRelease();
     inCollection = false;
+    refreshEvacuationCandidates = false;
 
     /* set up reusable space */
     if (allocBlockCursor.isZero()) allocBlockCursor = chunkMap.getHeadChunk();
@@ -177,6 +202,105 @@ public final class ImmixSpace extends Space {
     return didDefrag;
   }
 
+  /****************************************************************************
+   *
+   * Incremental evacuation
+   */
+
+  /**
+   * Set the volume of live data which each nursery collection may
+   * evacuate from the sparsest blocks of this space.  A budget of zero
+   * disables incremental evacuation.  Evacuation candidates are chosen
+   * at each full heap collection, which must remember every reference
+   * into them (see {@link #evacuationPending()}).
+   *
+   * @param pages The budget, in pages
+   */
+  public void setEvacuationBudget(int pages) {
+    evacuationBudget = pages << (LOG_BYTES_IN_PAGE - LOG_BYTES_IN_LINE);
+  }
+
+  /**
+   * Return {@code true} if this space holds blocks awaiting incremental
+   * evacuation.  While this is the case, every reference into such a
+   * block that is not a root must be remembered.
+   *
+   * @return {@code true} if blocks are awaiting evacuation
+   */
+  @Inline
+  public boolean evacuationPending() {
+    return evacuationPending;
+  }
+
+  /**
+   * @return {@code true} if the current full heap collection must
+   * (re)select the evacuation candidates
+   */
+  boolean refreshingEvacuationCandidates() {
+    return refreshEvacuationCandidates;
+  }
+
+  /**
+   * Return {@code true} if the current (nursery) collection is
+   * evacuating blocks of this space.
+   *
+   * @return {@code true} if blocks are being evacuated
+   */
+  @Inline
+  public boolean inEvacuation() {
+    return inEvacuation;
+  }
+
+  /**
+   * Move candidate blocks into the evacuation set of the current nursery
+   * collection, until their live lines reach the evacuation budget.
+   *
+   * @return {@code true} if any block will be evacuated
+   */
+  public boolean selectEvacuationSet() {
+    if (!evacuationPending) return false;
+    chunkMap.reset();
+    int budget = evacuationBudget;
+    Address chunk = chunkMap.getHeadChunk();
+    while (!chunk.isZero() && budget > 0) {
+      budget -= Chunk.selectEvacuationSet(chunk, budget);
+      chunk = chunkMap.nextChunk(chunk);
+    }
+    inEvacuation = budget < evacuationBudget;
+    if (!inEvacuation && evacuationBudget > 0) evacuationPending = false;
+    if (Options.verbose.getValue() > 2 && inEvacuation) {
+      Log.write("[Evacuate "); Log.write(evacuationBudget - budget); Log.write(" lines]");
+    }
+    return inEvacuation;
+  }
+
+  /**
+   * Release the blocks evacuated by the current nursery collection.
+   * Every object reachable from them has been forwarded by now.
+   */
+  public void releaseEvacuationSet() {
+    if (!inEvacuation) return;
+    chunkMap.reset();
+    boolean pending = false;
+    Address chunk = chunkMap.getHeadChunk();
+    while (!chunk.isZero()) {
+      if (Chunk.releaseEvacuationSet(chunk, this)) pending = true;
+      chunk = chunkMap.nextChunk(chunk);
+    }
+    evacuationPending = pending;
+    inEvacuation = false;
+  }
+
+  /**
+   * Return the amount of headroom required by the next evacuation
+   * increment, so this can be included in a collection reserve.
+   *
+   * @return The number of pages.
+   */
+  public int evacuationHeadroomPages() {
+    return evacuationPending ? evacuationBudget >> (LOG_BYTES_IN_PAGE - LOG_BYTES_IN_LINE) : 0;
+  }
+
   /**
    * Determine the collection kind.
    *
@@ -189,6 +313,17 @@ public final class ImmixSpace extends Space {
     defrag.decideWhetherToDefrag(emergencyCollection, collectWholeHeap, collectionAttempt, userTriggeredCollection, exhaustedReusableSpace);
   }
 
+  /**
+   * Return {@code true} if copying in the current collection has used up
+   * the clean pages available to it, so objects should stay in place.
+   *
+   * @return {@code true} if copying should stop
+   */
+  @Inline
+  public boolean copySpaceExhausted() {
+    return defrag.spaceExhausted();
+  }
+
   /**
    * Return the amount of headroom required to allow defrag, so this can be included in a collection reserve.
    *
@@ -373,6 +508,20 @@ public final class ImmixSpace extends Space {
       ObjectHeader.markAsStraddling(object);
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(ObjectHeader.isNewObject(object));
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!ForwardingWord.isForwardedOrBeingForwarded(object));
+    if (isAllocAsMarked) {
+      ObjectHeader.writeMarkState(object, markState, bytes > BYTES_IN_LINE);
+      if (SIDE_MARK_BITMAP) MarkBitmap.testAndMark(object);
+      markLines(object);
+    }
+  }
+
+  /**
+   * Allocate objects (and their lines) as marked.  This is required by
+   * concurrent collectors, where objects allocated while a trace is in
+   * progress must survive the collection.
+   */
+  public void makeAllocAsMarked() {
+    isAllocAsMarked = true;
   }
 
  /**
@@ -387,6 +536,7 @@ public final class ImmixSpace extends Space {
   @Inline
   public void postCopy(ObjectReference object, int bytes, boolean majorGC) {
     ObjectHeader.writeMarkState(object, markState, bytes > BYTES_IN_LINE);
+    if (SIDE_MARK_BITMAP) MarkBitmap.testAndMark(object);
     if (!MARK_LINE_AT_SCAN_TIME && majorGC) markLines(object);
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!ForwardingWord.isForwardedOrBeingForwarded(object));
     if (VM.VERIFY_ASSERTIONS && HeaderByte.NEEDS_UNLOGGED_BIT) VM.assertions._assert(HeaderByte.isUnlogged(object));
@@ -463,6 +613,32 @@ public final class ImmixSpace extends Space {
       return fastTraceObject(trace, object);
   }
 
+  /**
+   * Trace a reference to an object during a nursery collection which
+   * evacuates blocks of this space.  Objects in the evacuation set are
+   * forwarded and enqueued for subsequent processing; all others are
+   * left alone.
+   *
+   * @param trace The trace performing the transitive closure
+   * @param object The object to be traced.
+   * @param allocator The allocator to which any copying should be directed
+   * @return Either the object or a forwarded object.
+   */
+  @Inline
+  public ObjectReference evacuateObject(TransitiveClosure trace, ObjectReference object, int allocator) {
+    if (!isInEvacuationSet(object))
+      return object;
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!ObjectHeader.isPinnedObject(object));
+
+    /* Race to be the forwarder */
+    Word priorStatusWord = ForwardingWord.attemptToForward(object);
+    if (ForwardingWord.stateIsForwardedOrBeingForwarded(priorStatusWord))
+      return ForwardingWord.spinAndGetForwardedObject(object, priorStatusWord);
+    ObjectReference newObject = ForwardingWord.forwardObject(object, allocator);
+    trace.processNode(newObject);
+    return newObject;
+  }
+
   /**
    * Trace a reference to an object.  This interface is not supported by immix, since
    * we require the allocator to be identified except for the special case of the fast
@@ -487,10 +663,15 @@ public final class ImmixSpace extends Space {
    */
   @Inline
   private void traceObjectWithoutMoving(TransitiveClosure trace, ObjectReference object) {
-    byte markValue = markState;
-    byte oldMarkState = ObjectHeader.testAndMark(object, markValue);
+    boolean marked;
+    if (SIDE_MARK_BITMAP) {
+      marked = MarkBitmap.testAndMark(object);
+    } else {
+      byte markValue = markState;
+      marked = ObjectHeader.testAndMark(object, markValue) != markValue;
+    }
     if (VM.VERIFY_ASSERTIONS)  VM.assertions._assert(!defrag.inDefrag() || defrag.spaceExhausted() || !isDefragSource(object));
-    if (oldMarkState != markValue) {
+    if (marked) {
       if (!MARK_LINE_AT_SCAN_TIME)
         markLines(object);
       trace.processNode(object);
@@ -527,7 +708,8 @@ public final class ImmixSpace extends Space {
     } else {
       byte priorState = (byte) (priorStatusWord.toInt() & 0xFF);
       /* the object is unforwarded, either because this is the first thread to reach it, or because the object can't be forwarded */
-      if (ObjectHeader.testMarkState(priorState, markState)) {
+      /* with a side bitmap the header mark state may be stale from an earlier GC, so consult the bitmap */
+      if (SIDE_MARK_BITMAP ? MarkBitmap.isMarked(object) : ObjectHeader.testMarkState(priorState, markState)) {
         /* the object has not been forwarded, but has the correct mark state; unlock and return unmoved object */
         /* Note that in a sticky mark bits collector, the mark state does not change at each GC, so correct mark state does not imply another thread got there first */
         if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(nurseryCollection || defrag.spaceExhausted() || ObjectHeader.isPinnedObject(object));
@@ -539,6 +721,7 @@ public final class ImmixSpace extends Space {
         ObjectReference newObject;
         if (ObjectHeader.isPinnedObject(object) || (!nurseryCollection && defrag.spaceExhausted())) {
           /* mark in place */
+          if (SIDE_MARK_BITMAP) MarkBitmap.testAndMark(object); // before unlocking, so later arrivals see it
           ObjectHeader.setMarkStateUnlogAndUnlock(object, priorState, markState);
           newObject = object;
           if (VM.VERIFY_ASSERTIONS && Plan.NEEDS_LOG_BIT_IN_HEADER) VM.assertions._assert(HeaderByte.isUnlogged(newObject));
@@ -600,6 +783,27 @@ public final class ImmixSpace extends Space {
       Line.markMultiLine(address, object, lineMarkState);
   }
 
+  /**
+   * Count an object which has become live on each line it touches.  Only
+   * used by RC-Immix, which frees a line once its count returns to zero.
+   *
+   * @param object The object which has become live
+   */
+  @Inline
+  public void incLineLiveCounts(ObjectReference object) {
+    Line.adjustLiveCounts(object, 1);
+  }
+
+  /**
+   * Stop counting a dead object on each line it touches.
+   *
+   * @param object The object which has died
+   */
+  @Inline
+  public void decLineLiveCounts(ObjectReference object) {
+    Line.adjustLiveCounts(object, -1);
+  }
+
   public int getNextUnavailableLine(Address baseLineAvailAddress, int line) {
     return Line.getNextUnavailable(baseLineAvailAddress, line, lineUnavailState);
   }
@@ -660,7 +864,7 @@ public final class ImmixSpace extends Space {
     Address highwater = Chunk.getHighWater(chunkCursor);
     do {
       short markState = blockStateCursor.loadShort();
-      if (markState != 0 && markState <= reusableMarkStateThreshold) {
+      if (markState != 0 && markState <= reusableMarkStateThreshold && !Block.isReservedForEvacuation(blockCursor)) {
         int usable = LINES_IN_BLOCK - markState;
         short bucket = Block.getConservativeSpillCount(blockCursor);
         if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(bucket >= 0 && bucket <= MAX_CONSV_SPILL_COUNT);
@@ -696,9 +900,9 @@ public final class ImmixSpace extends Space {
   @Inline
   public boolean isLive(ObjectReference object) {
     if (defrag.inDefrag() && isDefragSource(object))
-      return ForwardingWord.isForwardedOrBeingForwarded(object) || ObjectHeader.testMarkState(object, markState);
+      return ForwardingWord.isForwardedOrBeingForwarded(object) || testMarked(object);
     else
-      return ObjectHeader.testMarkState(object, markState);
+      return testMarked(object);
   }
 
   /**
@@ -721,7 +925,75 @@ public final class ImmixSpace extends Space {
   @Inline
   public boolean fastIsLive(ObjectReference object) {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!defrag.inDefrag());
-    return ObjectHeader.testMarkState(object, markState);
+    return testMarked(object);
+  }
+
+  /**
+   * @param object The object in question
+   * @return {@code true} if the object is marked, in the side bitmap
+   * if there is one and otherwise in its header
+   */
+  @Inline
+  private boolean testMarked(ObjectReference object) {
+    if (SIDE_MARK_BITMAP)
+      return MarkBitmap.isMarked(object);
+    else
+      return ObjectHeader.testMarkState(object, markState);
+  }
+
+  /**
+   * Test the liveness of an object during a nursery collection which
+   * evacuates blocks of this space.  Objects outside the evacuation set
+   * are considered alive.
+   *
+   * @param object The object in question
+   * @return {@code true} if this object is known to be live
+   */
+  @Inline
+  public boolean evacuationIsLive(ObjectReference object) {
+    return !isInEvacuationSet(object) || ForwardingWord.isForwardedOrBeingForwarded(object);
+  }
+
+  /**
+   * @param object The object in question
+   * @return {@code true} if the object lies in a block awaiting evacuation
+   */
+  @Inline
+  public boolean isEvacuationCandidate(ObjectReference object) {
+    return Block.isEvacuationCandidate(VM.objectModel.refToAddress(object));
+  }
+
+  /**
+   * @param object The object in question
+   * @return {@code true} if the object lies in a block being evacuated
+   */
+  @Inline
+  public boolean isInEvacuationSet(ObjectReference object) {
+    return isInEvacuationSet(VM.objectModel.refToAddress(object));
+  }
+
+  /**
+   * @param address An address within this space
+   * @return {@code true} if the address lies in a block being evacuated
+   */
+  @Inline
+  public boolean isInEvacuationSet(Address address) {
+    return inEvacuation && Block.isInEvacuationSet(address);
+  }
+
+  /**
+   * Withdraw the block holding an object from incremental evacuation
+   * if the object is pinned.
+   *
+   * @param object The object in question
+   */
+  @Inline
+  public void retainIfPinned(ObjectReference object) {
+    if (ObjectHeader.isPinnedObject(object)) {
+      Address block = Block.align(VM.objectModel.refToAddress(object));
+      if (Block.isEvacuationCandidate(block))
+        Block.clearConservativeSpillCount(block);
+    }
   }
 
   @Inline
@@ -13,6 +13,7 @@
 package org.mmtk.policy.immix;
 
 import static org.mmtk.policy.immix.ImmixConstants.*;
+import static org.mmtk.utility.Constants.LOG_BYTES_IN_INT;
 
 import org.mmtk.vm.VM;
 
@@ -64,6 +65,58 @@ public class Line {
     }
   }
 
+  /***************************************************************************
+   * Line live object counts (RC-Immix)
+   */
+
+  /**
+   * Adjusts the live object count of every line touched by an object.
+   *
+   * @param object the object
+   * @param delta the adjustment: 1 when the object becomes live, -1 when it dies
+   */
+  static void adjustLiveCounts(ObjectReference object, final int delta) {
+    Address line = align(VM.objectModel.objectStartRef(object));
+    Address endLine = align(VM.objectModel.getObjectEndAddress(object).minus(1));
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Block.align(line).EQ(Block.align(endLine)));
+    while (line.LE(endLine)) {
+      Address count = getLiveCountAddress(line);
+      int old;
+      do {
+        old = count.prepareInt();
+        if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(old + delta >= 0);
+      } while (!count.attempt(old, old + delta));
+      line = line.plus(BYTES_IN_LINE);
+    }
+  }
+
+  /**
+   * Marks exactly those lines of a block which hold a counted live object,
+   * and clears the marks of all others, so that a sweep with the given
+   * mark value frees the lines whose objects have all died.
+   *
+   * @param block the block's address
+   * @param markValue the value to use for marking
+   */
+  static void markFromLiveCounts(Address block, final byte markValue) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Block.isAligned(block));
+    Address markTable = getBlockMarkTable(block);
+    Address countTable = getLiveCountAddress(block);
+    for (int line = 0; line < LINES_IN_BLOCK; line++) {
+      int count = countTable.loadInt(Offset.fromIntZeroExtend(line << LOG_BYTES_IN_LINE_COUNT));
+      markTable.store(count > 0 ? markValue : 0, Offset.fromIntZeroExtend(line << LOG_BYTES_IN_LINE_STATUS));
+    }
+  }
+
+  /**
+   * @param chunk the chunk's address
+   * @return the address of the chunk live count table
+   */
+  static Address getChunkLiveCountTable(Address chunk) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Chunk.isAligned(chunk));
+    return getLiveCountAddress(chunk);
+  }
+
   /***************************************************************************
    * Scanning through avail lines
    */
@@ -126,6 +179,13 @@ public class Line {
     return getMetaAddress(address, Chunk.LINE_MARK_TABLE_OFFSET);
   }
 
+  private static Address getLiveCountAddress(Address address) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(BUILD_FOR_RCIMMIX);
+    Address chunk = Chunk.align(address);
+    int index = getChunkIndex(address);
+    return chunk.plus(Chunk.LINE_COUNT_TABLE_OFFSET + (index << LOG_BYTES_IN_LINE_COUNT));
+  }
+
   /* per-line mark bytes */
 
   static final int LOG_BYTES_IN_LINE_STATUS = 0;
@@ -134,4 +194,9 @@ public class Line {
   static final int LINE_MARK_TABLE_BYTES = LINES_IN_CHUNK << LOG_BYTES_IN_LINE_STATUS;
   static final int LOG_LINE_MARK_BYTES_PER_BLOCK = LOG_LINES_IN_BLOCK + LOG_BYTES_IN_LINE_STATUS;
   static final int LINE_MARK_BYTES_PER_BLOCK = (1 << LOG_LINE_MARK_BYTES_PER_BLOCK);
+
+  /* per-line live object counts, only kept by RC-Immix */
+
+  static final int LOG_BYTES_IN_LINE_COUNT = LOG_BYTES_IN_INT;
+  static final int LINE_COUNT_TABLE_BYTES = BUILD_FOR_RCIMMIX ? LINES_IN_CHUNK << LOG_BYTES_IN_LINE_COUNT : 0;
 }
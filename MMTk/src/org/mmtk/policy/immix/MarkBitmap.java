@@ -0,0 +1,107 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.policy.immix;
+
+import static org.mmtk.policy.Space.BYTES_IN_CHUNK;
+import static org.mmtk.policy.immix.ImmixConstants.*;
+import static org.mmtk.utility.Constants.*;
+
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.Inline;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.Extent;
+import org.vmmagic.unboxed.ObjectReference;
+import org.vmmagic.unboxed.Word;
+
+/**
+ * A side table of mark bits, one bit per minimum alignment unit, held
+ * in the metadata of each immix chunk.  When enabled (see
+ * {@link ImmixConstants#SIDE_MARK_BITMAP}), a full heap trace marks
+ * objects here rather than in their headers, and the marks are
+ * discarded in bulk at the start of each full heap collection rather
+ * than by flipping the mark state of every object.
+ */
+@Uninterruptible
+public class MarkBitmap {
+
+  /**
+   * Atomically set the mark bit of an object.
+   *
+   * @param object The object to be marked
+   * @return {@code true} if this call changed the bit from clear to set
+   */
+  @Inline
+  static boolean testAndMark(ObjectReference object) {
+    Address address = VM.objectModel.refToAddress(object);
+    Address markWord = getWordAddress(address);
+    Word mask = getMask(address);
+    Word oldValue;
+    do {
+      oldValue = markWord.prepareWord();
+      if (oldValue.and(mask).EQ(mask)) return false;
+    } while (!markWord.attempt(oldValue, oldValue.or(mask)));
+    return true;
+  }
+
+  /**
+   * @param object The object in question
+   * @return {@code true} if the mark bit of the object is set
+   */
+  @Inline
+  static boolean isMarked(ObjectReference object) {
+    Address address = VM.objectModel.refToAddress(object);
+    Word mask = getMask(address);
+    return getWordAddress(address).loadWord().and(mask).EQ(mask);
+  }
+
+  /**
+   * Clear the mark bits of every block of a chunk up to its high water mark.
+   *
+   * @param chunk The chunk whose mark bits are to be cleared
+   */
+  static void clearChunk(Address chunk) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(Chunk.isAligned(chunk));
+    Address highWater = Chunk.getHighWater(chunk);
+    if (highWater.isZero()) return;
+    Address start = getWordAddress(Chunk.getFirstUsableBlock(chunk));
+    Address end = getWordAddress(highWater.plus(BYTES_IN_BLOCK - 1)).plus(BYTES_IN_WORD);
+    VM.memory.zero(false, start, end.diff(start).toWord().toExtent());
+  }
+
+  private static Word getMask(Address address) {
+    int shift = address.toWord().rshl(LOG_BIT_COVERAGE).and(WORD_SHIFT_MASK).toInt();
+    return Word.one().lsh(shift);
+  }
+
+  private static Address getWordAddress(Address address) {
+    Address chunk = Chunk.align(address);
+    int index = address.toWord().and(CHUNK_MASK).rshl(LOG_WORD_COVERAGE).toInt();
+    Address rtn = chunk.plus(Chunk.MARK_BITMAP_OFFSET + (index << LOG_BYTES_IN_WORD));
+    if (VM.VERIFY_ASSERTIONS) {
+      VM.assertions._assert(SIDE_MARK_BITMAP);
+      VM.assertions._assert(rtn.GE(chunk.plus(Chunk.MARK_BITMAP_OFFSET)));
+      VM.assertions._assert(rtn.LT(chunk.plus(Chunk.MARK_BITMAP_OFFSET + MARK_BITMAP_BYTES)));
+    }
+    return rtn;
+  }
+
+  /* one mark bit per minimum alignment unit */
+
+  private static final int LOG_BIT_COVERAGE = LOG_MIN_ALIGNMENT;
+  private static final int LOG_WORD_COVERAGE = LOG_BIT_COVERAGE + LOG_BITS_IN_WORD;
+  private static final Word WORD_SHIFT_MASK = Word.fromIntZeroExtend(BITS_IN_WORD - 1);
+
+  static final int MARK_BITMAP_BYTES = SIDE_MARK_BITMAP ? BYTES_IN_CHUNK >> (LOG_BIT_COVERAGE + LOG_BITS_IN_BYTE) : 0;
+}
@@ -0,0 +1,177 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility;
+
+import org.mmtk.policy.RawPageSpace;
+import org.mmtk.policy.Space;
+import org.mmtk.vm.Lock;
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * This class implements a card table: a byte of side meta data for each
+ * card of the heap, recording whether the card holds references which
+ * must be revisited by the next nursery collection.<p>
+ *
+ * The table is split into one piece per chunk of the heap, reached
+ * through a directory indexed by chunk.  The directory is allocated
+ * when allocation is enabled, while the piece covering a chunk is only
+ * acquired when a card in that chunk is first dirtied, so the table
+ * grows with the part of the address space that holds reference arrays
+ * rather than with the whole virtual address range.  A zeroed entry,
+ * or a chunk without a table, denotes a clean card.
+ */
+@Uninterruptible
+public final class CardTable {
+
+  /****************************************************************************
+   *
+   * Class variables
+   */
+
+  /**
+   *
+   */
+  public static final int LOG_BYTES_IN_CARD = 9;
+  public static final int BYTES_IN_CARD = 1 << LOG_BYTES_IN_CARD;
+  private static final Word CARD_MASK = Word.fromIntZeroExtend(BYTES_IN_CARD - 1);
+
+  private static final byte CARD_CLEAN = 0;
+  private static final byte CARD_DIRTY = 1;
+
+  /** The size of the table covering one chunk */
+  private static final int LOG_TABLE_BYTES_IN_CHUNK = Space.LOG_BYTES_IN_CHUNK - LOG_BYTES_IN_CARD;
+  private static final int TABLE_BYTES_IN_CHUNK = 1 << LOG_TABLE_BYTES_IN_CHUNK;
+  private static final Word CHUNK_MASK = Word.fromIntZeroExtend(Space.BYTES_IN_CHUNK - 1);
+
+  private static final Lock lock = VM.newLock("CardTable");
+
+  /** The space from which the table is acquired */
+  private static RawPageSpace tableSpace;
+
+  /** The table covering each chunk of the heap, or zero if none of its cards has been dirtied */
+  private static AddressArray chunkTables;
+
+  /****************************************************************************
+   *
+   * Initialization
+   */
+
+  /**
+   * Allocate the chunk directory.  The table covering each chunk is
+   * acquired on demand from the given space.<p>
+   *
+   * This needs to happen at runtime because the directory is only
+   * needed by plans which mark cards.
+   *
+   * @param space The space from which to acquire the table
+   */
+  @Interruptible
+  public static void acquireTable(RawPageSpace space) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(VM.HEAP_START.toWord().and(CHUNK_MASK).isZero());
+    tableSpace = space;
+    chunkTables = AddressArray.create(VM.HEAP_END.diff(VM.HEAP_START).toWord().rshl(Space.LOG_BYTES_IN_CHUNK).toInt());
+  }
+
+  /****************************************************************************
+   *
+   * Card manipulation
+   */
+
+  /**
+   * @param address An address in the heap
+   * @return The start of the card containing the address
+   */
+  @Inline
+  public static Address align(Address address) {
+    return address.toWord().and(CARD_MASK.not()).toAddress();
+  }
+
+  /**
+   * @param address An address in the heap
+   * @return {@code true} if the card containing the address is dirty
+   */
+  @Inline
+  public static boolean isDirty(Address address) {
+    Address table = chunkTables.get(chunkIndex(address));
+    return !table.isZero() && table.loadByte(cardOffset(address)) == CARD_DIRTY;
+  }
+
+  /**
+   * Mark the card containing an address as dirty.
+   *
+   * @param address An address in the heap
+   */
+  @Inline
+  public static void markDirty(Address address) {
+    int chunk = chunkIndex(address);
+    Address table = chunkTables.get(chunk);
+    if (table.isZero()) table = acquireChunkTable(chunk);
+    table.store(CARD_DIRTY, cardOffset(address));
+  }
+
+  /**
+   * Mark the card containing an address as clean.
+   *
+   * @param address An address in the heap
+   */
+  @Inline
+  public static void clean(Address address) {
+    Address table = chunkTables.get(chunkIndex(address));
+    if (!table.isZero()) table.store(CARD_CLEAN, cardOffset(address));
+  }
+
+  /**
+   * Acquire the (zeroed) table covering a chunk, unless another thread
+   * has done so already.
+   *
+   * @param chunk The index of the chunk
+   * @return The table covering the chunk
+   */
+  @NoInline
+  private static Address acquireChunkTable(int chunk) {
+    lock.acquire();
+    Address table = chunkTables.get(chunk);
+    if (table.isZero()) {
+      table = tableSpace.acquire(Conversions.bytesToPagesUp(Extent.fromIntZeroExtend(TABLE_BYTES_IN_CHUNK)));
+      if (table.isZero()) VM.assertions.fail("Failed to acquire card table");
+      VM.memory.zero(false, table, Extent.fromIntZeroExtend(TABLE_BYTES_IN_CHUNK));
+      VM.memory.sync();
+      chunkTables.set(chunk, table);
+    }
+    lock.release();
+    return table;
+  }
+
+  /**
+   * @param address An address in the heap
+   * @return The index of the chunk containing the address in the directory
+   */
+  @Inline
+  private static int chunkIndex(Address address) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(chunkTables != null && address.GE(VM.HEAP_START) && address.LT(VM.HEAP_END));
+    return address.diff(VM.HEAP_START).toWord().rshl(Space.LOG_BYTES_IN_CHUNK).toInt();
+  }
+
+  /**
+   * @param address An address in the heap
+   * @return The offset of the entry for the card containing the address
+   * within the table covering its chunk
+   */
+  @Inline
+  private static Offset cardOffset(Address address) {
+    return address.toWord().and(CHUNK_MASK).rshl(LOG_BYTES_IN_CARD).toOffset();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility;
+
+import static org.mmtk.utility.Constants.*;
+
+import org.mmtk.policy.RawPageSpace;
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * A table of canonical contents, used to deduplicate the contents of
+ * objects (such as the character arrays backing strings) during a
+ * collection.  The VM identifies the slots that refer to deduplicable
+ * contents and defines their hash and equality, see
+ * {@link org.mmtk.vm.Scanning#getDeduplicationSlot(ObjectReference)}.<p>
+ *
+ * The table is open addressed with linear probing, and each entry
+ * holds a content hash and the first contents seen with that hash.
+ * Entries are claimed with a compare-and-swap on the hash, so the table
+ * may be shared by all collectors.  It is emptied at the start of each
+ * collection that uses it, as the canonical contents may move or die.
+ */
+@Uninterruptible
+public final class DeduplicationTable {
+
+  /** The maximum number of entries examined for any contents */
+  private static final int MAX_PROBES = 16;
+
+  private static final int LOG_ENTRY_BYTES = LOG_BYTES_IN_ADDRESS + 1;
+  private static final Offset HASH_OFFSET = Offset.zero();
+  private static final Offset CONTENTS_OFFSET = Offset.fromIntSignExtend(BYTES_IN_ADDRESS);
+
+  /** The space from which the table is acquired */
+  private final RawPageSpace space;
+
+  /** The size of the table in bytes */
+  private final Extent bytes;
+
+  /** The mask applied to hashes to select an entry */
+  private final int mask;
+
+  /** The table, zero until the first call to <code>prepare()</code> */
+  private Address table = Address.zero();
+
+  /**
+   * @param space The space from which to acquire the table
+   * @param logEntries The log of the number of entries in the table
+   */
+  public DeduplicationTable(RawPageSpace space, int logEntries) {
+    this.space = space;
+    this.bytes = Extent.fromIntZeroExtend(1 << (logEntries + LOG_ENTRY_BYTES));
+    this.mask = (1 << logEntries) - 1;
+  }
+
+  /**
+   * Empty the table ready for a collection, acquiring it on first
+   * use.  This is called by a single thread.
+   */
+  public void prepare() {
+    if (table.isZero()) {
+      table = space.acquire(Conversions.bytesToPages(bytes));
+      if (table.isZero()) {
+        VM.assertions.fail("Failed to allocate space for deduplication table.  Is metadata virtual memory exhausted?");
+      }
+    }
+    VM.memory.zero(false, table, bytes);
+  }
+
+  /**
+   * Redirect a slot to the canonical copy of the contents it refers
+   * to, making its contents canonical if they are the first seen.
+   * This must be called before the slot is traced.
+   *
+   * @param slot A slot referring to deduplicable contents
+   */
+  @Inline
+  public void deduplicate(Address slot) {
+    ObjectReference contents = VM.activePlan.global().loadObjectReference(slot);
+    if (contents.isNull()) return;
+    ObjectReference canonical = canonicalize(contents);
+    if (canonical.toAddress().NE(contents.toAddress())) {
+      VM.activePlan.global().storeObjectReference(slot, canonical);
+    }
+  }
+
+  /**
+   * Find the canonical copy of some contents, inserting the contents
+   * if no equal contents have been seen.
+   *
+   * @param contents The contents
+   * @return The canonical copy, or <code>contents</code> if they are
+   * the first seen or the table is too full to tell
+   */
+  private ObjectReference canonicalize(ObjectReference contents) {
+    int hash = VM.scanning.contentHash(contents);
+    Word key = Word.fromIntZeroExtend(hash).or(Word.one()); // an empty entry has a zero hash
+    int index = hash;
+    for (int probe = 0; probe < MAX_PROBES;) {
+      Address entry = table.plus((index & mask) << LOG_ENTRY_BYTES);
+      Word found = entry.prepareWord(HASH_OFFSET);
+      if (found.isZero()) {
+        if (entry.attempt(found, key, HASH_OFFSET)) {
+          entry.store(contents, CONTENTS_OFFSET);
+          return contents;
+        }
+        continue; // lost a race to claim the entry: look at it again
+      }
+      if (found.EQ(key)) {
+        ObjectReference candidate;
+        do {
+          candidate = entry.loadObjectReference(CONTENTS_OFFSET);
+        } while (candidate.isNull()); // the entry has been claimed but not yet filled
+        if (candidate.toAddress().EQ(contents.toAddress()) || VM.scanning.contentEquals(candidate, contents)) {
+          return candidate;
+        }
+      }
+      index++;
+      probe++;
+    }
+    return contents;
+  }
+}
@@ -31,11 +31,26 @@ import org.vmmagic.pragma.*;
  *
  * The treadmill object itself must not be moved.<p>
  *
+ * The treadmill is striped into segments by node address, each with its
+ * own lists, so that collectors marking or sweeping different nodes rarely
+ * contend for the same list.  A node always stays within its segment.<p>
+ *
  * Access to the instances may be synchronized depending on the constructor argument.
  */
 @Uninterruptible
 public final class Treadmill {
 
+  /****************************************************************************
+   *
+   * Class variables
+   */
+
+  /**
+   *
+   */
+  private static final int LOG_SEGMENTS = 3;
+  public static final int SEGMENTS = 1 << LOG_SEGMENTS;
+
   /****************************************************************************
    *
    * Instance variables
@@ -44,10 +59,11 @@ public final class Treadmill {
   /**
    *
    */
-  private DoublyLinkedList fromSpace;
-  private DoublyLinkedList toSpace;
-  private DoublyLinkedList collectNursery;
-  private DoublyLinkedList allocNursery;
+  private DoublyLinkedList[] fromSpace = new DoublyLinkedList[SEGMENTS];
+  private DoublyLinkedList[] toSpace = new DoublyLinkedList[SEGMENTS];
+  private DoublyLinkedList[] collectNursery = new DoublyLinkedList[SEGMENTS];
+  private DoublyLinkedList[] allocNursery = new DoublyLinkedList[SEGMENTS];
+  private final int logGranularity;
 
   /****************************************************************************
    *
@@ -59,10 +75,22 @@ public final class Treadmill {
    * @param shared <code>true</code> if the created instance will be shared between threads. If it is shared, accesses will be synchronized using locks.
    */
   public Treadmill(int granularity, boolean shared) {
-    fromSpace = new DoublyLinkedList(granularity, shared);
-    toSpace = new DoublyLinkedList(granularity, shared);
-    allocNursery = new DoublyLinkedList(granularity, shared);
-    collectNursery = new DoublyLinkedList(granularity, shared);
+    for (int i = 0; i < SEGMENTS; i++) {
+      fromSpace[i] = new DoublyLinkedList(granularity, shared);
+      toSpace[i] = new DoublyLinkedList(granularity, shared);
+      allocNursery[i] = new DoublyLinkedList(granularity, shared);
+      collectNursery[i] = new DoublyLinkedList(granularity, shared);
+    }
+    logGranularity = granularity;
+  }
+
+  /**
+   * @param node a node of this treadmill
+   * @return the segment to which the node belongs
+   */
+  @Inline
+  private int segment(Address node) {
+    return node.toWord().rshl(logGranularity).toInt() & (SEGMENTS - 1);
   }
 
   /**
@@ -74,9 +102,9 @@ public final class Treadmill {
   @Inline
   public void addToTreadmill(Address node, boolean nursery) {
     if (nursery)
-      allocNursery.add(node);
+      allocNursery[segment(node)].add(node);
     else
-      toSpace.add(node);
+      toSpace[segment(node)].add(node);
   }
 
   /**
@@ -86,7 +114,11 @@ public final class Treadmill {
    */
   @Inline
   public Address popNursery() {
-    return collectNursery.pop();
+    for (int i = 0; i < SEGMENTS; i++) {
+      Address node = collectNursery[i].pop();
+      if (!node.isZero()) return node;
+    }
+    return Address.zero();
   }
 
   /**
@@ -96,7 +128,33 @@ public final class Treadmill {
    */
   @Inline
   public Address pop() {
-    return fromSpace.pop();
+    for (int i = 0; i < SEGMENTS; i++) {
+      Address node = fromSpace[i].pop();
+      if (!node.isZero()) return node;
+    }
+    return Address.zero();
+  }
+
+  /**
+   * Removes a node from the nursery list of one segment.
+   *
+   * @param segment the segment
+   * @return the removed node, or zero if the segment's nursery is empty
+   */
+  @Inline
+  public Address popNursery(int segment) {
+    return collectNursery[segment].pop();
+  }
+
+  /**
+   * Removes a node from the mature list of one segment.
+   *
+   * @param segment the segment
+   * @return the removed node, or zero if the segment's from-space is empty
+   */
+  @Inline
+  public Address pop(int segment) {
+    return fromSpace[segment].pop();
   }
 
   /**
@@ -108,12 +166,13 @@ public final class Treadmill {
    */
   @Inline
   public void copy(Address node, boolean isInNursery) {
+    int segment = segment(node);
     if (isInNursery) {
-      collectNursery.remove(node);
+      collectNursery[segment].remove(node);
     } else {
-      fromSpace.remove(node);
+      fromSpace[segment].remove(node);
     }
-    toSpace.add(node);
+    toSpace[segment].add(node);
   }
 
   /**
@@ -121,7 +180,10 @@ public final class Treadmill {
    */
   @Inline
   public boolean toSpaceEmpty() {
-    return toSpace.isEmpty();
+    for (int i = 0; i < SEGMENTS; i++) {
+      if (!toSpace[i].isEmpty()) return false;
+    }
+    return true;
   }
 
   /**
@@ -129,7 +191,10 @@ public final class Treadmill {
    */
   @Inline
   public boolean fromSpaceEmpty() {
-    return fromSpace.isEmpty();
+    for (int i = 0; i < SEGMENTS; i++) {
+      if (!fromSpace[i].isEmpty()) return false;
+    }
+    return true;
   }
 
   /**
@@ -137,7 +202,10 @@ public final class Treadmill {
    */
   @Inline
   public boolean nurseryEmpty() {
-    return collectNursery.isEmpty();
+    for (int i = 0; i < SEGMENTS; i++) {
+      if (!collectNursery[i].isEmpty()) return false;
+    }
+    return true;
   }
 
   /**
@@ -146,7 +214,7 @@ public final class Treadmill {
    * @param fullHeap whether the collection is full heap
    */
   public void flip(boolean fullHeap) {
-    DoublyLinkedList tmp = allocNursery;
+    DoublyLinkedList[] tmp = allocNursery;
     allocNursery = collectNursery;
     collectNursery = tmp;
     if (fullHeap) {
@@ -190,7 +258,8 @@ public final class Treadmill {
    * @param tmDriver the GCSpy space driver
    */
   public void gcspyGatherData(int event, TreadmillDriver tmDriver) {
-    this.allocNursery.gcspyGatherData(tmDriver);
+    for (int i = 0; i < SEGMENTS; i++)
+      this.allocNursery[i].gcspyGatherData(tmDriver);
   }
 
   /**
@@ -200,9 +269,11 @@ public final class Treadmill {
    * @param tospace gather from tospace?
    */
   public void gcspyGatherData(int event, TreadmillDriver tmDriver, boolean tospace) {
-    if (tospace)
-      toSpace.gcspyGatherData(tmDriver);
-    else
-      fromSpace.gcspyGatherData(tmDriver);
+    for (int i = 0; i < SEGMENTS; i++) {
+      if (tospace)
+        toSpace[i].gcspyGatherData(tmDriver);
+      else
+        fromSpace[i].gcspyGatherData(tmDriver);
+    }
   }
 }
@@ -312,6 +312,8 @@ public class ImmixAllocator extends Allocator {
       usable = (markState > 0 && markState <= ImmixSpace.getReusuableMarkStateThreshold(copy));
       if (copy && Block.isDefragSource(recyclableBlock))
         usable = false;
+      else if (usable && Block.isReservedForEvacuation(recyclableBlock))
+        usable = false;
     }
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!Block.isUnused(recyclableBlock));
     Block.setBlockAsReused(recyclableBlock);
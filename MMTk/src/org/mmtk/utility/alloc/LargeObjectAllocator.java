@@ -99,7 +99,8 @@ public abstract class LargeObjectAllocator extends Allocator {
     int header = space.getHeaderSize();
     int maxbytes = getMaximumAlignedSize(bytes + header, align);
     int pages = (maxbytes + BYTES_IN_PAGE - 1) >> LOG_BYTES_IN_PAGE;
-    Address sp = space.acquire(pages);
+    Address sp = space.acquireRecycled(pages);
+    if (sp.isZero()) sp = space.acquire(pages);
     if (sp.isZero()) return sp;
     Address cell = sp.plus(header);
     return cell;
@@ -47,6 +47,13 @@ public abstract class SegregatedFreeListLocal<S extends SegregatedFreeListSpace>
    * Class variables
    */
 
+  /**
+   * The number of blocks moved between this allocator and the space at a
+   * time, both when refilling the magazine and when returning consumed
+   * blocks.
+   */
+  private static final int MAGAZINE_BLOCKS = 8;
+
   /****************************************************************************
    *
    * Instance variables
@@ -56,6 +63,12 @@ public abstract class SegregatedFreeListLocal<S extends SegregatedFreeListSpace>
    *
    */
   protected final AddressArray currentBlock;
+  /** Available blocks taken from the space but not yet allocated into, per size class */
+  private final AddressArray magazine;
+  /** Consumed blocks not yet returned to the space, per size class */
+  private final AddressArray consumed;
+  /** The length of each chain of consumed blocks */
+  private final int[] consumedCount;
 
   /****************************************************************************
    *
@@ -70,6 +83,9 @@ public abstract class SegregatedFreeListLocal<S extends SegregatedFreeListSpace>
   public SegregatedFreeListLocal(S space) {
     super(space);
     this.currentBlock = AddressArray.create(SegregatedFreeListSpace.sizeClassCount());
+    this.magazine = AddressArray.create(SegregatedFreeListSpace.sizeClassCount());
+    this.consumed = AddressArray.create(SegregatedFreeListSpace.sizeClassCount());
+    this.consumedCount = new int[SegregatedFreeListSpace.sizeClassCount()];
   }
 
   /****************************************************************************
@@ -112,13 +128,16 @@ public abstract class SegregatedFreeListLocal<S extends SegregatedFreeListSpace>
     if (cell.isZero()) {
       Address block = currentBlock.get(sizeClass);
       if (!block.isZero()) {
-        // Return the block if we currently own one
-        space.returnConsumedBlock(block, sizeClass);
+        // Retire the block if we currently own one
+        retireBlock(block, sizeClass);
         currentBlock.set(sizeClass, Address.zero());
       }
 
       // Get a new block for allocation, if returned, it is guaranteed to have a free cell
-      block = space.getAllocationBlock(sizeClass, freeList);
+      block = getMagazineBlock(sizeClass);
+      if (block.isZero()) {
+        block = space.getAllocationBlock(sizeClass, freeList);
+      }
 
       if (!block.isZero()) {
         // We have a new current block and free list.
@@ -137,6 +156,64 @@ public abstract class SegregatedFreeListLocal<S extends SegregatedFreeListSpace>
     return alignAllocation(cell, align, offset);
   }
 
+  /**
+   * Take the next block with a free cell from this allocator's magazine,
+   * refilling the magazine from the space's available blocks in a single
+   * batch if it is empty.  Full blocks are retired along the way.
+   *
+   * @param sizeClass The size class
+   * @return The block, with the free list for the size class set, or
+   * zero if the space has no available blocks left
+   */
+  private Address getMagazineBlock(int sizeClass) {
+    while (true) {
+      Address block = magazine.get(sizeClass);
+      if (block.isZero()) {
+        block = space.takeAvailableBlocks(sizeClass, MAGAZINE_BLOCKS);
+        if (block.isZero()) return block;
+      }
+      magazine.set(sizeClass, BlockAllocator.getNext(block));
+      BlockAllocator.setNext(block, Address.zero());
+
+      Address cell = space.advanceBlock(block, sizeClass);
+      if (!cell.isZero()) {
+        freeList.set(sizeClass, cell);
+        return block;
+      }
+      retireBlock(block, sizeClass);
+    }
+  }
+
+  /**
+   * Add a consumed block to this allocator's chain of consumed blocks,
+   * returning the chain to the space once it is long enough.
+   *
+   * @param block The consumed block, which must not be on any list
+   * @param sizeClass The size class
+   */
+  private void retireBlock(Address block, int sizeClass) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(BlockAllocator.getNext(block).isZero());
+    BlockAllocator.setNext(block, consumed.get(sizeClass));
+    consumed.set(sizeClass, block);
+    if (++consumedCount[sizeClass] == MAGAZINE_BLOCKS) {
+      returnConsumed(sizeClass);
+    }
+  }
+
+  /**
+   * Return this allocator's chain of consumed blocks (if any) to the space.
+   *
+   * @param sizeClass The size class
+   */
+  private void returnConsumed(int sizeClass) {
+    Address head = consumed.get(sizeClass);
+    if (!head.isZero()) {
+      space.returnConsumedBlocks(head, sizeClass);
+      consumed.set(sizeClass, Address.zero());
+      consumedCount[sizeClass] = 0;
+    }
+  }
+
   /****************************************************************************
    *
    * Preserving (saving & restoring) free lists
@@ -149,7 +226,9 @@ public abstract class SegregatedFreeListLocal<S extends SegregatedFreeListSpace>
    * free cells.  Then the free lists for each cell can be
    * reestablished during GC.  If the free lists are being preserved
    * on a per-block basis (eager mark-sweep and reference counting),
-   * then free lists are remembered for each block.
+   * then free lists are remembered for each block.  The magazine and
+   * any consumed blocks are handed back to the space, which is what
+   * makes this the return path when a thread terminates.
    */
   public final void flush() {
     for (int sizeClass = 0; sizeClass < SegregatedFreeListSpace.sizeClassCount(); sizeClass++) {
@@ -160,6 +239,12 @@ public abstract class SegregatedFreeListLocal<S extends SegregatedFreeListSpace>
         currentBlock.set(sizeClass, Address.zero());
         freeList.set(sizeClass, Address.zero());
       }
+      returnConsumed(sizeClass);
+      block = magazine.get(sizeClass);
+      if (!block.isZero()) {
+        space.returnAvailableBlocks(block, sizeClass);
+        magazine.set(sizeClass, Address.zero());
+      }
     }
   }
 }
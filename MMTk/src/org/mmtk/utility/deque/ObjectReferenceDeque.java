@@ -106,4 +106,15 @@ import org.vmmagic.pragma.*;
     return checkDequeue(1);
   }
 
+  /**
+   * Is there an object that can be popped without consulting (and
+   * possibly waiting on) the shared queue?
+   *
+   * @return {@code true} if the local head buffer is non-empty
+   */
+  @Inline
+  public final boolean isLocallyNonEmpty() {
+    return !bufferOffset(head).isZero();
+  }
+
 }
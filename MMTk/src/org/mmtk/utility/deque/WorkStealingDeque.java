@@ -0,0 +1,462 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.deque;
+
+import static org.mmtk.utility.Constants.*;
+
+import org.mmtk.plan.Plan;
+import org.mmtk.policy.RawPageSpace;
+import org.mmtk.utility.Log;
+import org.mmtk.vm.VM;
+import org.vmmagic.pragma.Inline;
+import org.vmmagic.pragma.NoInline;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.Extent;
+import org.vmmagic.unboxed.Offset;
+
+/**
+ * A shared deque of buffers in which each parallel collector owns a
+ * Chase-Lev style work-stealing deque of buffers.<p>
+ *
+ * Buffers flushed by a collector are pushed onto the bottom of its own
+ * deque and refills are popped from the same end, neither of which takes
+ * a lock.  A collector that runs dry steals buffers from the top of the
+ * other collectors' deques with a single compare-and-swap.  The locked
+ * buffer list inherited from <code>SharedDeque</code> is only used by
+ * threads that do not own a deque (e.g. mutators flushing concurrent
+ * write buffers), when a deque overflows, or before the first
+ * <code>prepare()</code>.<p>
+ *
+ * Termination of a parallel closure is detected with a shared count of
+ * idle collectors: a collector that cannot find work anywhere becomes
+ * idle, and leaves the idle set again as soon as it observes work in
+ * any deque.  The closure is complete when every collector is idle.<p>
+ *
+ * All of the deque state lives in pages acquired from the meta-data
+ * <code>RawPageSpace</code>.  The control page holds one cache-line
+ * sized slot per collector (top index, bottom index and the address of
+ * the collector's ring of buffers), followed by the idle count.
+ */
+@Uninterruptible
+public class WorkStealingDeque extends SharedDeque {
+
+  private static final boolean TRACE = false;
+
+  /**
+   * The maximum number of collectors that own a stealing deque (a power of two).
+   * Any further collectors share the overflow list, but still count towards
+   * termination.
+   */
+  public static final int MAX_WORKERS = 32;
+
+  /** Bytes reserved in the control page for each collector */
+  private static final int LOG_SLOT_BYTES = 6;
+
+  private static final Offset TOP_OFFSET = Offset.zero();
+  private static final Offset BOTTOM_OFFSET = Offset.fromIntSignExtend(BYTES_IN_INT);
+  private static final Offset RING_OFFSET = Offset.fromIntSignExtend(2 * BYTES_IN_ADDRESS);
+  private static final Offset IDLE_OFFSET = Offset.fromIntSignExtend(MAX_WORKERS << LOG_SLOT_BYTES);
+
+  /** Each collector's ring of buffers occupies a single page */
+  private static final int LOG_RING_ENTRIES = LOG_BYTES_IN_PAGE - LOG_BYTES_IN_ADDRESS;
+  private static final int RING_ENTRIES = 1 << LOG_RING_ENTRIES;
+  private static final int RING_MASK = RING_ENTRIES - 1;
+
+  private static final long TIMEOUT_PERIOD = (long)(20 * 1E9);
+
+  /****************************************************************************
+   *
+   * Instance fields
+   */
+
+  /** The raw page space from which the control page and rings are acquired */
+  private final RawPageSpace rps;
+
+  /** The control page, zero until the first call to <code>prepare()</code> */
+  private Address control = Address.zero();
+
+  /** The number of collectors taking part in the current closure */
+  private volatile int numWorkers;
+
+  /** Set once every collector taking part in the closure has been idle */
+  private volatile boolean terminated;
+
+  /****************************************************************************
+   *
+   * Initialization
+   */
+
+  /**
+   * @param name the queue's human-readable name
+   * @param rps the space to get pages from
+   * @param arity the arity (number of words per entry) of this queue
+   */
+  public WorkStealingDeque(String name, RawPageSpace rps, int arity) {
+    super(name, rps, arity);
+    this.rps = rps;
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(IDLE_OFFSET.toInt() + BYTES_IN_INT <= BYTES_IN_PAGE);
+  }
+
+  /****************************************************************************
+   *
+   * Preparation and release
+   */
+
+  /**
+   * Prepare for parallel processing.  All active GC threads take part,
+   * and a thread that runs out of work will wait for the others until
+   * the closure is complete.
+   */
+  @Override
+  public void prepare() {
+    super.prepareNonBlocking();
+    prepareWorkers(VM.activePlan.collector().parallelWorkerCount());
+  }
+
+  /**
+   * Prepare for processing where pop operations on the deques
+   * will never block.
+   */
+  @Override
+  public void prepareNonBlocking() {
+    super.prepareNonBlocking();
+    prepareWorkers(1);
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    if (!control.isZero()) {
+      for (int w = 0; w < MAX_WORKERS; w++) {
+        if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(size(w) == 0);
+        slot(w).store(0, TOP_OFFSET);
+        slot(w).store(0, BOTTOM_OFFSET);
+      }
+      control.store(0, IDLE_OFFSET);
+    }
+    terminated = false;
+  }
+
+  /**
+   * Arm the termination detector for a closure in which the given number
+   * of collectors take part.  This is called by a single thread, with a
+   * rendezvous separating it from the closure itself.
+   *
+   * @param workers the number of collectors taking part
+   */
+  private void prepareWorkers(int workers) {
+    if (control.isZero()) {
+      control = acquirePage();
+    }
+    numWorkers = workers;
+    control.store(0, IDLE_OFFSET);
+    terminated = false;
+    VM.memory.sync();
+  }
+
+  /****************************************************************************
+   *
+   * Enqueuing and dequeuing of buffers
+   */
+
+  @Override
+  final void enqueue(Address buf, int arity, boolean toTail) {
+    int owner = ownerSlot();
+    if (owner < 0 || !pushBottom(owner, buf)) {
+      super.enqueue(buf, arity, toTail);
+    }
+  }
+
+  @Override
+  final Address dequeue(int arity, boolean fromTail) {
+    Address buf = Address.zero();
+    int owner = ownerSlot();
+    if (owner >= 0) {
+      buf = popBottom(owner);
+      if (buf.isZero()) {
+        buf = stealFromOthers(owner);
+      }
+    }
+    if (buf.isZero()) {
+      buf = super.dequeue(arity, fromTail);
+    }
+    if (buf.isZero() && owner < 0 && !control.isZero()) {
+      /* A thread without a deque (e.g. an assisting mutator) takes from the workers */
+      buf = stealFromAny();
+    }
+    return buf;
+  }
+
+  @Override
+  final Address dequeueAndWait(int arity, boolean fromTail) {
+    Address buf = dequeue(arity, fromTail);
+    if (buf.isZero() && !terminated && numWorkers > 1 && Plan.gcInProgressProper()) {
+      buf = waitForWork(arity, fromTail);
+    }
+    return buf;
+  }
+
+  @Override
+  public final int enqueuedPages() {
+    int bufs = 0;
+    if (!control.isZero()) {
+      for (int w = 0; w < MAX_WORKERS; w++) {
+        bufs += size(w);
+      }
+    }
+    return super.enqueuedPages() + bufs * PAGES_PER_BUFFER;
+  }
+
+  /****************************************************************************
+   *
+   * Chase-Lev deque operations
+   */
+
+  /**
+   * Push a buffer onto the bottom of a collector's deque.  Only the owner
+   * of the deque may call this.
+   *
+   * @param w the owner's slot
+   * @param buf the buffer to push
+   * @return {@code false} if the deque is full
+   */
+  @Inline
+  private boolean pushBottom(int w, Address buf) {
+    Address slot = slot(w);
+    Address ring = slot.loadAddress(RING_OFFSET);
+    if (ring.isZero()) {
+      ring = acquirePage();
+      slot.store(ring, RING_OFFSET);
+    }
+    int b = slot.loadInt(BOTTOM_OFFSET);
+    int t = slot.loadInt(TOP_OFFSET);
+    if (b - t >= RING_ENTRIES) {
+      return false;
+    }
+    ring.store(buf, entry(b));
+    VM.memory.sync();
+    slot.store(b + 1, BOTTOM_OFFSET);
+    return true;
+  }
+
+  /**
+   * Pop a buffer from the bottom of a collector's deque.  Only the owner
+   * of the deque may call this.
+   *
+   * @param w the owner's slot
+   * @return the buffer, or zero if the deque is empty
+   */
+  @Inline
+  private Address popBottom(int w) {
+    Address slot = slot(w);
+    int b = slot.loadInt(BOTTOM_OFFSET) - 1;
+    slot.store(b, BOTTOM_OFFSET);
+    VM.memory.sync();
+    int t = slot.loadInt(TOP_OFFSET);
+    if (b < t) {
+      slot.store(t, BOTTOM_OFFSET);
+      return Address.zero();
+    }
+    Address buf = slot.loadAddress(RING_OFFSET).loadAddress(entry(b));
+    if (b == t) {
+      /* Last entry: race any thieves for it */
+      if (!slot.attempt(t, t + 1, TOP_OFFSET)) {
+        buf = Address.zero();
+      }
+      slot.store(t + 1, BOTTOM_OFFSET);
+    }
+    return buf;
+  }
+
+  /**
+   * Steal a buffer from the top of a collector's deque.
+   *
+   * @param w the victim's slot
+   * @return the buffer, or zero if the deque was empty or the steal lost a race
+   */
+  @Inline
+  private Address steal(int w) {
+    Address slot = slot(w);
+    int t = slot.prepareInt(TOP_OFFSET);
+    VM.memory.isync();
+    int b = slot.loadInt(BOTTOM_OFFSET);
+    if (t >= b) {
+      return Address.zero();
+    }
+    Address buf = slot.loadAddress(RING_OFFSET).loadAddress(entry(t));
+    if (!slot.attempt(t, t + 1, TOP_OFFSET)) {
+      return Address.zero();
+    }
+    return buf;
+  }
+
+  /**
+   * Try once to steal from each of the other deques, starting with
+   * the one after the thief's.
+   *
+   * @param thief the thief's slot
+   * @return the stolen buffer, or zero if none could be stolen
+   */
+  @NoInline
+  private Address stealFromOthers(int thief) {
+    for (int i = 1; i < MAX_WORKERS; i++) {
+      int victim = (thief + i) & (MAX_WORKERS - 1);
+      if (size(victim) == 0) continue;
+      Address buf = steal(victim);
+      if (!buf.isZero()) {
+        if (TRACE) {
+          Log.write("-- ("); Log.write(thief); Log.write(") stole from ");
+          Log.writeln(victim);
+        }
+        return buf;
+      }
+    }
+    return Address.zero();
+  }
+
+  /**
+   * Try once to steal from each deque, on behalf of a thread that does
+   * not own one.
+   *
+   * @return the stolen buffer, or zero if none could be stolen
+   */
+  @NoInline
+  private Address stealFromAny() {
+    for (int victim = 0; victim < MAX_WORKERS; victim++) {
+      if (size(victim) == 0) continue;
+      Address buf = steal(victim);
+      if (!buf.isZero()) {
+        return buf;
+      }
+    }
+    return Address.zero();
+  }
+
+  /****************************************************************************
+   *
+   * Termination detection
+   */
+
+  /**
+   * Wait for work to show up in any deque, or for all other collectors
+   * to run out of work.
+   *
+   * @param arity the arity of this queue
+   * @param fromTail whether to dequeue from the tail of the overflow list
+   * @return a buffer, or zero if the closure is complete
+   */
+  @NoInline
+  private Address waitForWork(int arity, boolean fromTail) {
+    long startNano = 0;
+    adjustIdle(1);
+    while (true) {
+      if (terminated) {
+        return Address.zero();
+      }
+      if (control.loadInt(IDLE_OFFSET) >= numWorkers) {
+        terminated = true;
+        return Address.zero();
+      }
+      if (hasVisibleWork()) {
+        adjustIdle(-1);
+        Address buf = dequeue(arity, fromTail);
+        if (!buf.isZero()) {
+          return buf;
+        }
+        adjustIdle(1);
+      }
+      if (startNano == 0) {
+        startNano = VM.statistics.nanoTime();
+      } else if (VM.statistics.nanoTime() - startNano > TIMEOUT_PERIOD) {
+        VM.assertions.fail("GC Error: WorkStealingDeque Timeout");
+      }
+    }
+  }
+
+  /**
+   * Atomically adjust the count of idle collectors.
+   *
+   * @param delta the amount to add to the count
+   */
+  private void adjustIdle(int delta) {
+    int old;
+    do {
+      old = control.prepareInt(IDLE_OFFSET);
+    } while (!control.attempt(old, old + delta, IDLE_OFFSET));
+  }
+
+  /**
+   * @return whether any deque or the overflow list appears to hold a buffer
+   */
+  private boolean hasVisibleWork() {
+    VM.memory.isync();
+    if (!head.isZero()) {
+      return true;
+    }
+    for (int w = 0; w < MAX_WORKERS; w++) {
+      if (size(w) > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /****************************************************************************
+   *
+   * Miscellaneous
+   */
+
+  /**
+   * @return the slot owned by the current thread, or -1 if the current
+   * thread does not own a stealing deque
+   */
+  @Inline
+  private int ownerSlot() {
+    if (control.isZero() || VM.activePlan.isMutator()) {
+      return -1;
+    }
+    int ordinal = VM.activePlan.collector().parallelWorkerOrdinal();
+    return ordinal < MAX_WORKERS ? ordinal : -1;
+  }
+
+  /**
+   * @param w a collector's slot
+   * @return the number of buffers in the collector's deque
+   */
+  @Inline
+  private int size(int w) {
+    Address slot = slot(w);
+    int size = slot.loadInt(BOTTOM_OFFSET) - slot.loadInt(TOP_OFFSET);
+    return size > 0 ? size : 0;
+  }
+
+  @Inline
+  private Address slot(int w) {
+    return control.plus(w << LOG_SLOT_BYTES);
+  }
+
+  @Inline
+  private static Offset entry(int index) {
+    return Offset.fromIntZeroExtend((index & RING_MASK) << LOG_BYTES_IN_ADDRESS);
+  }
+
+  private Address acquirePage() {
+    Address page = rps.acquire(1);
+    if (page.isZero()) {
+      VM.assertions.fail("Failed to allocate space for work-stealing deque.  Is metadata virtual memory exhausted?");
+    }
+    VM.memory.zero(false, page, Extent.fromIntZeroExtend(BYTES_IN_PAGE));
+    return page;
+  }
+}
@@ -171,8 +171,9 @@ public final class FreeListPageResource extends PageResource {
       // The meta-data portion of reserved Pages was committed above.
       commitPages(reservedPages, requiredPages);
       space.growSpace(rtn, bytes, newChunk);
+      Mmapper.markAsInUse(rtn, requiredPages);
       unlock();
-      Mmapper.ensureMapped(rtn, requiredPages);
+      Mmapper.ensureMapped(rtn, requiredPages, space.requestsHugePages());
       if (zeroed)
         VM.memory.zero(zeroNT, rtn, bytes);
       VM.events.tracePageAcquired(space, rtn, requiredPages);
@@ -207,6 +208,7 @@ public final class FreeListPageResource extends PageResource {
     lock();
     reserved -= pages;
     committed -= pages;
+    Mmapper.markAsFree(first, pages);
     int freed = freeList.free(pageOffset, true);
     pagesCurrentlyOnFreeList += pages;
 
@@ -267,6 +269,7 @@ public final class FreeListPageResource extends PageResource {
     int requiredChunks = Space.requiredChunks(pages);
     Address region = space.growDiscontiguousSpace(requiredChunks);
     if (!region.isZero()) {
+      Mmapper.markAsInUse(region, requiredChunks * Space.PAGES_IN_CHUNK);
       int regionStart = Conversions.bytesToPages(region.diff(start));
       int regionEnd = regionStart + (requiredChunks * Space.PAGES_IN_CHUNK) - 1;
       freeList.setUncoalescable(regionStart);
@@ -310,6 +313,7 @@ public final class FreeListPageResource extends PageResource {
       pagesCurrentlyOnFreeList -= (Space.PAGES_IN_CHUNK - metaDataPagesPerRegion);
     }
     /* now return the address space associated with the chunk for global reuse */
+    Mmapper.markAsFree(chunk, numChunks * Space.PAGES_IN_CHUNK);
     space.releaseDiscontiguousChunks(chunk);
   }
 
@@ -15,6 +15,7 @@ package org.mmtk.utility.heap;
 import static org.mmtk.utility.Constants.*;
 
 import org.mmtk.plan.Plan;
+import org.mmtk.policy.Space;
 import org.mmtk.utility.*;
 import org.mmtk.utility.options.Options;
 
@@ -25,7 +26,14 @@ import org.vmmagic.unboxed.*;
 
 /**
  * This class is responsible for growing and shrinking the
- * heap size by observing heap utilization and GC load.
+ * heap size by observing heap utilization and GC load.<p>
+ *
+ * By default the heap size follows a fixed function of live ratio and
+ * GC load.  If the user sets a GC time goal, the heap is instead grown
+ * while the GC load exceeds the goal and shrunk while it is well within
+ * it.  In generational plans the nursery is also sized to keep nursery
+ * pauses within any pause time goal, and grown to reduce the GC load
+ * while pauses allow.
  */
 @Uninterruptible public abstract class HeapGrowthManager {
 
@@ -87,6 +95,30 @@ import org.vmmagic.unboxed.*;
   private static long endLastMajorGC;
   private static double accumulatedGCTime;
 
+  /** Heap growth when the GC load exceeds the GC time goal is limited to this ratio */
+  private static final double MAX_GOAL_GROWTH = 1.5;
+
+  /** The heap is shrunk by this ratio when the GC load is well within the GC time goal */
+  private static final double GOAL_SHRINK = 0.95;
+
+  /** Weight given to the latest pause in the running average of nursery pauses */
+  private static final double PAUSE_AVERAGE_WEIGHT = 0.3;
+
+  /** The nursery is only grown while nursery pauses are within this fraction of the pause time goal */
+  private static final double PAUSE_HEADROOM = 0.75;
+
+  /** Limits on the ratio by which the nursery bound changes after a single collection */
+  private static final double MAX_NURSERY_GROWTH = 1.25;
+  private static final double MAX_NURSERY_SHRINK = 0.5;
+
+  /** Running average of nursery pause times in milliseconds */
+  private static double averageNurseryPause = 0;
+
+  /**
+   * Has the heap shrunk since idle memory was last returned to the OS?
+   */
+  private static boolean heapShrunk = false;
+
   /**
    * Initialize heap size parameters and the mechanisms
    * used to adaptively change heap size.
@@ -168,9 +200,10 @@ import org.vmmagic.unboxed.*;
    */
   public static boolean considerHeapSize() {
     Extent oldSize = currentHeapSize;
-    Extent reserved = Plan.reservedMemory();
+    /* Pages the spaces hold back without live objects (e.g. recycled superpages) are not live */
+    Extent reserved = Plan.reservedMemory().minus(Conversions.pagesToBytes(Space.getPagesReclaimable()));
     double liveRatio = reserved.toLong() / ((double) currentHeapSize.toLong());
-    double ratio = computeHeapChangeRatio(liveRatio);
+    double ratio = Options.gcTimeGoal.getValue() > 0 ? computeGoalHeapChangeRatio() : computeHeapChangeRatio(liveRatio);
     Extent newSize = Word.fromIntSignExtend((int)(ratio * (oldSize.toLong() >> LOG_BYTES_IN_MBYTE))).lsh(LOG_BYTES_IN_MBYTE).toExtent(); // do arith in MB to avoid overflow
     if (newSize.LT(reserved)) newSize = reserved;
     newSize = newSize.plus(BYTES_IN_MBYTE - 1).toWord().rshl(LOG_BYTES_IN_MBYTE).lsh(LOG_BYTES_IN_MBYTE).toExtent(); // round to next megabyte
@@ -178,6 +211,7 @@ import org.vmmagic.unboxed.*;
     if (newSize.NE(oldSize) && newSize.GT(Extent.zero())) {
       // Heap size is going to change
       currentHeapSize = newSize;
+      if (newSize.LT(oldSize)) heapShrunk = true;
       if (Options.verbose.getValue() >= 2) {
         Log.write("GC Message: Heap changed from "); Log.writeDec(oldSize.toWord().rshl(LOG_BYTES_IN_KBYTE));
         Log.write("KB to "); Log.writeDec(newSize.toWord().rshl(LOG_BYTES_IN_KBYTE));
@@ -190,6 +224,109 @@ import org.vmmagic.unboxed.*;
     }
   }
 
+  /**
+   * Return the physical memory of idle chunks to the operating system.
+   * This is called at the end of every collection.  Free memory is
+   * returned once it has stayed idle for a number of collections, or
+   * after just one collection if the heap has since shrunk, so that
+   * shrinking the heap also shrinks the resident set.
+   */
+  public static void releaseIdleMemory() {
+    int idleCollections = Options.uncommitIdleCollections.getValue();
+    if (idleCollections == 0) return;
+    if (heapShrunk && idleCollections > 1) idleCollections = 1;
+    heapShrunk = false;
+    int pages = Mmapper.uncommitIdleChunks(idleCollections);
+    if (pages > 0 && Options.verbose.getValue() >= 2) {
+      Log.write("GC Message: Returned "); Log.writeDec(Conversions.pagesToBytes(pages).toWord().rshl(LOG_BYTES_IN_KBYTE));
+      Log.writeln("KB of idle memory to the OS");
+    }
+  }
+
+  /**
+   * Adjust the bound on the nursery size after a nursery collection,
+   * to meet the pause time goal and GC time goal (if any).  Nursery
+   * pauses grow with the volume of survivors, which roughly follows
+   * the size of the nursery, so the bound is scaled by the ratio of the
+   * goal to the average pause.  While pauses are comfortably within
+   * the goal and the GC load is above its goal, the nursery is grown
+   * so that nursery collections happen less often.
+   *
+   * @param time the duration of the nursery collection, in milliseconds
+   */
+  public static void considerNurserySize(double time) {
+    double pauseGoal = Options.pauseTimeGoal.getMicroseconds() / 1000.0;
+    double gcTimeGoal = Options.gcTimeGoal.getValue();
+    if (pauseGoal <= 0 && gcTimeGoal <= 0) return;
+
+    if (averageNurseryPause == 0) {
+      averageNurseryPause = time;
+    } else {
+      averageNurseryPause += PAUSE_AVERAGE_WEIGHT * (time - averageNurseryPause);
+    }
+
+    double ratio = 1;
+    if (pauseGoal > 0 && averageNurseryPause > pauseGoal) {
+      ratio = pauseGoal / averageNurseryPause;
+      if (ratio < MAX_NURSERY_SHRINK) ratio = MAX_NURSERY_SHRINK;
+    } else if ((pauseGoal <= 0 || averageNurseryPause < PAUSE_HEADROOM * pauseGoal) &&
+               (gcTimeGoal <= 0 || currentGCLoad() > gcTimeGoal)) {
+      ratio = MAX_NURSERY_GROWTH;
+      if (pauseGoal > 0 && PAUSE_HEADROOM * pauseGoal / averageNurseryPause < ratio) {
+        ratio = PAUSE_HEADROOM * pauseGoal / averageNurseryPause;
+      }
+    }
+    if (ratio == 1) return;
+
+    int oldPages = Options.nurserySize.getMaxNursery();
+    int newPages = (int) (oldPages * ratio);
+    if (newPages >= Options.nurserySize.getBoundedNursery()) {
+      newPages = 0; // no tighter than the user's bound
+    }
+    Options.nurserySize.setAdaptiveBound(newPages);
+    if (Options.verbose.getValue() >= 2 && Options.nurserySize.getMaxNursery() != oldPages) {
+      Log.write("GC Message: Nursery bound changed from "); Log.writeDec(Conversions.pagesToBytes(oldPages).toWord().rshl(LOG_BYTES_IN_KBYTE));
+      Log.write("KB to "); Log.writeDec(Conversions.pagesToBytes(Options.nurserySize.getMaxNursery()).toWord().rshl(LOG_BYTES_IN_KBYTE));
+      Log.writeln("KB");
+    }
+  }
+
+  /**
+   * @return the fraction of time spent in GC since the end of the last
+   * major collection
+   */
+  private static double currentGCLoad() {
+    double totalTime = VM.statistics.nanosToMillis(VM.statistics.nanoTime() - endLastMajorGC);
+    return totalTime > 0 ? accumulatedGCTime / totalTime : 0;
+  }
+
+  /**
+   * Compute the heap change ratio that moves the GC load towards the
+   * GC time goal.  The GC load is roughly inversely proportional to the
+   * headroom above the live data, so the heap is grown in proportion
+   * to the excess load, and shrunk gently once the load is less than
+   * half the goal.
+   *
+   * @return the ratio by which to change the heap size
+   */
+  private static double computeGoalHeapChangeRatio() {
+    double gcTimeGoal = Options.gcTimeGoal.getValue();
+    double gcLoad = currentGCLoad();
+    double ratio = 1;
+    if (gcLoad > gcTimeGoal) {
+      ratio = gcLoad / gcTimeGoal;
+      if (ratio > MAX_GOAL_GROWTH) ratio = MAX_GOAL_GROWTH;
+    } else if (gcLoad < gcTimeGoal / 2) {
+      ratio = GOAL_SHRINK;
+    }
+    if (Options.verbose.getValue() > 2) {
+      Log.write("GCLoad     "); Log.writeln(gcLoad);
+      Log.write("Heap adjustment factor is ");
+      Log.writeln(ratio);
+    }
+    return ratio;
+  }
+
   private static double computeHeapChangeRatio(double liveRatio) {
     // (1) compute GC load.
     long totalNanos = VM.statistics.nanoTime() - endLastMajorGC;
@@ -13,6 +13,8 @@
 package org.mmtk.utility.heap;
 
 import org.mmtk.utility.*;
+import org.mmtk.utility.options.Options;
+import org.mmtk.utility.statistics.EventCounter;
 
 import org.mmtk.vm.Lock;
 import org.mmtk.vm.VM;
@@ -47,6 +49,11 @@ import org.vmmagic.pragma.*;
     1 << (Constants.LOG_BYTES_IN_ADDRESS_SPACE - LOG_MMAP_CHUNK_BYTES) :
     1 << (33 - LOG_MMAP_CHUNK_BYTES);
   public static final boolean verbose = false;
+  private static final int PAGES_IN_MMAP_CHUNK = MMAP_CHUNK_BYTES >>> Constants.LOG_BYTES_IN_PAGE;
+
+  /* Idle states of a chunk (any other value is the collection at which the chunk became idle) */
+  private static final int IN_USE = 0;
+  private static final int UNCOMMITTED = -1;
 
   /****************************************************************************
    * Class variables
@@ -58,6 +65,18 @@ import org.vmmagic.pragma.*;
   public static final Lock lock = VM.newLock("Mmapper");
   private static final byte[] mapped;
 
+  /** The number of pages of each chunk released by their page resource and not since reused */
+  private static final int[] freePages;
+  /** The idle state of each chunk */
+  private static final int[] idleSince;
+  /** The number of times idle chunks have been considered for uncommitting, plus one */
+  private static int collections = 1;
+
+  /** Chunks demand-zero mapped */
+  private static final EventCounter mappedChunks = new EventCounter("mappedChunks", true, true);
+  /** Chunks the OS accepted huge page advice for */
+  private static final EventCounter hugePageChunks = new EventCounter("hugePageChunks", true, true);
+
 
   /****************************************************************************
    * Initialization
@@ -72,6 +91,8 @@ import org.vmmagic.pragma.*;
     for (int c = 0; c < MMAP_NUM_CHUNKS; c++) {
       mapped[c] = UNMAPPED;
     }
+    freePages = new int[MMAP_NUM_CHUNKS];
+    idleSince = new int[MMAP_NUM_CHUNKS];
   }
 
   /****************************************************************************
@@ -129,6 +150,21 @@ import org.vmmagic.pragma.*;
    * @param pages The size of the range to be mapped, in pages
    */
   public static void ensureMapped(Address start, int pages) {
+    ensureMapped(start, pages, false);
+  }
+
+  /**
+   * Ensure that a range of pages is mmapped (or equivalent), optionally
+   * asking for newly mapped chunks to be backed by huge pages.  The advice
+   * is only given when the <code>hugePages</code> option is set.  Chunks
+   * are smaller than a huge page, so the OS can only use one where
+   * neighbouring chunks of the same huge page have both been advised.
+   *
+   * @param start The start of the range to be mapped.
+   * @param pages The size of the range to be mapped, in pages
+   * @param hugePages Should newly mapped chunks be backed by huge pages?
+   */
+  public static void ensureMapped(Address start, int pages, boolean hugePages) {
     int startChunk = Conversions.addressToMmapChunksDown(start);
     int endChunk = Conversions.addressToMmapChunksUp(start.plus(Conversions.pagesToBytes(pages)));
     for (int chunk = startChunk; chunk < endChunk; chunk++) {
@@ -149,6 +185,11 @@ import org.vmmagic.pragma.*;
             Log.write("mmap succeeded at chunk "); Log.write(chunk);  Log.write("  "); Log.write(mmapStart);
             Log.write(" with len = "); Log.writeln(MMAP_CHUNK_BYTES);
           }
+          mappedChunks.inc();
+          if (hugePages && Options.hugePages.getValue() &&
+              VM.memory.adviseHugePages(mmapStart, MMAP_CHUNK_BYTES)) {
+            hugePageChunks.inc();
+          }
         }
       }
       if (mapped[chunk] == PROTECTED) {
@@ -200,6 +241,99 @@ import org.vmmagic.pragma.*;
     lock.release();
   }
 
+  /****************************************************************************
+   * Returning idle memory to the operating system
+   */
+
+  /**
+   * Record that a range of pages has been released by its page resource.
+   * A chunk all of whose pages have been released becomes idle, and its
+   * physical memory may later be returned to the operating system.  The
+   * caller must hold the lock of the page resource which owns the range.
+   *
+   * @param start The start of the released range
+   * @param pages The size of the released range, in pages
+   */
+  public static void markAsFree(Address start, int pages) {
+    Address end = start.plus(Conversions.pagesToBytes(pages));
+    int startChunk = Conversions.addressToMmapChunksDown(start);
+    int endChunk = Conversions.addressToMmapChunksUp(end);
+    for (int chunk = startChunk; chunk < endChunk; chunk++) {
+      int free = freePages[chunk] + pagesInChunk(chunk, start, end);
+      if (free >= PAGES_IN_MMAP_CHUNK) {
+        free = PAGES_IN_MMAP_CHUNK;
+        if (idleSince[chunk] == IN_USE) idleSince[chunk] = collections;
+      }
+      freePages[chunk] = free;
+    }
+  }
+
+  /**
+   * Record that a range of pages has been acquired by a page resource,
+   * so that the chunks it spans are no longer idle.  The caller must hold
+   * the lock of the page resource which owns the range, and must call
+   * this before the pages are used.
+   *
+   * @param start The start of the acquired range
+   * @param pages The size of the acquired range, in pages
+   */
+  public static void markAsInUse(Address start, int pages) {
+    Address end = start.plus(Conversions.pagesToBytes(pages));
+    int startChunk = Conversions.addressToMmapChunksDown(start);
+    int endChunk = Conversions.addressToMmapChunksUp(end);
+    for (int chunk = startChunk; chunk < endChunk; chunk++) {
+      int free = freePages[chunk] - pagesInChunk(chunk, start, end);
+      freePages[chunk] = free < 0 ? 0 : free;
+      idleSince[chunk] = IN_USE;
+    }
+  }
+
+  /**
+   * Return the physical memory of chunks which have been idle for at
+   * least the given number of collections to the operating system.  The
+   * chunks remain mapped, but their contents are undefined when next used
+   * (see {@link org.mmtk.vm.Memory#uncommit(Address, int)}).  This must be
+   * called exactly once per collection, while no page resource is
+   * acquiring pages.
+   *
+   * @param idleCollections The number of collections for which a chunk
+   * must have been idle
+   * @return The number of pages returned to the operating system
+   */
+  public static int uncommitIdleChunks(int idleCollections) {
+    int pages = 0;
+    for (int chunk = 0; chunk < MMAP_NUM_CHUNKS; chunk++) {
+      int since = idleSince[chunk];
+      if (since > IN_USE && mapped[chunk] != UNMAPPED && collections - since >= idleCollections) {
+        Address mmapStart = Conversions.mmapChunksToAddress(chunk);
+        if (VM.memory.uncommit(mmapStart, MMAP_CHUNK_BYTES)) {
+          pages += PAGES_IN_MMAP_CHUNK;
+          if (verbose) {
+            Log.write("uncommit succeeded at chunk "); Log.write(chunk);  Log.write("  "); Log.write(mmapStart);
+            Log.write(" with len = "); Log.writeln(MMAP_CHUNK_BYTES);
+          }
+        }
+        idleSince[chunk] = UNCOMMITTED;
+      }
+    }
+    collections++;
+    return pages;
+  }
+
+  /**
+   * @param chunk A chunk
+   * @param start The start of a range
+   * @param end The end of the range
+   * @return The number of pages of the range which lie within the chunk
+   */
+  private static int pagesInChunk(int chunk, Address start, Address end) {
+    Address chunkStart = Conversions.mmapChunksToAddress(chunk);
+    Address chunkEnd = chunkStart.plus(MMAP_CHUNK_BYTES);
+    Address from = start.GT(chunkStart) ? start : chunkStart;
+    Address to = end.LT(chunkEnd) ? end : chunkEnd;
+    return Conversions.bytesToPages(to.diff(from));
+  }
+
   /****************************************************************************
    * Utility functions
    */
@@ -141,6 +141,7 @@ public final class MonotonePageResource extends PageResource {
       /* we're out of virtual memory within our discontiguous region, so ask for more */
       int requiredChunks = Space.requiredChunks(requiredPages);
       Address chunk = space.growDiscontiguousSpace(requiredChunks); // Returns zero on failure
+      if (!chunk.isZero()) Mmapper.markAsInUse(chunk, requiredChunks * Space.PAGES_IN_CHUNK);
       cursor = chunk;
       sentinel = cursor.plus(chunk.isZero() ? 0 : requiredChunks << Space.LOG_BYTES_IN_CHUNK);
       rtn = cursor;
@@ -157,8 +158,9 @@ public final class MonotonePageResource extends PageResource {
       cursor = tmp;
       commitPages(reservedPages, requiredPages);
       space.growSpace(old, bytes, newChunk);
+      Mmapper.markAsInUse(old, requiredPages);
       unlock();
-      Mmapper.ensureMapped(old, requiredPages);
+      Mmapper.ensureMapped(old, requiredPages, space.requestsHugePages());
       if (zeroed) {
         if (!zeroConcurrent) {
           VM.memory.zero(zeroNT, old, bytes);
@@ -262,12 +264,14 @@ public final class MonotonePageResource extends PageResource {
         zeroingSentinel = cursor;
       }
       zeroingCursor = start;
+      Mmapper.markAsFree(start, Conversions.bytesToPages(cursor.diff(start)));
       cursor = start;
     } else { /* Not contiguous */
       if (!cursor.isZero()) {
         do {
           Extent bytes = cursor.diff(currentChunk).toWord().toExtent();
           releasePages(currentChunk, bytes);
+          Mmapper.markAsFree(currentChunk, Conversions.bytesToPages(Map.getContiguousRegionSize(currentChunk)));
         } while (moveToNextChunk());
 
         currentChunk = Address.zero();
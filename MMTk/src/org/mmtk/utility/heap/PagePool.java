@@ -0,0 +1,105 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.heap;
+
+import org.mmtk.policy.Space;
+import org.mmtk.utility.Conversions;
+import org.mmtk.utility.statistics.Stats;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * A per-mutator pool of pages taken from page resources ahead of need.<p>
+ *
+ * A space that allows pooling hands each mutator a run of pages larger
+ * than it asked for.  Later requests are carved from the run by the
+ * owning thread alone, so they take no lock and do not touch the page
+ * resource or the chunk map.  Pooled pages are reserved and committed
+ * when the run is taken, so page budgets stay accurate.<p>
+ *
+ * A run only lives until the next collection, which is when the spaces
+ * that pool pages release or flip their memory.  The run taken at each
+ * refill doubles, up to {@link #MAX_POOL_PAGES}, so only threads that
+ * allocate heavily hold back many pages.
+ */
+@Uninterruptible
+public final class PagePool {
+
+  /** The largest run of pages taken from a page resource in one go (128KB) */
+  public static final int MAX_POOL_PAGES = 32;
+
+  /** next free page of the run held for each space */
+  private final AddressArray cursor = AddressArray.create(Space.MAX_SPACES);
+  /** end of the run held for each space */
+  private final AddressArray limit = AddressArray.create(Space.MAX_SPACES);
+  /** the number of pages in the last run taken for each space */
+  private final int[] runPages = new int[Space.MAX_SPACES];
+  /** the collection during which each run was taken */
+  private final int[] epoch = new int[Space.MAX_SPACES];
+
+  /**
+   * Take pages from the run held for a space, if it still holds enough.
+   *
+   * @param space The space
+   * @param pages The number of pages requested
+   * @return The first page, or zero if the run cannot satisfy the request
+   */
+  @Inline
+  public Address take(Space space, int pages) {
+    int index = space.getIndex();
+    if (epoch[index] != Stats.gcCount()) {
+      limit.set(index, Address.zero());
+      runPages[index] = 0;
+      return Address.zero();
+    }
+    Address rtn = cursor.get(index);
+    Address end = rtn.plus(Conversions.pagesToBytes(pages));
+    if (rtn.isZero() || end.GT(limit.get(index))) return Address.zero();
+    cursor.set(index, end);
+    return rtn;
+  }
+
+  /**
+   * @param space The space
+   * @param pages The number of pages requested
+   * @return The number of pages to take from the page resource to
+   * satisfy the request and refill the run held for the space
+   */
+  @Inline
+  public int nextRun(Space space, int pages) {
+    int run = runPages[space.getIndex()] << 1;
+    if (run > MAX_POOL_PAGES) run = MAX_POOL_PAGES;
+    return run > pages ? run : pages;
+  }
+
+  /**
+   * Replace the run held for a space with a fresh one, and take the
+   * requested pages from its start.  The rest of the old run is left
+   * unused until the next collection.
+   *
+   * @param space The space
+   * @param start The first page of the fresh run
+   * @param run The number of pages in the fresh run
+   * @param pages The number of pages requested
+   * @return The first page of the request
+   */
+  public Address refill(Space space, Address start, int run, int pages) {
+    int index = space.getIndex();
+    cursor.set(index, start.plus(Conversions.pagesToBytes(pages)));
+    limit.set(index, start.plus(Conversions.pagesToBytes(run)));
+    runPages[index] = run;
+    epoch[index] = Stats.gcCount();
+    return start;
+  }
+}
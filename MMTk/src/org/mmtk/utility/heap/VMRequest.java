@@ -34,13 +34,20 @@ public final class VMRequest {
   public final Extent extent;
   public final float frac;
   public final boolean top;
+  /** Should chunks mapped for this request be backed by huge pages? */
+  public final boolean hugePages;
 
   private VMRequest(int type, Address start, Extent bytes, float frac, boolean top) {
+    this(type, start, bytes, frac, top, false);
+  }
+
+  private VMRequest(int type, Address start, Extent bytes, float frac, boolean top, boolean hugePages) {
     this.type = type;
     this.start = start;
     this.extent = bytes;
     this.frac = frac;
     this.top = top;
+    this.hugePages = hugePages;
   }
 
   /**
@@ -51,6 +58,18 @@ public final class VMRequest {
     return type == REQUEST_DISCONTIGUOUS;
   }
 
+  /**
+   * The same request, but asking for the memory to be backed by huge
+   * pages where the host supports it (see {@link Mmapper#ensureMapped}).
+   * Only worthwhile for large, densely used spaces, since a huge page
+   * is committed as a whole once touched.
+   *
+   * @return The request object
+   */
+  public VMRequest withHugePages() {
+    return new VMRequest(type, start, extent, frac, top, true);
+  }
+
   /**
    * A request for a discontiguous region of memory
    *
@@ -0,0 +1,36 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The number of objects an allocating mutator marks for each page it
+ * acquires while a concurrent collection is falling behind.
+ */
+public final class ConcurrentAssist extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public ConcurrentAssist() {
+    super(Options.set, "Concurrent Assist",
+          "Objects a mutator marks per page allocated when concurrent marking falls behind (0 disables)",
+          0);
+  }
+
+  /**
+   * Only accept non-negative values.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 0, "Concurrent assist must be non-negative");
+  }
+}
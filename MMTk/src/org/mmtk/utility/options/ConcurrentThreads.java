@@ -0,0 +1,35 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The number of GC threads which mark concurrently with the mutators.
+ */
+public final class ConcurrentThreads extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public ConcurrentThreads() {
+    super(Options.set, "Concurrent Threads",
+          "Number of GC threads to mark concurrently (0 uses as many as there are GC threads)",
+          0);
+  }
+
+  /**
+   * Only accept non-negative values.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 0, "Concurrent threads must be non-negative");
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The number of objects the backup trace of a reference counting
+ * collector scans in each collection when tracing for cycles
+ * incrementally.
+ */
+public final class CycleTraceIncrement extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public CycleTraceIncrement() {
+    super(Options.set, "Cycle Trace Increment",
+          "Objects scanned for cycles in each collection (0 traces for cycles in a single pause)",
+          0);
+  }
+
+  /**
+   * Only accept non-negative values.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 0, "Cycle trace increment must be non-negative");
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+import static org.mmtk.policy.immix.ImmixConstants.DEFAULT_MATURE_EVACUATION_BUDGET;
+
+/**
+ * The volume of mature data a generational immix collector may evacuate
+ * with each nursery collection.  Zero disables incremental evacuation.
+ */
+public class MatureEvacuationBudget extends org.vmutil.options.PagesOption {
+  /**
+   * Create the option.
+   */
+  public MatureEvacuationBudget() {
+    super(Options.set, "Mature Evacuation Budget",
+          "Evacuate at most this amount of live mature data with each nursery collection.",
+          DEFAULT_MATURE_EVACUATION_BUDGET);
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The maximum number of nursery collections an object may survive
+ * before it is promoted to the mature space.
+ */
+public class MaxTenuringThreshold extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public MaxTenuringThreshold() {
+    super(Options.set, "Max Tenuring Threshold",
+          "Maximum number of nursery collections survived before promotion",
+          7);
+  }
+
+  /**
+   * Only accept values between 1 and 15 (inclusive), the largest age
+   * which fits in the object header.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value <= 0, "Tenuring threshold must be between 1 and 15");
+    failIf(this.value > 15, "Tenuring threshold must be between 1 and 15");
+  }
+}
@@ -23,6 +23,9 @@ public final class NurserySize {
   private final FixedNursery fixedNursery;
   private final BoundedNursery boundedNursery;
 
+  /** A tighter upper bound chosen by heap sizing, in pages, or zero if none */
+  private int adaptiveBound;
+
   /**
    * Create the options.
    */
@@ -38,9 +41,36 @@ public final class NurserySize {
    */
   @Uninterruptible
   public int getMaxNursery() {
+    int max = boundedNursery.getPages();
+    if (adaptiveBound > 0 && adaptiveBound < max) {
+      max = adaptiveBound < getMinNursery() ? getMinNursery() : adaptiveBound;
+    }
+    return max;
+  }
+
+  /**
+   * Read the upper bound of the nursery size set by the user.
+   *
+   * @return maximum number of pages in the nursery, ignoring any
+   * tighter bound chosen by heap sizing.
+   */
+  @Uninterruptible
+  public int getBoundedNursery() {
     return boundedNursery.getPages();
   }
 
+  /**
+   * Tighten the upper bound of the nursery size, within the bounds
+   * set by the user.
+   *
+   * @param pages maximum number of pages in the nursery, or zero to
+   * use the bound set by the user.
+   */
+  @Uninterruptible
+  public void setAdaptiveBound(int pages) {
+    adaptiveBound = pages;
+  }
+
   /**
    * Read the lower bound of the nursery size.
    *
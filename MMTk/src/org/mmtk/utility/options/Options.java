@@ -21,9 +21,12 @@ public final class Options {
   public static OptionSet set;
 
   /* Other options */
+  public static ConcurrentAssist concurrentAssist;
+  public static ConcurrentThreads concurrentThreads;
   public static ConcurrentTrigger concurrentTrigger;
   public static CycleFilterThreshold cycleFilterThreshold;
   public static CycleMetaDataLimit cycleMetaDataLimit;
+  public static CycleTraceIncrement cycleTraceIncrement;
   public static CycleTriggerThreshold cycleTriggerThreshold;
   public static DebugAddress debugAddress;
   public static NurseryZeroing nurseryZeroing;
@@ -43,23 +46,33 @@ public final class Options {
   public static GCspyTileSize gcspyTileSize;
   public static GCspyWait gcspyWait;
   public static GCTimeCap gcTimeCap;
+  public static GCTimeGoal gcTimeGoal;
   public static GenCycleDetection genCycleDetection;
   public static HarnessAll harnessAll;
+  public static HugePages hugePages;
   public static IgnoreSystemGC ignoreSystemGC;
+  public static LazySweep lazySweep;
   public static LineReuseRatio lineReuseRatio;
   public static MarkSweepMarkBits markSweepMarkBits;
+  public static MatureEvacuationBudget matureEvacuationBudget;
+  public static MaxTenuringThreshold maxTenuringThreshold;
   public static MetaDataLimit metaDataLimit;
   public static NoFinalizer noFinalizer;
   public static NoReferenceTypes noReferenceTypes;
   public static NurserySize nurserySize;
+  public static PauseTimeGoal pauseTimeGoal;
   public static PerfEvents perfEvents;
+  public static PrefetchDistance prefetchDistance;
   public static PretenureThresholdFraction pretenureThresholdFraction;
   public static PrintPhaseStats printPhaseStats;
   public static ProtectOnRelease protectOnRelease;
   public static SanityCheck sanityCheck;
+  public static SitePretenureSurvival sitePretenureSurvival;
   public static StressFactor stressFactor;
+  public static StringDeduplication stringDeduplication;
   public static Threads threads;
   public static TraceRate traceRate;
+  public static UncommitIdleCollections uncommitIdleCollections;
   public static UseReturnBarrier useReturnBarrier;
   public static UseShortStackScans useShortStackScans;
   public static VariableSizeHeap variableSizeHeap;
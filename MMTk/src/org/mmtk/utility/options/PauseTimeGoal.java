@@ -0,0 +1,27 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The pause time that heap sizing should aim to stay within.
+ */
+public final class PauseTimeGoal extends org.vmutil.options.MicrosecondsOption {
+  /**
+   * Create the option.
+   */
+  public PauseTimeGoal() {
+    super(Options.set, "Pause Time Goal",
+          "Size the nursery so that nursery collections pause for no longer than this (0 for no goal)",
+          0);
+  }
+}
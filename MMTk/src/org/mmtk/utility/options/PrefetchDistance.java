@@ -0,0 +1,38 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * How many gray objects (and, within an object, how many edges) ahead
+ * of the scan should the trace prefetch?  Zero disables prefetching.
+ */
+public final class PrefetchDistance extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public PrefetchDistance() {
+    super(Options.set, "Prefetch Distance",
+          "Number of objects to prefetch ahead of scanning while tracing (0 disables)",
+          0);
+  }
+
+  /**
+   * Only accept values between 0 and 32 (inclusive), the capacity
+   * of the trace's prefetch buffers.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 0, "Prefetch distance must be between 0 and 32");
+    failIf(this.value > 32, "Prefetch distance must be between 0 and 32");
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+public class SitePretenureSurvival extends org.vmutil.options.FloatOption {
+
+  /**
+   * Pretenure sites at least this fraction of whose sampled objects survive
+   */
+  private static final float DEFAULT_SITE_PRETENURE_SURVIVAL = 0.8f;
+
+  /**
+   * Create the option.
+   */
+  public SitePretenureSurvival() {
+    super(Options.set, "Site Pretenure Survival",
+          "Allocation sites at least this fraction of whose sampled nursery objects survive are allocated directly into the mature space.",
+          DEFAULT_SITE_PRETENURE_SURVIVAL);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf((this.value < 0 || this.value > 1.0), "Ratio must be a float between 0 and 1");
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The number of collections for which free memory must stay idle before
+ * it is returned to the operating system.  Disabled by default.
+ */
+public class UncommitIdleCollections extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public UncommitIdleCollections() {
+    super(Options.set, "Uncommit Idle Collections",
+          "Return free memory to the OS once it has been idle for this many collections (0 to disable)",
+          0);
+  }
+
+  /**
+   * Only accept non-negative values.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 0, "Idle collections must be non-negative");
+  }
+}
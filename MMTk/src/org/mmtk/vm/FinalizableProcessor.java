@@ -28,7 +28,9 @@ public abstract class FinalizableProcessor {
   public abstract void clear();
 
   /**
-   * Scan through the list of references.
+   * Scan through the list of references.  This is called by every
+   * collector thread, and the implementation is responsible for
+   * dividing the work between them.
    *
    * @param trace the thread local trace element.
    * @param nursery {@code true} if it is safe to only scan new references.
@@ -36,7 +38,8 @@ public abstract class FinalizableProcessor {
   public abstract void scan(TraceLocal trace, boolean nursery);
 
   /**
-   * Iterates over and forward entries in the table.
+   * Iterates over and forward entries in the table.  As with
+   * {@link #scan}, this is called by every collector thread.
    *
    * @param trace the trace to use for the processing of the references
    * @param nursery if {@code true}, scan only references generated since
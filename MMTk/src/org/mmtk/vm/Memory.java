@@ -97,6 +97,32 @@ import org.vmmagic.pragma.*;
    */
   public abstract boolean munprotect(Address start, int size);
 
+  /**
+   * Returns the physical memory backing an area of virtual memory to
+   * the operating system.  The area remains mapped, but its contents
+   * are undefined when it is next accessed: some hosts supply fresh
+   * zero pages, while others may keep the old contents.  Callers must
+   * zero the area themselves if they need it zeroed.
+   *
+   * @param start the address of the start of the area
+   * @param size the size, in bytes, of the area
+   * @return <code>true</code> if successful, otherwise
+   * <code>false</code>
+   */
+  public abstract boolean uncommit(Address start, int size);
+
+  /**
+   * Advises the operating system that an area of virtual memory should
+   * be backed by huge pages where possible.  This is only advice: the
+   * area behaves identically whether or not it is honoured.
+   *
+   * @param start the address of the start of the area
+   * @param size the size, in bytes, of the area
+   * @return <code>true</code> if the advice was accepted, otherwise
+   * <code>false</code>
+   */
+  public abstract boolean adviseHugePages(Address start, int size);
+
 
   /**
    * Zero a region of memory.
@@ -150,4 +150,29 @@ import org.vmmagic.unboxed.*;
    * @return true if the runtime supports a return barrier
    */
   public abstract boolean supportsReturnBarrier();
+
+  /**
+   * Return the slot through which an object refers to contents that
+   * may be shared with any other object holding equal contents (such
+   * as the character array backing a string).
+   *
+   * @param object The object
+   * @return The address of the slot, or zero if the object has no
+   * deduplicable contents
+   */
+  public abstract Address getDeduplicationSlot(ObjectReference object);
+
+  /**
+   * @param contents Contents referred to by a deduplication slot
+   * @return A hash of the contents
+   */
+  public abstract int contentHash(ObjectReference contents);
+
+  /**
+   * @param a Contents referred to by a deduplication slot
+   * @param b Contents referred to by a deduplication slot
+   * @return {@code true} if the contents are equal, so that any slot
+   * referring to one may refer to the other instead
+   */
+  public abstract boolean contentEquals(ObjectReference a, ObjectReference b);
 }
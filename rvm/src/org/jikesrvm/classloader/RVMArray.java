@@ -1136,11 +1136,11 @@ public final class RVMArray extends RVMType {
     Offset dstOffset = Offset.fromIntZeroExtend(dstIdx << LOG_BYTES_IN_ADDRESS);
     int bytes = len << LOG_BYTES_IN_ADDRESS;
 
-    if (((src != dst) || (srcIdx > dstIdx)) && OBJECT_BULK_COPY_SUPPORTED) {
+    if (OBJECT_BULK_COPY_SUPPORTED) {
       if (NEEDS_OBJECT_ASTORE_BARRIER || NEEDS_OBJECT_ALOAD_BARRIER) {
         Barriers.objectBulkCopy(src, srcOffset, dst, dstOffset, bytes);
       } else {
-        Memory.alignedWordCopy(Magic.objectAsAddress(dst).plus(dstOffset), Magic.objectAsAddress(src).plus(srcOffset), bytes);
+        Memory.alignedWordMove(Magic.objectAsAddress(dst).plus(dstOffset), Magic.objectAsAddress(src).plus(srcOffset), bytes);
       }
     } else {
       arraycopyPiecemealNoCheckcast(src, dst, len, srcOffset, dstOffset, bytes);
@@ -1217,7 +1217,6 @@ final class BaselineMagic {
   static {
     MagicGenerator g = new Prefetch();
     generators.put(getMethodReference(Address.class, MagicNames.prefetch, void.class), g);
-    generators.put(getMethodReference(Address.class, MagicNames.prefetchNTA, void.class), g);
   }
 
   /**
@@ -90,7 +90,8 @@ import org.jikesrvm.runtime.Entrypoints;
  * the values of the relevant compiler options and/or Controls).
  * This pass is also responsible for inserting write barriers
  * if we are using an allocator that requires them. Write barriers
- * are always inline expanded.
+ * are always inline expanded, except on stores into new objects
+ * that the plan allows to go without them (see {@link NewObjectStores}).
  */
 public final class ExpandRuntimeServices extends CompilerPhase {
   /** Cache of simple optimizations if used to tidy up */
@@ -143,6 +144,11 @@ public final class ExpandRuntimeServices extends CompilerPhase {
   public void perform(IR ir) {
     ir.gc.resync(); // resync generation context -- yuck...
 
+    NewObjectStores newObjectStores = null;
+    if (OBJECT_BARRIER_ELIDABLE_ON_NEW_OBJECTS && ir.options.H2L_ELIDE_NEW_OBJECT_WRITE_BARRIER) {
+      newObjectStores = new NewObjectStores(ir);
+    }
+
     Instruction next;
     for (Instruction inst = ir.firstInstructionInCodeOrder(); inst != null; inst = next) {
       next = inst.nextInstructionInCodeOrder();
@@ -383,7 +389,7 @@ public final class ExpandRuntimeServices extends CompilerPhase {
         break;
 
         case REF_ASTORE_opcode: {
-          if (NEEDS_OBJECT_ASTORE_BARRIER) {
+          if (NEEDS_OBJECT_ASTORE_BARRIER && (newObjectStores == null || !newObjectStores.isNewObjectStore(inst))) {
             RVMMethod target = Entrypoints.objectArrayWriteBarrierMethod;
             Instruction wb =
                 Call.create3(CALL,
@@ -478,7 +484,8 @@ public final class ExpandRuntimeServices extends CompilerPhase {
             if (!fieldRef.getFieldContentsType().isPrimitiveType()) {
               // reference PUTFIELD
               RVMField field = fieldRef.peekResolvedField();
-              if (field == null || !field.isUntraced()) {
+              if ((field == null || !field.isUntraced()) &&
+                  (newObjectStores == null || !newObjectStores.isNewObjectStore(inst))) {
                 RVMMethod target = Entrypoints.objectFieldWriteBarrierMethod;
                 Instruction wb =
                     Call.create4(CALL,
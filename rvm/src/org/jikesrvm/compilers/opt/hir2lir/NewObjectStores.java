@@ -0,0 +1,329 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.compilers.opt.hir2lir;
+
+import static org.jikesrvm.compilers.opt.ir.Operators.ATHROW_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.BOUNDS_CHECK_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.BYTE_ASTORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.DOUBLE_ASTORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.FLOAT_ASTORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.GETFIELD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.GETSTATIC_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_ASTORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.INT_ZERO_CHECK_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.LONG_ASTORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.LONG_ZERO_CHECK_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.MONITORENTER_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.MONITOREXIT_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.NEWARRAY_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.NEW_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.NULL_CHECK_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.PUTFIELD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.PUTSTATIC_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.REF_ALOAD_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.REF_ASTORE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.REF_MOVE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.RESOLVE_MEMBER_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.RESOLVE_opcode;
+import static org.jikesrvm.compilers.opt.ir.Operators.SHORT_ASTORE_opcode;
+import static org.jikesrvm.mm.mminterface.Barriers.*;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.jikesrvm.classloader.RVMArray;
+import org.jikesrvm.classloader.RVMClass;
+import org.jikesrvm.classloader.RVMType;
+import org.jikesrvm.compilers.opt.ir.AStore;
+import org.jikesrvm.compilers.opt.ir.BasicBlock;
+import org.jikesrvm.compilers.opt.ir.IR;
+import org.jikesrvm.compilers.opt.ir.Instruction;
+import org.jikesrvm.compilers.opt.ir.Move;
+import org.jikesrvm.compilers.opt.ir.New;
+import org.jikesrvm.compilers.opt.ir.NewArray;
+import org.jikesrvm.compilers.opt.ir.PutField;
+import org.jikesrvm.compilers.opt.ir.Register;
+import org.jikesrvm.compilers.opt.ir.operand.Operand;
+import org.jikesrvm.mm.mminterface.MemoryManager;
+import org.jikesrvm.objectmodel.ObjectModel;
+
+/**
+ * Find the reference stores in an HIR method whose target object was
+ * allocated by the default allocator, at a size that keeps it out of the
+ * large object space, with no GC point since.  Until the
+ * next GC point such an object is where the plan puts new objects, and
+ * if the plan says so, stores into it need no write barrier.<p>
+ *
+ * The analysis is a forward must-dataflow over the registers that hold
+ * new objects.  A register leaves the set when it is redefined, and the
+ * set is emptied at every GC point, including the calls that other
+ * runtime services will be expanded into.  Exception handlers start
+ * with an empty set, so a PEI that allocates its exception does not
+ * need to be treated as a GC point on the normal path.
+ */
+final class NewObjectStores {
+
+  /** {@code true} if some primitive array store will be expanded into a barrier call */
+  private static final boolean PRIMITIVE_ASTORE_BARRIERS =
+    NEEDS_BOOLEAN_ASTORE_BARRIER || NEEDS_BYTE_ASTORE_BARRIER || NEEDS_CHAR_ASTORE_BARRIER ||
+    NEEDS_SHORT_ASTORE_BARRIER || NEEDS_INT_ASTORE_BARRIER || NEEDS_LONG_ASTORE_BARRIER ||
+    NEEDS_FLOAT_ASTORE_BARRIER || NEEDS_DOUBLE_ASTORE_BARRIER;
+
+  /** {@code true} if some primitive putfield will be expanded into a barrier call */
+  private static final boolean PRIMITIVE_PUTFIELD_BARRIERS =
+    NEEDS_BOOLEAN_PUTFIELD_BARRIER || NEEDS_BYTE_PUTFIELD_BARRIER || NEEDS_CHAR_PUTFIELD_BARRIER ||
+    NEEDS_SHORT_PUTFIELD_BARRIER || NEEDS_INT_PUTFIELD_BARRIER || NEEDS_LONG_PUTFIELD_BARRIER ||
+    NEEDS_FLOAT_PUTFIELD_BARRIER || NEEDS_DOUBLE_PUTFIELD_BARRIER || NEEDS_WORD_PUTFIELD_BARRIER ||
+    NEEDS_ADDRESS_PUTFIELD_BARRIER || NEEDS_EXTENT_PUTFIELD_BARRIER || NEEDS_OFFSET_PUTFIELD_BARRIER;
+
+  /** The stores whose barriers may be elided */
+  private final HashSet<Instruction> stores = new HashSet<Instruction>();
+
+  /**
+   * Analyze a method.
+   *
+   * @param ir the method's HIR
+   */
+  NewObjectStores(IR ir) {
+    HashMap<BasicBlock, HashSet<Register>> out = new HashMap<BasicBlock, HashSet<Register>>();
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Enumeration<BasicBlock> e = ir.forwardBlockEnumerator(); e.hasMoreElements();) {
+        BasicBlock bb = e.nextElement();
+        HashSet<Register> fresh = transfer(bb, meet(ir, bb, out), false);
+        if (!fresh.equals(out.get(bb))) {
+          out.put(bb, fresh);
+          changed = true;
+        }
+      }
+    }
+    for (Enumeration<BasicBlock> e = ir.forwardBlockEnumerator(); e.hasMoreElements();) {
+      BasicBlock bb = e.nextElement();
+      transfer(bb, meet(ir, bb, out), true);
+    }
+  }
+
+  /**
+   * @param store a PUTFIELD or REF_ASTORE
+   * @return {@code true} if the store's target is known to be a new object
+   */
+  boolean isNewObjectStore(Instruction store) {
+    return stores.contains(store);
+  }
+
+  /**
+   * Compute the registers known to hold new objects on entry to a block,
+   * the intersection over its predecessors.  Predecessors not yet visited
+   * are optimistically ignored; the iteration removes anything they kill.
+   *
+   * @param ir the IR
+   * @param bb the block
+   * @param out the registers holding new objects on exit from each block
+   * @return the registers holding new objects on entry to the block
+   */
+  private static HashSet<Register> meet(IR ir, BasicBlock bb, HashMap<BasicBlock, HashSet<Register>> out) {
+    HashSet<Register> fresh = null;
+    if (bb != ir.cfg.entry() && !bb.isExceptionHandlerBasicBlock()) {
+      for (Enumeration<BasicBlock> e = bb.getIn(); e.hasMoreElements();) {
+        HashSet<Register> pred = out.get(e.nextElement());
+        if (pred == null) continue;
+        if (fresh == null) {
+          fresh = new HashSet<Register>(pred);
+        } else {
+          fresh.retainAll(pred);
+        }
+      }
+    }
+    return fresh == null ? new HashSet<Register>() : fresh;
+  }
+
+  /**
+   * Pass the registers holding new objects through a block.
+   *
+   * @param bb the block
+   * @param fresh the registers holding new objects on entry, updated in place
+   * @param record whether to record the stores found into new objects
+   * @return the registers holding new objects on exit
+   */
+  private HashSet<Register> transfer(BasicBlock bb, HashSet<Register> fresh, boolean record) {
+    for (Enumeration<Instruction> e = bb.forwardRealInstrEnumerator(); e.hasMoreElements();) {
+      Instruction s = e.nextElement();
+      boolean newObjectStore = isReferenceStore(s) && holdsNewObject(storeTarget(s), fresh);
+      if (newObjectStore && record) {
+        stores.add(s);
+      }
+      if (!newObjectStore && isGCPoint(s)) {
+        fresh.clear();
+      }
+      for (Enumeration<Operand> defs = s.getDefs(); defs.hasMoreElements();) {
+        Operand def = defs.nextElement();
+        if (def.isRegister()) {
+          fresh.remove(def.asRegister().getRegister());
+        }
+      }
+      switch (s.getOpcode()) {
+        case NEW_opcode:
+          if (isSmallDefaultScalar(New.getType(s).getVMType(), s)) {
+            fresh.add(New.getResult(s).getRegister());
+          }
+          break;
+        case NEWARRAY_opcode:
+          if (isSmallDefaultArray(NewArray.getType(s).getVMType(), NewArray.getSize(s), s)) {
+            fresh.add(NewArray.getResult(s).getRegister());
+          }
+          break;
+        case REF_MOVE_opcode:
+          if (holdsNewObject(Move.getVal(s), fresh)) {
+            fresh.add(Move.getResult(s).getRegister());
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return fresh;
+  }
+
+  /**
+   * @param type the allocated type
+   * @param s the allocation
+   * @return {@code true} if the allocation is made by the default allocator
+   */
+  private static boolean isSmallDefaultScalar(RVMType type, Instruction s) {
+    if (type == null || !type.isClassType()) return false;
+    RVMClass cls = type.asClass();
+    return MemoryManager.usesDefaultAllocator(cls, cls.getInstanceSize(), ObjectModel.getAlignment(cls),
+                                              s.position.getMethod());
+  }
+
+  /**
+   * An array is only known to be allocated by the default allocator if its
+   * length is constant and small enough to keep it out of the large object
+   * space, which new objects need not live in.
+   *
+   * @param type the allocated type
+   * @param length the number of elements
+   * @param s the allocation
+   * @return {@code true} if the allocation is made by the default allocator
+   */
+  private static boolean isSmallDefaultArray(RVMType type, Operand length, Instruction s) {
+    if (type == null || !type.isArrayType() || !length.isIntConstant()) return false;
+    RVMArray array = type.asArray();
+    int elements = length.asIntConstant().value;
+    if (elements < 0) return false;
+    long size = ((long) elements << array.getLogElementSize()) + ObjectModel.computeArrayHeaderSize(array);
+    return size <= Integer.MAX_VALUE &&
+      MemoryManager.usesDefaultAllocator(array, (int) size, ObjectModel.getAlignment(array), s.position.getMethod());
+  }
+
+  /**
+   * @param op an operand
+   * @param fresh the registers holding new objects
+   * @return {@code true} if the operand is known to hold a new object
+   */
+  private static boolean holdsNewObject(Operand op, HashSet<Register> fresh) {
+    return op.isRegister() && fresh.contains(op.asRegister().getRegister());
+  }
+
+  /**
+   * @param s an instruction
+   * @return {@code true} if the instruction stores a reference into the heap
+   */
+  private static boolean isReferenceStore(Instruction s) {
+    switch (s.getOpcode()) {
+      case REF_ASTORE_opcode:
+        return true;
+      case PUTFIELD_opcode:
+        return !PutField.getLocation(s).getFieldRef().getFieldContentsType().isPrimitiveType();
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @param s a reference store
+   * @return the object stored into
+   */
+  private static Operand storeTarget(Instruction s) {
+    return s.getOpcode() == REF_ASTORE_opcode ? AStore.getArray(s) : PutField.getRef(s);
+  }
+
+  /**
+   * Could a GC happen at an instruction, once runtime services have been
+   * expanded, on the path that continues to the next instruction?  Null,
+   * bounds and divide-by-zero checks only reach a GC by throwing, and so
+   * are not GC points on that path.  Any other PEI, such as a dynamically
+   * linked type check, may call the runtime and is treated as one.
+   *
+   * @param s an instruction
+   * @return {@code true} if the instruction may be a GC point
+   */
+  private static boolean isGCPoint(Instruction s) {
+    if (s.isCall() || s.isAllocation() || s.isDynamicLinkingPoint()) {
+      return true;
+    }
+    if (s.isPEI()) {
+      return !isCheckOnly(s);
+    }
+    if (s.isGCPoint()) {
+      return true;
+    }
+    switch (s.getOpcode()) {
+      case ATHROW_opcode:
+      case MONITORENTER_opcode:
+      case MONITOREXIT_opcode:
+      case RESOLVE_opcode:
+      case RESOLVE_MEMBER_opcode:
+        return true;
+      case REF_ASTORE_opcode:
+        return NEEDS_OBJECT_ASTORE_BARRIER;
+      case BYTE_ASTORE_opcode:
+      case SHORT_ASTORE_opcode:
+      case INT_ASTORE_opcode:
+      case LONG_ASTORE_opcode:
+      case FLOAT_ASTORE_opcode:
+      case DOUBLE_ASTORE_opcode:
+        return PRIMITIVE_ASTORE_BARRIERS;
+      case PUTFIELD_opcode:
+        return NEEDS_OBJECT_PUTFIELD_BARRIER && (isReferenceStore(s) || PRIMITIVE_PUTFIELD_BARRIERS);
+      case REF_ALOAD_opcode:
+        return NEEDS_OBJECT_ALOAD_BARRIER;
+      case GETFIELD_opcode:
+        return NEEDS_OBJECT_GETFIELD_BARRIER;
+      case PUTSTATIC_opcode:
+        return NEEDS_OBJECT_PUTSTATIC_BARRIER;
+      case GETSTATIC_opcode:
+        return NEEDS_OBJECT_GETSTATIC_BARRIER;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @param s a PEI
+   * @return {@code true} if the PEI only tests a condition and throws
+   */
+  private static boolean isCheckOnly(Instruction s) {
+    switch (s.getOpcode()) {
+      case NULL_CHECK_opcode:
+      case BOUNDS_CHECK_opcode:
+      case INT_ZERO_CHECK_opcode:
+      case LONG_ZERO_CHECK_opcode:
+        return true;
+      default:
+        return false;
+    }
+  }
+}
@@ -1225,6 +1225,8 @@ public class Barriers {
   public static final boolean  NEEDS_OBJECT_GETFIELD_BARRIER     = NEEDS_OBJECT_GC_READ_BARRIER;
   /** {@code true} if the VM requires read barriers on reference arrayload */
   public static final boolean  NEEDS_OBJECT_ALOAD_BARRIER        = NEEDS_OBJECT_GC_READ_BARRIER;
+  /** {@code true} if reference stores into new objects need no barrier before the next GC point */
+  public static final boolean OBJECT_BARRIER_ELIDABLE_ON_NEW_OBJECTS = NEEDS_OBJECT_GC_WRITE_BARRIER && Selected.Constraints.get().objectReferenceWriteBarrierElidableOnNewObjects();
   /** {@code true} if the garbage collector supports the bulk copy operation */
   public static final boolean OBJECT_BULK_COPY_SUPPORTED         = !(NEEDS_OBJECT_ASTORE_BARRIER || NEEDS_OBJECT_ALOAD_BARRIER) || Selected.Constraints.get().objectReferenceBulkCopySupported();
 
@@ -1305,7 +1307,8 @@ public class Barriers {
   }
 
   /**
-   * Barrier for a bulk copy of objects (i.e. in an array copy).
+   * Barrier for a bulk copy of objects (i.e. in an array copy).  The
+   * source and destination ranges may overlap.
    *
    * @param src The source array
    * @param srcOffset The starting source offset
@@ -1318,7 +1321,7 @@ public class Barriers {
     if (VM.VerifyAssertions) VM._assert(OBJECT_BULK_COPY_SUPPORTED);
 
     if (!Selected.Mutator.get().objectReferenceBulkCopy(ObjectReference.fromObject(src), srcOffset, ObjectReference.fromObject(dst), dstOffset, bytes)) {
-      Memory.alignedWordCopy(Magic.objectAsAddress(dst).plus(dstOffset), Magic.objectAsAddress(src).plus(srcOffset), bytes);
+      Memory.alignedWordMove(Magic.objectAsAddress(dst).plus(dstOffset), Magic.objectAsAddress(src).plus(srcOffset), bytes);
     }
   }
 
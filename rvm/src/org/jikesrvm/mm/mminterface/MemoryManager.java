@@ -438,6 +438,26 @@ public final class MemoryManager {
     return type.getMMAllocator();
   }
 
+  /**
+   * Determine whether an allocation will be made by the plan's default
+   * allocator, and so into the space where new objects normally live.
+   * Besides the allocator picked for the type, this requires the object
+   * to be small enough that {@code MutatorContext.checkAllocator} can
+   * never send it to the large object space instead.
+   *
+   * @param type the type of the object to be allocated
+   * @param size the size of the object in bytes
+   * @param align the alignment requested
+   * @param method the method requesting the allocation
+   * @return {@code true} if the default allocator will be used
+   */
+  @Interruptible
+  public static boolean usesDefaultAllocator(RVMType type, int size, int align, RVMMethod method) {
+    int maxBytes = Allocator.getMaximumAlignedSize(org.jikesrvm.runtime.Memory.alignUp(size, MIN_ALIGNMENT), align);
+    return maxBytes <= Plan.MAX_NON_LOS_DEFAULT_ALLOC_BYTES && maxBytes <= Plan.MAX_NON_LOS_COPY_BYTES &&
+      pickAllocator(type, method) == Plan.ALLOC_DEFAULT;
+  }
+
   /**
    * Determine the default allocator to be used for a given type.
    *
@@ -254,6 +254,7 @@ public class BootRecord {
   public Address sysMMapIP;
   public Address sysMMapErrnoIP;
   public Address sysMProtectIP;
+  public Address sysMAdviseIP;
 
   // threads
   public Address sysNumProcessorsIP;
@@ -197,6 +197,10 @@ public class Entrypoints {
   public static final RVMField referenceReferentField =
       getField(java.lang.ref.Reference.class, "_referent", org.vmmagic.unboxed.Address.class);
 
+  /** The backing character array of a string, which the GC may deduplicate */
+  public static final RVMField stringValueField =
+      getField(java.lang.String.class, "value", char[].class);
+
   /** Used in deciding which stack frames we can elide when printing. */
   public static final NormalMethod mainThreadRunMethod =
       getMethod(org.jikesrvm.scheduler.MainThread.class, "run", "()V");
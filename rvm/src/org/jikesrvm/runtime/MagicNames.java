@@ -149,8 +149,6 @@ public class MagicNames {
   public static final Atom sync = Atom.findOrCreateAsciiAtom("sync");
   public static final Atom isync = Atom.findOrCreateAsciiAtom("isync");
   public static final Atom prefetch = Atom.findOrCreateAsciiAtom("prefetch");
-  /* IA-specific */
-  public static final Atom prefetchNTA = Atom.findOrCreateAsciiAtom("prefetchNTA");
   /* PowerPC-specific */
   public static final Atom dcbst = Atom.findOrCreateAsciiAtom("dcbst");
   public static final Atom dcbt = Atom.findOrCreateAsciiAtom("dcbt");
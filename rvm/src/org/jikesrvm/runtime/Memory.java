@@ -409,6 +409,30 @@ public class Memory {
     }
   }
 
+  /**
+   * Copy numbytes from src to dst, where the ranges may overlap in
+   * either direction.
+   * Assumption: src and dst are word aligned and numBytes is a multiple of BYTES_IN_ADDRESS.
+   * @param dst the destination addr
+   * @param src the source addr
+   * @param numBytes the number of bytes top copy
+   */
+  public static void alignedWordMove(Address dst, Address src, int numBytes) {
+    if (dst.LE(src) || src.plus(numBytes).LE(dst)) {
+      alignedWordCopy(dst, src, numBytes);
+    } else if (USE_NATIVE && numBytes > NATIVE_THRESHOLD) {
+      memcopy(dst, src, numBytes);
+    } else {
+      Address cursor = src.plus(numBytes);
+      Address target = dst.plus(numBytes);
+      while (cursor.GT(src)) {
+        cursor = cursor.minus(BYTES_IN_ADDRESS);
+        target = target.minus(BYTES_IN_ADDRESS);
+        target.store(cursor.loadWord());
+      }
+    }
+  }
+
   /**
    * Copy <code>numbytes</code> from <code>src</code> to <code>dst</code>.
    * Assumption either the ranges are non overlapping, or <code>src &gt;= dst + BYTES_IN_ADDRESS</code>.
@@ -494,6 +518,11 @@ public class Memory {
   public static final int PROT_WRITE = 2;
   public static final int PROT_EXEC = 4;
 
+  // constants for memory advice
+  public static final int MADV_DONTNEED = 4;
+  /** Linux only: back the range with transparent huge pages */
+  public static final int MADV_HUGEPAGE = 14;
+
   public static final int MAP_PRIVATE = 2;
   public static final int MAP_FIXED     = (VM.BuildForLinux) ? 16 : (VM.BuildForOsx) ?     16 : (VM.BuildForSolaris) ? 0x10 : 256;
   public static final int MAP_ANONYMOUS = (VM.BuildForLinux) ? 32 : (VM.BuildForOsx) ? 0x1000 : (VM.BuildForSolaris) ? 0x100 : 16;
@@ -562,6 +591,20 @@ public class Memory {
     return SysCall.sysCall.sysMProtect(address, size, prot) == 0;
   }
 
+  /**
+   * Do madvise system call
+   * @param address Start of address range (Address)
+   * @param size Size of address range
+   * @param advice Advice (int)
+   * @return true iff success
+   */
+  public static boolean madvise(Address address, Extent size, int advice) {
+    if (VM.VerifyAssertions) {
+      VM._assert(isPageAligned(address) && isPageMultiple(size));
+    }
+    return SysCall.sysCall.sysMAdvise(address, size, advice) == 0;
+  }
+
   private static int pagesize = UNKNOWN;
   private static int pagesizeLog = UNKNOWN;
 
@@ -49,6 +49,7 @@ import org.jikesrvm.jni.JNIEnvironment;
 import org.jikesrvm.mm.mminterface.CollectorThread;
 import org.jikesrvm.mm.mminterface.MemoryManager;
 import org.jikesrvm.mm.mminterface.ThreadContext;
+import org.jikesrvm.mm.mmtk.ScanThread;
 import org.jikesrvm.objectmodel.ObjectModel;
 import org.jikesrvm.objectmodel.ThinLockConstants;
 import org.jikesrvm.runtime.Entrypoints;
@@ -74,6 +75,7 @@ import org.vmmagic.pragma.NoCheckStore;
 import org.vmmagic.unboxed.Address;
 import org.vmmagic.unboxed.Word;
 import org.vmmagic.unboxed.Offset;
+import org.vmmagic.unboxed.WordArray;
 
 import static org.jikesrvm.runtime.SysCall.sysCall;
 
@@ -332,6 +334,19 @@ public final class RVMThread extends ThreadContext {
     return hijackedReturnCalleeFp;
   }
 
+  /** @return the caller frame pointer for the stack frame hijacked by the return barrier */
+  public Address getHijackedReturnCallerFp() {
+    return hijackedReturnCallerFp;
+  }
+
+  /** Reference slots reported for this thread's frames at the last stack scan (see ScanThread) */
+  private WordArray stackScanCache;
+
+  /** @return the cache of reference slots from the last stack scan, or {@code null} */
+  public WordArray getStackScanCache() {
+    return stackScanCache;
+  }
+
   /** debugging flag for return barrier trampoline */
   public static final boolean DEBUG_STACK_TRAMPOLINE = false;
 
@@ -1692,6 +1707,7 @@ public final class RVMThread extends ThreadContext {
       this.waiting = Waiting.RUNNABLE;
 
       stackLimit = Magic.objectAsAddress(stack).plus(STACK_SIZE_GUARD);
+      stackScanCache = ScanThread.newStackScanCache();
 
       // get instructions for method to be executed as thread startoff
       CodeArray instructions = Entrypoints.threadStartoffMethod.getCurrentEntryCodeArray();
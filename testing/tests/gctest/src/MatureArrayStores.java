@@ -0,0 +1,86 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+
+/**
+ * Store young objects into mature reference arrays, then force nursery
+ * collections and check that every stored object survived intact.<p>
+ *
+ * Generational collectors only find these objects through the write
+ * barrier (a remembered slot, or a dirty card when card marking is on),
+ * so a barrier that misses a store shows up as a corrupted element.
+ */
+class MatureArrayStores {
+
+  static final int SMALL_LENGTH = 1024;     // spans several cards, but is not a large object
+  static final int LARGE_LENGTH = 100000;   // lives in the large object space
+  static final int ROUNDS = 20;
+  static final int GARBAGE_BYTES = 8 * 1024 * 1024;
+
+  static class Cell {
+    final int value;
+    Cell(int value) { this.value = value; }
+  }
+
+  public static byte[] junk;
+
+  public static void main(String[] args) {
+    Object[] small = new Object[SMALL_LENGTH];
+    Object[] large = new Object[LARGE_LENGTH];
+    /* promote both arrays */
+    System.gc();
+
+    boolean passed = true;
+    for (int round = 0; round < ROUNDS; round++) {
+      fill(small, round, round % 3 + 1);
+      fill(large, round, round % 7 + 1);
+      makeGarbage();
+      passed &= check("small", small, round, round % 3 + 1);
+      passed &= check("large", large, round, round % 7 + 1);
+    }
+
+    if (passed) {
+      System.out.println("ALL TESTS PASSED");
+    } else {
+      System.out.println("SOME TESTS FAILED");
+    }
+  }
+
+  /**
+   * Store a new cell into every stride'th element of an array.
+   */
+  static void fill(Object[] array, int round, int stride) {
+    for (int i = 0; i < array.length; i += stride) {
+      array[i] = new Cell(round * array.length + i);
+    }
+  }
+
+  /**
+   * Allocate enough short-lived data to force nursery collections.
+   */
+  static void makeGarbage() {
+    for (int allocated = 0; allocated < GARBAGE_BYTES; allocated += 1024) {
+      junk = new byte[1024];
+    }
+  }
+
+  static boolean check(String name, Object[] array, int round, int stride) {
+    for (int i = 0; i < array.length; i += stride) {
+      Object element = array[i];
+      if (!(element instanceof Cell) || ((Cell) element).value != round * array.length + i) {
+        System.out.println("FAILED: " + name + "[" + i + "] corrupted in round " + round);
+        return false;
+      }
+    }
+    return true;
+  }
+}
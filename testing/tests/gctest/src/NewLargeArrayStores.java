@@ -0,0 +1,89 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+
+/**
+ * Store young objects into freshly allocated large reference arrays,
+ * then force nursery collections and check that every stored object
+ * survived intact.<p>
+ *
+ * The opt compiler elides the write barrier on stores into objects it
+ * has just allocated in the nursery.  A large array goes to the large
+ * object space instead, so the barrier on a store into it must be kept,
+ * or a generational collector never finds the young object.
+ */
+class NewLargeArrayStores {
+
+  static final int LARGE_LENGTH = 1 << 14;  // lives in the large object space
+  static final int KEEP = 8;
+  static final int ITERATIONS = 1000;       // enough for the adaptive system to optimize store()
+  static final int GARBAGE_BYTES = 1024 * 1024;
+
+  static class Cell {
+    final int value;
+    Cell(int value) { this.value = value; }
+  }
+
+  public static byte[] junk;
+
+  public static void main(String[] args) {
+    Object[][] kept = new Object[KEEP][];
+
+    boolean passed = true;
+    for (int i = 0; i < ITERATIONS; i++) {
+      kept[i % KEEP] = store(i);
+      makeGarbage();
+      for (int k = 0; k < KEEP && k <= i; k++) {
+        passed &= check(kept[k], i - (i - k) % KEEP);
+      }
+      if (!passed) break;
+    }
+
+    if (passed) {
+      System.out.println("ALL TESTS PASSED");
+    } else {
+      System.out.println("SOME TESTS FAILED");
+    }
+  }
+
+  /**
+   * Allocate a cell, then a large array, and store the cell into the
+   * array with no allocation in between.
+   */
+  static Object[] store(int value) {
+    Cell cell = new Cell(value);
+    Object[] array = new Object[LARGE_LENGTH];
+    array[0] = cell;
+    array[LARGE_LENGTH - 1] = cell;
+    return array;
+  }
+
+  /**
+   * Allocate enough short-lived data to force nursery collections.
+   */
+  static void makeGarbage() {
+    for (int allocated = 0; allocated < GARBAGE_BYTES; allocated += 1024) {
+      junk = new byte[1024];
+    }
+  }
+
+  static boolean check(Object[] array, int value) {
+    for (int i = 0; i < LARGE_LENGTH; i += LARGE_LENGTH - 1) {
+      Object element = array[i];
+      if (!(element instanceof Cell) || ((Cell) element).value != value) {
+        System.out.println("FAILED: element " + i + " of array " + value + " corrupted");
+        return false;
+      }
+    }
+    return true;
+  }
+}
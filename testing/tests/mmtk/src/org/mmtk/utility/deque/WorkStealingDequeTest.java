@@ -0,0 +1,218 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.deque;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.Assert;
+import org.mmtk.harness.Harness;
+import org.mmtk.harness.lang.Trace;
+import org.mmtk.harness.lang.Trace.Item;
+import org.mmtk.harness.scheduler.Scheduler;
+import org.mmtk.plan.CollectorContext;
+import org.mmtk.plan.Plan;
+import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.ObjectReference;
+
+/**
+ * Junit unit-tests for WorkStealingDeque.
+ */
+public class WorkStealingDequeTest {
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Harness.initOnce();
+    Trace.enable(Item.SCHEDULER);
+    Scheduler.setThreadModel(Scheduler.Model.DETERMINISTIC);
+    Harness.policy.setValue("FIXED");
+    Harness.yieldInterval.setValue(1);
+    /* Must call this after switching scheduler */
+    org.mmtk.harness.scheduler.Scheduler.initCollectors();
+  }
+
+  /** Enough entries to fill several buffers */
+  private static final int ENTRIES = 5000;
+
+  /**
+   * Helper method to create object references
+   * @param val
+   * @return
+   */
+  private static ObjectReference o(int val) {
+    return Address.fromIntSignExtend(val).toObjectReference();
+  }
+
+  /**
+   * A collector whose worker ordinal can be changed while it runs, so
+   * that one thread can act as the owner of a deque and then as a thief.
+   */
+  private abstract static class WorkerContext extends CollectorContext {
+    protected int ordinal = 0;
+
+    @Override
+    public int parallelWorkerOrdinal() {
+      return ordinal;
+    }
+  }
+
+  /**
+   * Run a test, ie a list of threads, all run in GC context.
+   * @param items
+   */
+  private void runTest(final CollectorContext... items) {
+    for (CollectorContext item : items) {
+      Scheduler.scheduleCollectorContext(item);
+    }
+    Scheduler.scheduleGcThreads();
+  }
+
+  /**
+   * Push the values 1..n into a deque and flush it to the shared pool.
+   */
+  private static void fill(ObjectReferenceDeque deque, int n) {
+    for (int i = 1; i <= n; i++) {
+      deque.push(o(i));
+    }
+    deque.flushLocal();
+  }
+
+  /**
+   * Pop everything from a deque, checking that the values 1..n each
+   * come back exactly once.
+   */
+  private static void drain(ObjectReferenceDeque deque, int n) {
+    Set<Integer> seen = new HashSet<Integer>();
+    for (int i = 0; i < n; i++) {
+      ObjectReference obj = deque.pop();
+      Assert.assertFalse(obj.isNull());
+      Assert.assertTrue(seen.add(obj.toAddress().toInt()));
+    }
+    Assert.assertTrue(deque.isEmpty());
+  }
+
+  @Test
+  public void testPushPop() {
+    runTest(new WorkerContext() {
+      @Override
+      public void run() {
+        WorkStealingDeque shared = new WorkStealingDeque("shared",Plan.metaDataSpace,1);
+        ObjectReferenceDeque deque = new ObjectReferenceDeque("deque",shared);
+
+        shared.prepareNonBlocking();
+        deque.push(o(1));
+        deque.flushLocal();
+        Assert.assertEquals(deque.pop(),o(1));
+        Assert.assertTrue(deque.isEmpty());
+        shared.reset();
+      }
+    });
+  }
+
+  @Test
+  public void testPushPopMany() {
+    runTest(new WorkerContext() {
+      @Override
+      public void run() {
+        WorkStealingDeque shared = new WorkStealingDeque("shared",Plan.metaDataSpace,1);
+        ObjectReferenceDeque deque = new ObjectReferenceDeque("deque",shared);
+
+        shared.prepareNonBlocking();
+        fill(deque, ENTRIES);
+        Assert.assertTrue(shared.enqueuedPages() > 0);
+        drain(deque, ENTRIES);
+        Assert.assertEquals(0, shared.enqueuedPages());
+        shared.reset();
+      }
+    });
+  }
+
+  @Test
+  public void testSteal() {
+    runTest(new WorkerContext() {
+      @Override
+      public void run() {
+        WorkStealingDeque shared = new WorkStealingDeque("shared",Plan.metaDataSpace,1);
+        ObjectReferenceDeque owner = new ObjectReferenceDeque("owner",shared);
+        ObjectReferenceDeque thief = new ObjectReferenceDeque("thief",shared);
+
+        shared.prepareNonBlocking();
+        ordinal = 0;
+        fill(owner, ENTRIES);
+        ordinal = 1;
+        drain(thief, ENTRIES);
+        ordinal = 0;
+        Assert.assertTrue(owner.isEmpty());
+        shared.reset();
+      }
+    });
+  }
+
+  @Test
+  public void testStealAfterOwnerPop() {
+    runTest(new WorkerContext() {
+      @Override
+      public void run() {
+        WorkStealingDeque shared = new WorkStealingDeque("shared",Plan.metaDataSpace,1);
+        ObjectReferenceDeque owner = new ObjectReferenceDeque("owner",shared);
+        ObjectReferenceDeque thief = new ObjectReferenceDeque("thief",shared);
+
+        shared.prepareNonBlocking();
+        ordinal = 0;
+        fill(owner, ENTRIES);
+        /* Take one buffer's worth from the bottom, leave the rest to the thief */
+        Assert.assertFalse(owner.pop().isNull());
+        ordinal = 1;
+        int stolen = 0;
+        while (!thief.isEmpty()) {
+          Assert.assertFalse(thief.pop().isNull());
+          stolen++;
+        }
+        ordinal = 0;
+        int popped = 1;
+        while (!owner.isEmpty()) {
+          Assert.assertFalse(owner.pop().isNull());
+          popped++;
+        }
+        Assert.assertEquals(ENTRIES, stolen + popped);
+        shared.reset();
+      }
+    });
+  }
+
+  @Test
+  public void testWorkerWithoutDeque() {
+    runTest(new WorkerContext() {
+      @Override
+      public void run() {
+        WorkStealingDeque shared = new WorkStealingDeque("shared",Plan.metaDataSpace,1);
+        ObjectReferenceDeque extra = new ObjectReferenceDeque("extra",shared);
+        ObjectReferenceDeque owner = new ObjectReferenceDeque("owner",shared);
+
+        shared.prepareNonBlocking();
+        /* A worker beyond MAX_WORKERS pushes to the overflow list ... */
+        ordinal = WorkStealingDeque.MAX_WORKERS + 3;
+        fill(extra, ENTRIES);
+        ordinal = 0;
+        drain(owner, ENTRIES);
+        /* ... and steals from the workers that own a deque */
+        fill(owner, ENTRIES);
+        ordinal = WorkStealingDeque.MAX_WORKERS + 3;
+        drain(extra, ENTRIES);
+        shared.reset();
+      }
+    });
+  }
+}
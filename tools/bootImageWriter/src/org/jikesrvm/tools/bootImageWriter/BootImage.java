@@ -18,7 +18,6 @@ import static org.jikesrvm.HeapLayoutConstants.BOOT_IMAGE_CODE_START;
 import static org.jikesrvm.HeapLayoutConstants.BOOT_IMAGE_DATA_SIZE;
 import static org.jikesrvm.HeapLayoutConstants.BOOT_IMAGE_DATA_START;
 import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_ADDRESS;
-import static org.jikesrvm.SizeConstants.LOG_BYTES_IN_WORD;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -189,10 +188,9 @@ public class BootImage extends BootImageWriterMessages
       say("writing " + imageRMapFileName);
     }
 
-    /* Now we generate a compressed reference map.  Typically we get 4 bits/address, but
-       we'll create the in-memory array assuming worst case 1:1 compression.  Only the
-       used portion of the array actually gets written into the image. */
-    bootImageRMap = new byte[referenceMapReferences << LOG_BYTES_IN_WORD];
+    /* Now we generate the reference map: a summary of which pages hold references,
+       followed by a bitmap of one bit per address-sized slot. */
+    bootImageRMap = new byte[ScanBootImage.getRMapBytes(referenceMapLimit)];
     rMapSize = ScanBootImage.encodeRMap(bootImageRMap, referenceMap, referenceMapLimit);
     FileOutputStream rmapOut = new FileOutputStream(imageRMapFileName);
     rmapOut.write(bootImageRMap, 0, rMapSize);
@@ -446,16 +446,6 @@ public final class Address extends ArchitecturalWord {
     if (VM.VerifyAssertions) VM._assert(VM.NOT_REACHED);
   }
 
-  /**
-   * IA32 "prefetchnta" operation: "fetches the data into the
-   * second-level cache, minimizing cache pollution." (Semantics are
-   * micro-architecture-specific: check for your processor!)
-   * NOTE: IA32-specific
-   */
-  public void prefetchNTA() {
-    if (VM.VerifyAssertions) VM._assert(VM.NOT_REACHED);
-  }
-
 //   CURRENTLY UNIMPLEMENTED
 //   /**
 //    * IA32 "prefetcht0" operation: "fetches the data into all cache
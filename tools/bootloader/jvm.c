@@ -66,6 +66,9 @@ char *bootDataFilename;
 /** File name for part of boot image containing the root map */
 char *bootRMapFilename;
 
+/** Should the boot image code and data be backed by huge pages? */
+int hugePageBootImage = 0;
+
 Extent initialHeapSize;
 Extent maximumHeapSize;
 Extent pageSize;
@@ -283,17 +286,59 @@ Extent determinePageSize()
   return pageSize;
 }
 
+#if (defined RVM_FOR_LINUX) && (defined MADV_HUGEPAGE)
+/** Size of a transparent huge page on the platforms we support */
+#define HUGE_PAGE_SIZE ((Extent) 2 * 1024 * 1024)
+
+/**
+ * Load an image file into anonymous memory advised to use transparent
+ * huge pages.  A private file mapping is never backed by huge pages, so
+ * the file is read in instead.  The region is rounded up to a whole
+ * number of huge pages so that its tail gets one too.
+ *
+ * Taken:     fin              [in] the open image file
+ *            targetAddress    [in] address to load file to (huge page aligned)
+ *            prot             [in] protection for the loaded image
+ *            actualImageSize  [in] size of the image file
+ *            roundedImageSize [out] size of mapped memory rounded up to a
+ *                                   whole number of huge pages
+ * Returned:  address of mapped region, or MAP_FAILED
+ */
+static void* mapImageHugePages(FILE *fin, const void *targetAddress, int prot,
+                               Extent actualImageSize, Extent *roundedImageSize) {
+  *roundedImageSize = pageRoundUp(actualImageSize, HUGE_PAGE_SIZE);
+  void *bootRegion = mmap((void*)targetAddress, *roundedImageSize,
+       PROT_READ | PROT_WRITE,
+       MAP_FIXED | MAP_PRIVATE | MAP_ANONYMOUS | MAP_NORESERVE,
+       -1, 0);
+  if (bootRegion == (void *) MAP_FAILED)
+    return bootRegion;
+  if (madvise(bootRegion, *roundedImageSize, MADV_HUGEPAGE) != 0) {
+    TRACE_PRINTF("%s: madvise(MADV_HUGEPAGE) failed (errno=%d): %s\n", Me, errno, strerror(errno));
+  }
+  if (fread(bootRegion, 1, actualImageSize, fin) != actualImageSize
+      || mprotect(bootRegion, *roundedImageSize, prot) != 0) {
+    (void) munmap(bootRegion, *roundedImageSize);
+    return MAP_FAILED;
+  }
+  return bootRegion;
+}
+#endif
+
 /**
  * Map the given file to memory
  *
  * Taken:     fileName         [in] name of file
  *            targetAddress    [in] address to load file to
+ *            limitAddress     [in] start of the next boot image region, or
+ *                                  NULL if this region should never be
+ *                                  backed by huge pages
  *            executable       [in] are we mapping code into memory
  *            writable         [in] do we need to write to this memory?
  *            roundedImageSize [out] size of mapped memory rounded up to a whole
  * Returned:  address of mapped region
  */
-static void* mapImageFile(const char *fileName, const void *targetAddress,
+static void* mapImageFile(const char *fileName, const void *targetAddress, const void *limitAddress,
                           jboolean executable, jboolean writable, Extent *roundedImageSize) {
   Extent actualImageSize;
   void *bootRegion = 0;
@@ -313,6 +358,13 @@ static void* mapImageFile(const char *fileName, const void *targetAddress,
     prot |= PROT_WRITE;
   if (executable)
     prot |= PROT_EXEC;
+#if (defined RVM_FOR_LINUX) && (defined MADV_HUGEPAGE)
+  if (hugePageBootImage && limitAddress
+      && ((Address) targetAddress & (HUGE_PAGE_SIZE - 1)) == 0
+      && (Address) targetAddress + pageRoundUp(actualImageSize, HUGE_PAGE_SIZE) <= (Address) limitAddress) {
+    bootRegion = mapImageHugePages(fin, targetAddress, prot, actualImageSize, roundedImageSize);
+  } else
+#endif
   bootRegion = mmap((void*)targetAddress, *roundedImageSize,
        prot,
        MAP_FIXED | MAP_PRIVATE | MAP_NORESERVE,
@@ -355,6 +407,7 @@ int createVM(int vmInSeparateThread)
   // See RVM-678.
   void *bootDataRegion = mapImageFile(bootDataFilename,
              bootImageDataAddress,
+             bootImageCodeAddress,
              JNI_TRUE,
                                       JNI_TRUE,
              &roundedDataRegionSize);
@@ -371,6 +424,7 @@ int createVM(int vmInSeparateThread)
   // it is never necessary to patch code from the boot image.
   void *bootCodeRegion = mapImageFile(bootCodeFilename,
              bootImageCodeAddress,
+             bootImageRMapAddress,
              JNI_TRUE,
                                       JNI_TRUE,
              &roundedCodeRegionSize);
@@ -380,6 +434,7 @@ int createVM(int vmInSeparateThread)
   Extent roundedRMapRegionSize;
   void *bootRMapRegion = mapImageFile(bootRMapFilename,
              bootImageRMapAddress,
+             NULL,
              JNI_FALSE,
                                       JNI_FALSE,
              &roundedRMapRegionSize);
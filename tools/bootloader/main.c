@@ -414,6 +414,13 @@ static const char ** processCommandLineArguments(JavaVMInitArgs *initArgs, const
       continue;
     }
 
+    // MMTk parses -X:gc:hugePages itself, but the boot image is mapped
+    // before it gets the chance, so take note of it here as well.
+    if (STREQUAL(token, "-X:gc:hugePages=true"))
+      hugePageBootImage = 1;
+    else if (STREQUAL(token, "-X:gc:hugePages=false"))
+      hugePageBootImage = 0;
+
     //
     // All VM directives that are not handled here but in VM.java
     // must be identified.
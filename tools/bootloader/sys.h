@@ -89,6 +89,8 @@ extern char *bootCodeFilename;
 extern char *bootDataFilename;
 /** File name for part of boot image containing the root map */
 extern char *bootRMapFilename;
+/** Should the boot image code and data be backed by huge pages? */
+extern int hugePageBootImage;
 
 extern Extent initialHeapSize;
 extern Extent maximumHeapSize;
@@ -224,6 +226,7 @@ EXTERNAL void * sysMMapErrno(char *start , size_t length ,
                              int protection , int flags ,
                              int fd , Offset offset);
 EXTERNAL int sysMProtect(char *start, size_t length, int prot);
+EXTERNAL int sysMAdvise(char *start, size_t length, int advice);
 EXTERNAL void sysCopy(void *dst, const void *src, Extent cnt);
 EXTERNAL void sysMemmove(void *dst, const void *src, Extent cnt);
 EXTERNAL void sysSyncCache(void *address, size_t size);